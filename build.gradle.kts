@@ -6,10 +6,26 @@ repositories {
     mavenCentral()
 }
 
+// Offline replay harness: fake Montoya services plus a local stub target (see ReplayHarness)
+val harness: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output + sourceSets.main.get().compileClasspath
+    runtimeClasspath += sourceSets.main.get().output + sourceSets.main.get().runtimeClasspath
+}
+
 dependencies {
     compileOnly("net.portswigger.burp.extensions:montoya-api:2025.8")
+    implementation(project(":core"))
     implementation("org.yaml:snakeyaml:2.2")
     implementation("com.google.code.gson:gson:2.11.0")
+    "harnessImplementation"("net.portswigger.burp.extensions:montoya-api:2025.8")
+}
+
+// ./gradlew replay --args="--input traffic.har --group users=1001,1002"
+tasks.register<JavaExec>("replay") {
+    group = "verification"
+    description = "Replays a HAR or Burp XML export through the scanner against a local stub target."
+    classpath = harness.runtimeClasspath
+    mainClass.set("aydaaydor.harness.ReplayHarness")
 }
 
 tasks.withType<JavaCompile> {
@@ -20,6 +36,8 @@ tasks.withType<JavaCompile> {
 
 tasks.jar {
     duplicatesStrategy = DuplicatesStrategy.EXCLUDE
-    from(configurations.runtimeClasspath.get().filter { it.isDirectory })
-    from(configurations.runtimeClasspath.get().filterNot { it.isDirectory }.map { zipTree(it) })
+    // Resolved lazily so the core jar is built before it is merged in
+    dependsOn(configurations.runtimeClasspath)
+    from({ configurations.runtimeClasspath.get().filter { it.isDirectory } })
+    from({ configurations.runtimeClasspath.get().filterNot { it.isDirectory }.map { zipTree(it) } })
 }
@@ -0,0 +1,38 @@
+plugins {
+    id("java-library")
+    id("application")
+    id("me.champeau.jmh") version "0.7.3"
+}
+
+repositories {
+    mavenCentral()
+}
+
+dependencies {
+    implementation("com.google.code.gson:gson:2.11.0")
+    testImplementation("org.junit.jupiter:junit-jupiter:5.11.3")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+}
+
+// Batch scanning of HAR files: ./gradlew :core:run --args="--group users=1001,1002 traffic.har"
+application {
+    mainClass.set("aydaaydor.cli.ScanCli")
+}
+
+// Hot-path benchmarks: ./gradlew :core:jmh (results in core/build/results/jmh/results.json)
+jmh {
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+    resultFormat.set("JSON")
+}
+
+tasks.test {
+    useJUnitPlatform()
+}
+
+tasks.withType<JavaCompile> {
+    sourceCompatibility = "21"
+    targetCompatibility = "21"
+    options.encoding = "UTF-8"
+}
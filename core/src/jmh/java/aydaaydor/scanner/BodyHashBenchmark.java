@@ -0,0 +1,46 @@
+package aydaaydor.scanner;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Whole-body primitives run on every response: the stable body hash, SimHash and the denied-string scan. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BodyHashBenchmark {
+    @Param({"4096", "65536", "1048576"})
+    public int bodySize;
+
+    private byte[] body;
+    private DeniedStringMatcher denied;
+
+    @Setup
+    public void setup() {
+        body = Fixtures.ordersHtml(bodySize, 4100);
+        denied = DeniedStringMatcher.compile(List.of("Access denied", "not authorized", "forbidden", "please log in"));
+    }
+
+    @Benchmark
+    public long trimmedHash() {
+        return BodyHash.trimmed(body);
+    }
+
+    @Benchmark
+    public long simHash() {
+        return SimHash.compute(body, 0, body.length);
+    }
+
+    @Benchmark
+    public boolean deniedScan() {
+        return denied.containsAny(body);
+    }
+}
@@ -0,0 +1,69 @@
+package aydaaydor.scanner;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response comparison on realistic JSON API and server-rendered HTML bodies: fingerprinting a fresh
+ * response with the reflected IDs masked (the per-mutation cost) and comparing two precomputed fingerprints.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ComparisonBenchmark {
+    private static final Set<String> IGNORED = Set.of("lastLogin", "createdAt");
+
+    @Param({"json", "html"})
+    public String kind;
+
+    @Param({"4096", "65536", "1048576"})
+    public int bodySize;
+
+    private byte[] base;
+    private byte[] other;
+    private String baseId;
+    private String otherId;
+    private ResponseFingerprint baseFp;
+    private ResponseFingerprint otherFp;
+
+    @Setup
+    public void setup() {
+        if (kind.equals("json")) {
+            base = Fixtures.usersJson(bodySize, 1);
+            other = Fixtures.usersJson(bodySize, 1001);
+            baseId = "1";
+            otherId = "1001";
+        } else {
+            base = Fixtures.ordersHtml(bodySize, 4100);
+            other = Fixtures.ordersHtml(bodySize, 4107);
+            baseId = "4100";
+            otherId = "4107";
+        }
+        baseFp = ResponseContext.fingerprintOf(200, base, IGNORED, baseId);
+        otherFp = ResponseContext.fingerprintOf(200, other, IGNORED, baseId, otherId);
+    }
+
+    @Benchmark
+    public ResponseFingerprint fingerprint() {
+        return ResponseContext.fingerprintOf(200, other, IGNORED, baseId, otherId);
+    }
+
+    @Benchmark
+    public boolean compareFingerprints() {
+        return ScanEngine.compareFingerprints(baseFp, otherFp, 0);
+    }
+
+    @Benchmark
+    public boolean fingerprintAndCompare() {
+        return ScanEngine.compareFingerprints(baseFp, ResponseContext.fingerprintOf(200, other, IGNORED, baseId, otherId), 0);
+    }
+}
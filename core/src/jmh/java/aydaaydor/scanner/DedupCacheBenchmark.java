@@ -0,0 +1,55 @@
+package aydaaydor.scanner;
+
+import aydaaydor.metrics.MetricsRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The dedup cache as the proxy handler and scan workers use it: many threads checking and marking scan keys
+ * concurrently against one shared cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(8)
+public class DedupCacheBenchmark {
+    @Param({"1000", "20000"})
+    public int lruMax;
+
+    /** Distinct keys relative to the LRU size; above 1 the cache keeps evicting. */
+    @Param({"0.5", "2"})
+    public double keySpread;
+
+    private TtlLruCache cache;
+    private String[] keys;
+
+    @Setup
+    public void setup() {
+        cache = new TtlLruCache(() -> lruMax, () -> 12L * 60 * 60 * 1000, new MetricsRegistry(), "bench");
+        keys = new String[(int) (lruMax * keySpread)];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = "GET|shop.example.test|/api/v2/accounts/" + (4100 + i) + "/orders|S|4|[PLAIN]|accounts#" + Integer.toHexString(i);
+        }
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < Math.min(keys.length, lruMax); i++) cache.mark(keys[i], now);
+    }
+
+    @Benchmark
+    public boolean checkThenMark() {
+        String key = keys[ThreadLocalRandom.current().nextInt(keys.length)];
+        long now = System.currentTimeMillis();
+        if (cache.isFresh(key, now)) return true;
+        cache.mark(key, now);
+        return false;
+    }
+}
@@ -0,0 +1,71 @@
+package aydaaydor.scanner;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/** Per-(candidate, ID) cost of the encoding chain search, for each kind of candidate value. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EncodingChainBenchmark {
+    private static final String ID = "4100";
+
+    @Param({"plain", "url", "base64-json", "jwt"})
+    public String kind;
+
+    private String candidate;
+    private EncodingChain chain;
+
+    @Setup
+    public void setup() {
+        String json = "{\"accountId\":\"" + ID + "\",\"role\":\"member\",\"exp\":1718000000}";
+        switch (kind) {
+            case "plain":
+                candidate = "acct-" + ID;
+                chain = new EncodingChain(List.of(EncodingChain.Step.PLAIN));
+                break;
+            case "url":
+                candidate = "filter%3DaccountId%3D" + ID + "%26sort%3Ddesc";
+                chain = new EncodingChain(List.of(EncodingChain.Step.URL));
+                break;
+            case "base64-json":
+                candidate = Base64.getEncoder().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+                chain = new EncodingChain(List.of(EncodingChain.Step.BASE64));
+                break;
+            default:
+                candidate = "eyJhbGciOiJIUzI1NiIsInR5cCI6IkpXVCJ9."
+                        + Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8))
+                        + ".c2lnbmF0dXJlLW5vdC12ZXJpZmllZA";
+                chain = new EncodingChain(List.of(EncodingChain.Step.BASE64URL));
+                break;
+        }
+    }
+
+    @Benchmark
+    public Optional<EncodedOccurrence> findOccurrenceWithId() {
+        return EncodingChain.findOccurrence(candidate, ID);
+    }
+
+    @Benchmark
+    public Optional<EncodedOccurrence> findOccurrenceWithoutId() {
+        // The common case: most candidates contain none of the group IDs
+        return EncodingChain.findOccurrence(candidate, "9977");
+    }
+
+    @Benchmark
+    public String decodeAll() {
+        return chain.decodeAll(candidate);
+    }
+}
@@ -0,0 +1,102 @@
+package aydaaydor.scanner;
+
+import aydaaydor.config.IdGroup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Benchmark inputs built from the templates under {@code src/jmh/resources/fixtures}. Bodies are scaled to a
+ * requested size by repeating the item/row template, so every size has the same realistic structure.
+ */
+final class Fixtures {
+    private Fixtures() {}
+
+    static String resource(String name) {
+        try (InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + name)) {
+            if (in == null) throw new IllegalArgumentException("Missing fixture " + name);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** API list response: {@code {"page":1,"items":[user...]}} of at least {@code minBytes}, user ids from {@code firstId}. */
+    static byte[] usersJson(int minBytes, int firstId) {
+        String item = resource("user.json").trim();
+        StringBuilder sb = new StringBuilder("{\"page\":1,\"pageSize\":50,\"items\":[");
+        int n = firstId;
+        do {
+            if (n != firstId) sb.append(',');
+            sb.append(item.replace("{{n}}", Integer.toString(n++)));
+        } while (sb.length() < minBytes);
+        sb.append("],\"total\":").append(n - firstId).append('}');
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** Server-rendered order history page of at least {@code minBytes} for {@code account}. */
+    static byte[] ordersHtml(int minBytes, int account) {
+        String page = resource("orders-page.html");
+        String row = resource("order-row.html");
+        StringBuilder rows = new StringBuilder();
+        int n = 0;
+        do {
+            rows.append(row.replace("{{n}}", Integer.toString(100000 + n))
+                    .replace("{{day}}", String.format("%02d", 1 + n % 28)));
+            n++;
+        } while (rows.length() + page.length() < minBytes);
+        return page.replace("{{rows}}", rows).replace("{{account}}", Integer.toString(account))
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** Raw CRLF request for {@code account}; the account id appears in the path, a header, a JWT and a cookie. */
+    static String request(String account, String order) {
+        String jwtPayload = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(("{\"sub\":\"" + account + "\",\"scope\":\"orders\"}").getBytes(StandardCharsets.UTF_8));
+        String tracking = Base64.getEncoder().encodeToString(("acct=" + account).getBytes(StandardCharsets.UTF_8));
+        return resource("request.http")
+                .replace("{{account}}", account)
+                .replace("{{order}}", order)
+                .replace("{{jwtPayload}}", jwtPayload)
+                .replace("{{trackingCookie}}", tracking)
+                .replace("\r\n", "\n").replace("\n", "\r\n");
+    }
+
+    /**
+     * Candidates the scanner would extract from {@link #request}: headers, path segments and the raw query,
+     * padded with extra headers up to {@code count}.
+     */
+    static List<Candidate> candidates(String rawRequest, int count) {
+        List<Candidate> out = new ArrayList<>();
+        String[] lines = rawRequest.split("\r\n");
+        String target = lines[0].split(" ")[1];
+        int q = target.indexOf('?');
+        String path = q >= 0 ? target.substring(0, q) : target;
+        String[] parts = path.split("/");
+        for (int i = 0; i < parts.length; i++) {
+            if (!parts[i].isEmpty()) out.add(Candidate.forPathSegment(i, parts[i]));
+        }
+        if (q >= 0) out.add(Candidate.forRawQuery(target.substring(q + 1)));
+        for (int i = 1; i < lines.length && !lines[i].isEmpty(); i++) {
+            int c = lines[i].indexOf(':');
+            if (c > 0) out.add(Candidate.forHeader(lines[i].substring(0, c), lines[i].substring(c + 1).trim()));
+        }
+        for (int i = 0; out.size() < count; i++) {
+            out.add(Candidate.forHeader("X-Trace-" + i, "span-" + Integer.toHexString(0x5f3759df * (i + 1))));
+        }
+        return out;
+    }
+
+    /** Numeric ID group of {@code size} account ids, starting at 4100. */
+    static IdGroup group(int size) {
+        IdGroup g = new IdGroup("accounts");
+        for (int i = 0; i < size; i++) g.ids.add(Integer.toString(4100 + i * 7));
+        g.recalculateType();
+        return g;
+    }
+}
@@ -0,0 +1,40 @@
+package aydaaydor.scanner;
+
+import aydaaydor.config.IdGroup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** The matching half of {@code findAllMatches}: every extracted candidate against every group ID. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MatchingBenchmark {
+    @Param({"5", "50", "500"})
+    public int groupSize;
+
+    @Param({"15", "60"})
+    public int candidateCount;
+
+    private List<Candidate> candidates;
+    private List<IdGroup> groups;
+
+    @Setup
+    public void setup() {
+        candidates = Fixtures.candidates(Fixtures.request("4100", "778812"), candidateCount);
+        groups = List.of(Fixtures.group(groupSize));
+    }
+
+    @Benchmark
+    public List<Match> matchCandidates() {
+        return ScanEngine.matchCandidates(candidates, groups);
+    }
+}
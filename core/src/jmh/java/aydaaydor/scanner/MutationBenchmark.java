@@ -0,0 +1,57 @@
+package aydaaydor.scanner;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building one mutated request: compiling a match into a template and rendering a variant, plus the string
+ * splice the Montoya fallback path uses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MutationBenchmark {
+    @Param({"HEADER", "PATH_SEGMENT"})
+    public String location;
+
+    private byte[] request;
+    private Match match;
+    private MutationTemplate template;
+
+    @Setup
+    public void setup() {
+        String raw = Fixtures.request("4100", "778812");
+        request = raw.getBytes(StandardCharsets.ISO_8859_1);
+        List<Match> matches = ScanEngine.matchCandidates(Fixtures.candidates(raw, 0), List.of(Fixtures.group(5)));
+        Candidate.Type type = Candidate.Type.valueOf(location);
+        match = matches.stream().filter(m -> m.candidate.type == type && !m.reencodeWhole).findFirst()
+                .orElseThrow(() -> new IllegalStateException("No " + location + " match in fixture request"));
+        template = MutationTemplate.compile(request, match);
+        if (template == null) throw new IllegalStateException("Fixture match did not compile");
+    }
+
+    @Benchmark
+    public MutationTemplate compile() {
+        return MutationTemplate.compile(request, match);
+    }
+
+    @Benchmark
+    public byte[] render() {
+        return template.render(MutationTemplate.slotValue(match, "4107"));
+    }
+
+    @Benchmark
+    public String replaceAt() {
+        return MutationTemplate.replaceAt(match.candidate.value, match.startIndex, match.encodedFragment.length(), "4107");
+    }
+}
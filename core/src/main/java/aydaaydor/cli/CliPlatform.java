@@ -0,0 +1,156 @@
+package aydaaydor.cli;
+
+import aydaaydor.metrics.Counter;
+import aydaaydor.metrics.MetricsRegistry;
+import aydaaydor.scanner.Finding;
+import aydaaydor.scanner.HttpTarget;
+import aydaaydor.scanner.RawRequest;
+import aydaaydor.scanner.RawResponse;
+import aydaaydor.scanner.ScanPlatform;
+import aydaaydor.scanner.ScanRequest;
+import aydaaydor.scanner.ScanResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+
+/**
+ * Sends the engine's requests either to a live target or to a recorded-response oracle, and collects findings.
+ *
+ * The oracle answers a request with the archived response to the same method, URL and body, so an archive
+ * that already contains other users' objects can be checked without any network access. Requests it has no
+ * recording for are answered with a 404, which the engine treats like the dummy-ID probe. Headers that carry an
+ * identity's session are part of the oracle key, so a replay as another identity is never answered with the
+ * original session's recording.
+ */
+final class CliPlatform implements ScanPlatform {
+    // Restricted by java.net.http or recomputed for the re-targeted request
+    private static final Set<String> DROPPED_HEADERS = Set.of("host", "connection", "content-length", "expect", "upgrade",
+            "keep-alive", "transfer-encoding", "te", "trailer", "proxy-connection", "http2-settings");
+
+    private final Map<String, byte[]> recorded = new ConcurrentHashMap<>();
+    private final HttpClient client; // null in oracle mode
+    private final URI targetOverride;
+    private final Duration timeout;
+    private final Set<String> sessionHeaders; // lower-case names, part of the oracle key
+    private final List<Finding> findings = new CopyOnWriteArrayList<>();
+    private final Counter oracleHits;
+    private final Counter oracleMisses;
+
+    private CliPlatform(HttpClient client, URI targetOverride, int timeoutMs, Set<String> sessionHeaders, MetricsRegistry metrics) {
+        this.client = client;
+        this.sessionHeaders = sessionHeaders;
+        this.targetOverride = targetOverride;
+        this.timeout = Duration.ofMillis(Math.max(1000, timeoutMs));
+        this.oracleHits = metrics.counter("oracle.hit");
+        this.oracleMisses = metrics.counter("oracle.miss");
+    }
+
+    static CliPlatform oracle(Set<String> sessionHeaders, MetricsRegistry metrics) {
+        Set<String> lower = new TreeSet<>();
+        for (String h : sessionHeaders) lower.add(h.toLowerCase(Locale.ROOT));
+        return new CliPlatform(null, null, 0, lower, metrics);
+    }
+
+    /** Live mode; {@code targetOverride} (scheme://host:port) redirects every request, null keeps recorded hosts. */
+    static CliPlatform live(URI targetOverride, int timeoutMs, MetricsRegistry metrics) {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        return new CliPlatform(client, targetOverride, timeoutMs, Set.of(), metrics);
+    }
+
+    boolean live() {
+        return client != null;
+    }
+
+    void record(ScanRequest request, byte[] response) {
+        recorded.put(key(request), response);
+    }
+
+    List<Finding> findings() {
+        return findings;
+    }
+
+    @Override
+    public ScanRequest request(HttpTarget target, byte[] raw) {
+        return RawRequest.parse(target, raw);
+    }
+
+    @Override
+    public Future<ScanResponse> send(ScanRequest request) {
+        return fetch(request);
+    }
+
+    CompletableFuture<ScanResponse> fetch(ScanRequest request) {
+        if (client == null) {
+            byte[] hit = recorded.get(key(request));
+            (hit != null ? oracleHits : oracleMisses).inc();
+            return CompletableFuture.completedFuture(hit != null ? RawResponse.parse(hit)
+                    : RawResponse.of(404, "text/plain", "No recorded response".getBytes(StandardCharsets.US_ASCII)));
+        }
+        URI uri = targetOverride != null ? targetOverride.resolve(request.path()) : URI.create(request.url());
+        java.net.http.HttpRequest.Builder b = java.net.http.HttpRequest.newBuilder(uri).timeout(timeout);
+        for (Map.Entry<String, String> h : request.headers()) {
+            if (DROPPED_HEADERS.contains(h.getKey().toLowerCase())) continue;
+            try { b.header(h.getKey(), h.getValue()); } catch (IllegalArgumentException ignored) {}
+        }
+        byte[] body = request instanceof RawRequest ? ((RawRequest) request).body() : new byte[0];
+        b.method(request.method(), body.length == 0
+                ? java.net.http.HttpRequest.BodyPublishers.noBody()
+                : java.net.http.HttpRequest.BodyPublishers.ofByteArray(body));
+        return client.sendAsync(b.build(), java.net.http.HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(CliPlatform::raw);
+    }
+
+    @Override
+    public void report(Finding finding) {
+        findings.add(finding);
+    }
+
+    @Override
+    public void logError(String message) {
+        System.err.println(message);
+    }
+
+    private String key(ScanRequest r) {
+        byte[] body = r instanceof RawRequest ? ((RawRequest) r).body() : new byte[0];
+        StringBuilder sb = new StringBuilder(r.method()).append(' ').append(r.url()).append('\n');
+        if (!sessionHeaders.isEmpty()) {
+            List<String> session = new ArrayList<>();
+            for (Map.Entry<String, String> h : r.headers()) {
+                if (sessionHeaders.contains(h.getKey().toLowerCase(Locale.ROOT))) session.add(h.getKey().toLowerCase(Locale.ROOT) + ": " + h.getValue().trim());
+            }
+            Collections.sort(session);
+            for (String h : session) sb.append(h).append('\n');
+        }
+        return sb.append('\n').append(new String(body, StandardCharsets.ISO_8859_1)).toString();
+    }
+
+    private static ScanResponse raw(java.net.http.HttpResponse<byte[]> resp) {
+        StringBuilder head = new StringBuilder("HTTP/1.1 ").append(resp.statusCode()).append(" \r\n");
+        resp.headers().map().forEach((name, values) -> {
+            if (name.startsWith(":")) return;
+            for (String v : values) head.append(name).append(": ").append(v).append("\r\n");
+        });
+        head.append("\r\n");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+        out.writeBytes(resp.body());
+        return RawResponse.parse(out.toByteArray());
+    }
+}
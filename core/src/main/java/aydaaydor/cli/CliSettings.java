@@ -0,0 +1,61 @@
+package aydaaydor.cli;
+
+import aydaaydor.config.DedupMode;
+import aydaaydor.config.IdGroup;
+import aydaaydor.config.Identity;
+import aydaaydor.config.ScanSettings;
+import aydaaydor.scanner.ParamType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/** Command line scan settings; defaults match the Burp extension's. */
+final class CliSettings implements ScanSettings {
+    final List<IdGroup> groups = new ArrayList<>();
+    final List<Identity> identities = new ArrayList<>();
+    final List<String> deniedStrings = new ArrayList<>();
+    final Set<String> ignoredParams = new LinkedHashSet<>(); // "TYPE:name", lower-case name
+    final List<String> pathExcludeRegex = new ArrayList<>();
+    final List<String> ignoredJsonKeys = new ArrayList<>();
+    List<String> skipExtensions = new ArrayList<>(Arrays.asList(".gif", ".jpg", ".png", ".ico", ".css", ".woff", ".woff2", ".ttf", ".svg"));
+    int requestTimeoutMs = 10000;
+    int maxMutationsPerBase = 20;
+    int maxParallelMutations = Runtime.getRuntime().availableProcessors();
+    int simHashMaxDistance = 0;
+    int largeBodyThresholdBytes = 2 * 1024 * 1024;
+    DedupMode dedupMode = DedupMode.STRICT;
+    boolean consistentSubstitution;
+    boolean adaptiveBudget = true;
+    boolean confirmFindings;
+    boolean learnVolatileJsonPaths = true;
+
+    @Override public List<IdGroup> allGroups() { return groups; }
+    @Override public List<Identity> getIdentities() { return identities; }
+    @Override public List<String> getDeniedStrings() { return deniedStrings; }
+    @Override public boolean isParamIgnored(ParamType type, String name) {
+        return type != null && name != null && ignoredParams.contains(type + ":" + name.trim().toLowerCase(Locale.ROOT));
+    }
+    @Override public List<String> getPathExcludeRegex() { return pathExcludeRegex; }
+    @Override public List<String> getIgnoredHeaders() { return List.of(); }
+    @Override public List<String> getSkipExtensions() { return skipExtensions; }
+    @Override public List<String> getIgnoredJsonKeys() { return ignoredJsonKeys; }
+    @Override public int getRequestTimeoutMs() { return requestTimeoutMs; }
+    @Override public int getDelayMsBetweenMutations() { return 0; }
+    @Override public int getMaxMutationsPerBase() { return maxMutationsPerBase; }
+    @Override public int getMaxParallelMutations() { return maxParallelMutations; }
+    @Override public long getDummyCacheTtlMillis() { return 60_000L; }
+    @Override public int getSimHashMaxDistance() { return simHashMaxDistance; }
+    @Override public int getLargeBodyThresholdBytes() { return largeBodyThresholdBytes; }
+    @Override public int getBatchSize() { return 1; }
+    @Override public boolean isConsistentSubstitution() { return consistentSubstitution; }
+    @Override public boolean isAdaptiveBudget() { return adaptiveBudget; }
+    @Override public boolean isConfirmFindings() { return confirmFindings; }
+    @Override public boolean isLearnVolatileJsonPaths() { return learnVolatileJsonPaths; }
+    @Override public DedupMode getDedupMode() { return dedupMode; }
+    @Override public long getDedupTtlMillis() { return 12L * 60 * 60 * 1000; }
+    @Override public int getDedupLruMax() { return 20000; }
+}
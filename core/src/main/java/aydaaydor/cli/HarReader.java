@@ -0,0 +1,103 @@
+package aydaaydor.cli;
+
+import aydaaydor.scanner.HttpTarget;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reads HAR 1.2 archives into raw HTTP/1.1 requests and, where recorded, raw responses. HTTP/2 pseudo-headers
+ * are dropped and framing headers (Content-Length, Transfer-Encoding) are rewritten for the decoded bodies.
+ */
+public final class HarReader {
+    private HarReader() {}
+
+    private static final Set<String> FRAMING = Set.of("host", "content-length", "transfer-encoding", "content-encoding");
+
+    /** One archived exchange. {@code response} is null when the archive has no usable response. */
+    public static final class Entry {
+        public final HttpTarget target;
+        public final byte[] request;
+        public final byte[] response;
+
+        Entry(HttpTarget target, byte[] request, byte[] response) {
+            this.target = target;
+            this.request = request;
+            this.response = response;
+        }
+    }
+
+    public static List<Entry> read(Path file) throws IOException {
+        JsonObject root;
+        try (Reader r = Files.newBufferedReader(file, StandardCharsets.UTF_8); JsonReader jr = new JsonReader(r)) {
+            root = JsonParser.parseReader(jr).getAsJsonObject();
+        }
+        List<Entry> out = new ArrayList<>();
+        JsonArray entries = root.getAsJsonObject("log").getAsJsonArray("entries");
+        for (JsonElement e : entries) {
+            try {
+                JsonObject entry = e.getAsJsonObject();
+                JsonObject req = entry.getAsJsonObject("request");
+                URI url = URI.create(req.get("url").getAsString());
+                boolean secure = "https".equalsIgnoreCase(url.getScheme());
+                int port = url.getPort() > 0 ? url.getPort() : (secure ? 443 : 80);
+                String target = url.getRawPath() == null || url.getRawPath().isEmpty() ? "/" : url.getRawPath();
+                if (url.getRawQuery() != null) target += "?" + url.getRawQuery();
+
+                byte[] body = new byte[0];
+                JsonObject post = req.getAsJsonObject("postData");
+                if (post != null && post.has("text")) body = post.get("text").getAsString().getBytes(StandardCharsets.UTF_8);
+                String head = req.get("method").getAsString() + ' ' + target + " HTTP/1.1\r\n"
+                        + "Host: " + url.getHost() + (url.getPort() > 0 ? ":" + url.getPort() : "") + "\r\n";
+                byte[] request = message(head, req.getAsJsonArray("headers"), body, body.length > 0);
+
+                out.add(new Entry(new HttpTarget(url.getHost(), port, secure), request, response(entry.getAsJsonObject("response"))));
+            } catch (Exception ignored) {}
+        }
+        return out;
+    }
+
+    private static byte[] response(JsonObject resp) {
+        if (resp == null || !resp.has("status") || resp.get("status").getAsInt() <= 0) return null;
+        byte[] body = new byte[0];
+        JsonObject content = resp.getAsJsonObject("content");
+        if (content != null && content.has("text") && !content.get("text").isJsonNull()) {
+            String text = content.get("text").getAsString();
+            boolean base64 = content.has("encoding") && "base64".equalsIgnoreCase(content.get("encoding").getAsString());
+            body = base64 ? Base64.getMimeDecoder().decode(text) : text.getBytes(StandardCharsets.UTF_8);
+        }
+        String reason = resp.has("statusText") ? resp.get("statusText").getAsString() : "";
+        return message("HTTP/1.1 " + resp.get("status").getAsInt() + ' ' + reason + "\r\n", resp.getAsJsonArray("headers"), body, true);
+    }
+
+    private static byte[] message(String startAndHost, JsonArray headers, byte[] body, boolean contentLength) {
+        StringBuilder sb = new StringBuilder(startAndHost);
+        if (headers != null) {
+            for (JsonElement h : headers) {
+                String name = h.getAsJsonObject().get("name").getAsString();
+                if (name.startsWith(":") || FRAMING.contains(name.toLowerCase())) continue;
+                sb.append(name).append(": ").append(h.getAsJsonObject().get("value").getAsString()).append("\r\n");
+            }
+        }
+        if (contentLength) sb.append("Content-Length: ").append(body.length).append("\r\n");
+        sb.append("\r\n");
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        raw.writeBytes(sb.toString().getBytes(StandardCharsets.UTF_8));
+        raw.writeBytes(body);
+        return raw.toByteArray();
+    }
+}
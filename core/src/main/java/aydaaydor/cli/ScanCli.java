@@ -0,0 +1,238 @@
+package aydaaydor.cli;
+
+import aydaaydor.config.DedupMode;
+import aydaaydor.config.IdGroup;
+import aydaaydor.config.Identity;
+import aydaaydor.metrics.MetricsRegistry;
+import aydaaydor.scanner.Finding;
+import aydaaydor.scanner.FindingsJournal;
+import aydaaydor.scanner.RawRequest;
+import aydaaydor.scanner.RawResponse;
+import aydaaydor.scanner.ScanEngine;
+import aydaaydor.scanner.ScanResponse;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+
+import java.io.BufferedWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scans HAR archives outside Burp. Every archived exchange is fed to a {@link ScanEngine}; entries are
+ * matched in parallel on all cores, and mutations go either to a recorded-response oracle built from the
+ * archives themselves (default, no network) or to a live target.
+ *
+ * <pre>
+ * ./gradlew :core:run --args="--group users=1001,1002 traffic.har"
+ * ./gradlew :core:run --args="--group users=1001,1002 --target https://staging.example.com traffic.har"
+ * </pre>
+ */
+public final class ScanCli {
+    private ScanCli() {}
+
+    private static final String USAGE = String.join("\n",
+            "Usage: ScanCli --group NAME=ID,ID... [options] FILE.har...",
+            "       ScanCli --export-journal JOURNAL [--format jsonl|sarif] [--since N] --out FILE",
+            "  --group NAME=IDS        ID group (repeatable)",
+            "  --denied TEXT           Access-denied marker in response bodies (repeatable)",
+            "  --identity 'NAME|H: V'  Header of an identity to replay matched requests as (repeatable)",
+            "  --ignore-param TYPE:N   Parameter to skip, e.g. COOKIE:session (repeatable)",
+            "  --ignore-json-key KEY   JSON key left out of response comparison (repeatable)",
+            "  --exclude REGEX         Path regex to skip (repeatable)",
+            "  --live                  Send mutations to the recorded hosts instead of the oracle",
+            "  --target URL            With --live, send everything to this origin instead",
+            "  --threads N             Parallel checks (default: available cores)",
+            "  --max-mutations N       Alternate IDs tried per match (default: 20)",
+            "  --fixed-budget          Always try --max-mutations IDs instead of adapting per route",
+            "  --confirm               Re-check each finding until a sequential test accepts or rejects it",
+            "  --no-volatile-learning  Do not learn per-route volatile JSON fields",
+            "  --timeout MS            Live request timeout (default: 10000)",
+            "  --content-aware         Dedup on response content as well as route",
+            "  --consistent            Replace every location holding the same ID in one request",
+            "  --out FILE              Write findings as JSON lines",
+            "  --journal FILE          Also append findings to this findings journal",
+            "  --export-journal FILE   Export a findings journal instead of scanning",
+            "  --format jsonl|sarif    Export format (default: jsonl)",
+            "  --since N               Export records from index N on (default: 0)");
+
+    public static void main(String[] args) throws Exception {
+        CliSettings settings = new CliSettings();
+        List<Path> inputs = new ArrayList<>();
+        boolean live = false;
+        URI target = null;
+        Path out = null;
+        Path journal = null;
+        Path exportJournal = null;
+        boolean sarif = false;
+        long since = 0;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String a = args[i];
+                switch (a) {
+                    case "--group": {
+                        String spec = args[++i];
+                        int eq = spec.indexOf('=');
+                        IdGroup g = new IdGroup(spec.substring(0, eq).trim());
+                        for (String id : spec.substring(eq + 1).split(",")) if (!id.isBlank()) g.ids.add(id.trim());
+                        g.recalculateType();
+                        settings.groups.add(g);
+                        break;
+                    }
+                    case "--denied": settings.deniedStrings.add(args[++i]); break;
+                    case "--identity": {
+                        String spec = args[++i];
+                        int bar = spec.indexOf('|');
+                        int colon = spec.indexOf(':', bar + 1);
+                        String name = spec.substring(0, bar).trim();
+                        Identity identity = settings.identities.stream().filter(x -> x.name.equals(name)).findFirst().orElse(null);
+                        if (identity == null) {
+                            identity = new Identity(name);
+                            settings.identities.add(identity);
+                        }
+                        identity.headers.put(spec.substring(bar + 1, colon).trim(), spec.substring(colon + 1).trim());
+                        break;
+                    }
+                    case "--ignore-param": {
+                        String spec = args[++i];
+                        int c = spec.indexOf(':');
+                        settings.ignoredParams.add(spec.substring(0, c).toUpperCase(Locale.ROOT) + ":"
+                                + spec.substring(c + 1).trim().toLowerCase(Locale.ROOT));
+                        break;
+                    }
+                    case "--ignore-json-key": settings.ignoredJsonKeys.add(args[++i]); break;
+                    case "--exclude": settings.pathExcludeRegex.add(args[++i]); break;
+                    case "--live": live = true; break;
+                    case "--target": target = URI.create(args[++i]); live = true; break;
+                    case "--threads": settings.maxParallelMutations = Math.max(1, Integer.parseInt(args[++i])); break;
+                    case "--max-mutations": settings.maxMutationsPerBase = Math.max(1, Integer.parseInt(args[++i])); break;
+                    case "--timeout": settings.requestTimeoutMs = Integer.parseInt(args[++i]); break;
+                    case "--content-aware": settings.dedupMode = DedupMode.CONTENT_AWARE; break;
+                    case "--consistent": settings.consistentSubstitution = true; break;
+                    case "--fixed-budget": settings.adaptiveBudget = false; break;
+                    case "--confirm": settings.confirmFindings = true; break;
+                    case "--no-volatile-learning": settings.learnVolatileJsonPaths = false; break;
+                    case "--out": out = Paths.get(args[++i]); break;
+                    case "--journal": journal = Paths.get(args[++i]); break;
+                    case "--export-journal": exportJournal = Paths.get(args[++i]); break;
+                    case "--format": {
+                        String f = args[++i].toLowerCase(Locale.ROOT);
+                        if (!f.equals("jsonl") && !f.equals("sarif")) throw new IllegalArgumentException("Unknown format " + f);
+                        sarif = f.equals("sarif");
+                        break;
+                    }
+                    case "--since": since = Long.parseLong(args[++i]); break;
+                    default:
+                        if (a.startsWith("--")) throw new IllegalArgumentException("Unknown option " + a);
+                        inputs.add(Paths.get(a));
+                }
+            }
+            if (exportJournal != null && out == null) throw new IllegalArgumentException("--export-journal needs --out");
+            if (exportJournal == null && (inputs.isEmpty() || settings.groups.isEmpty())) throw new IllegalArgumentException("At least one --group and one HAR file are required");
+        } catch (RuntimeException e) {
+            System.err.println(e.getMessage() == null ? e.toString() : e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+        if (exportJournal != null) {
+            FindingsJournal j = new FindingsJournal(exportJournal);
+            long n = sarif ? j.exportSarif(out, since) : j.exportJsonLines(out, since);
+            System.err.printf("%d of %d journaled findings exported%n", n, j.count());
+            System.exit(0);
+            return;
+        }
+        if (settings.deniedStrings.isEmpty()) settings.deniedStrings.addAll(List.of("Access denied", "Forbidden", "Unauthorized"));
+
+        List<HarReader.Entry> entries = new ArrayList<>();
+        for (Path p : inputs) entries.addAll(HarReader.read(p));
+
+        MetricsRegistry metrics = new MetricsRegistry();
+        CliPlatform platform = live ? CliPlatform.live(target, settings.requestTimeoutMs, metrics) : CliPlatform.oracle(sessionHeaders(settings), metrics);
+        if (!platform.live()) {
+            for (HarReader.Entry e : entries) {
+                if (e.response != null) platform.record(RawRequest.parse(e.target, e.request), e.response);
+            }
+        }
+        ScanEngine engine = new ScanEngine(settings, platform, metrics);
+
+        long started = System.nanoTime();
+        int cores = Runtime.getRuntime().availableProcessors();
+        ExecutorService feeders = Executors.newFixedThreadPool(cores);
+        for (HarReader.Entry e : entries) {
+            feeders.execute(() -> {
+                try {
+                    RawRequest req = RawRequest.parse(e.target, e.request);
+                    ScanResponse base = e.response != null ? RawResponse.parse(e.response)
+                            : platform.live() ? platform.fetch(req).join() : null;
+                    if (base != null) engine.scan(req, base);
+                } catch (Exception ex) {
+                    System.err.println("Skipped an entry for " + e.target.host + ": " + ex);
+                }
+            });
+        }
+        feeders.shutdown();
+        feeders.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        engine.awaitCompletion(Long.MAX_VALUE, TimeUnit.DAYS);
+        double secs = (System.nanoTime() - started) / 1e9;
+
+        // One finding per report key, as the extension reports one issue per key
+        List<Finding> findings = new ArrayList<>();
+        for (Finding f : platform.findings()) {
+            if (engine.markReported(f.reportKey)) findings.add(f);
+        }
+        for (Finding f : findings) {
+            System.out.println(f.url + "  [" + f.group + "] " + f.location + ": " + f.baseId + " -> " + f.testId);
+        }
+        if (out != null) writeJsonLines(out, findings);
+        if (journal != null) new FindingsJournal(journal).append(findings);
+
+        Map<String, Long> c = metrics.snapshot().counters;
+        System.err.printf("%d entries in %.2f s (%.0f/s), %d matched, %d mutations, %d findings%n",
+                entries.size(), secs, entries.size() / secs, c.getOrDefault("responses.matched", 0L),
+                c.getOrDefault("mutations.sent", 0L), findings.size());
+        System.exit(0);
+    }
+
+    // Headers any identity sets; the oracle keys recordings on them
+    private static Set<String> sessionHeaders(CliSettings settings) {
+        Set<String> names = new HashSet<>();
+        for (Identity identity : settings.identities) names.addAll(identity.headers.keySet());
+        return names;
+    }
+
+    private static void writeJsonLines(Path file, List<Finding> findings) throws Exception {
+        Gson gson = new GsonBuilder().disableHtmlEscaping().create();
+        try (Writer w = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            for (Finding f : findings) {
+                JsonObject o = new JsonObject();
+                o.addProperty("url", f.url);
+                o.addProperty("method", f.baseRequest.method());
+                o.addProperty("group", f.group);
+                o.addProperty("location", f.location);
+                o.addProperty("baseId", f.baseId);
+                o.addProperty("testId", f.testId);
+                o.addProperty("dummy", f.dummy);
+                o.addProperty("baseStatus", f.baseResponse.statusCode());
+                o.addProperty("testStatus", f.testResponse.statusCode());
+                o.addProperty("detail", f.detail);
+                if (f.diff != null) o.addProperty("diff", f.diff);
+                w.write(gson.toJson(o));
+                w.write('\n');
+            }
+        }
+    }
+}
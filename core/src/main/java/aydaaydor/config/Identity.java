@@ -0,0 +1,15 @@
+package aydaaydor.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Another user's session for authorization replay: the headers that carry it (Cookie, Authorization, ...).
+ * Matched requests are replayed with these headers set; an empty value blanks the header.
+ */
+public class Identity {
+    public final String name;
+    public final Map<String, String> headers = new LinkedHashMap<>();
+
+    public Identity(String name) { this.name = name; }
+}
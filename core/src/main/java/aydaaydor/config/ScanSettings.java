@@ -0,0 +1,35 @@
+package aydaaydor.config;
+
+import aydaaydor.scanner.ParamType;
+
+import java.util.List;
+
+/**
+ * Settings read by the scanning engine. Values are read on every use, so implementations may change them
+ * while a scan runs.
+ */
+public interface ScanSettings {
+    List<IdGroup> allGroups();
+    List<Identity> getIdentities();
+    List<String> getDeniedStrings();
+    boolean isParamIgnored(ParamType type, String name);
+    List<String> getPathExcludeRegex();
+    List<String> getIgnoredHeaders();
+    List<String> getSkipExtensions();
+    List<String> getIgnoredJsonKeys();
+    int getRequestTimeoutMs();
+    int getDelayMsBetweenMutations();
+    int getMaxMutationsPerBase();
+    int getMaxParallelMutations();
+    long getDummyCacheTtlMillis();
+    int getSimHashMaxDistance();
+    int getLargeBodyThresholdBytes();
+    int getBatchSize();
+    boolean isConsistentSubstitution();
+    boolean isAdaptiveBudget();
+    boolean isConfirmFindings();
+    boolean isLearnVolatileJsonPaths();
+    DedupMode getDedupMode();
+    long getDedupTtlMillis();
+    int getDedupLruMax();
+}
@@ -0,0 +1,21 @@
+package aydaaydor.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monotonic event counter. Backed by a striped {@link LongAdder}, so concurrent increments from
+ * scanner threads do not contend on a single cache line.
+ */
+public final class Counter {
+    private final LongAdder adder = new LongAdder();
+
+    Counter() {}
+
+    public void inc() { adder.increment(); }
+
+    public void add(long n) { adder.add(n); }
+
+    public long get() { return adder.sum(); }
+
+    void reset() { adder.reset(); }
+}
@@ -0,0 +1,103 @@
+package aydaaydor.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of non-negative long values with HDR-style log-linear buckets: every power of two is
+ * split into {@value #SUB_BUCKETS} linear sub-buckets, so any recorded value is reported within ~12.5%.
+ * Recording is one array increment, one adder and a max CAS; there is no allocation and no locking.
+ */
+public final class Histogram {
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_BUCKETS;
+
+    /** Point-in-time view of a histogram. Values are in whatever unit the caller recorded. */
+    public static final class Summary {
+        public final long count;
+        public final long sum;
+        public final long max;
+        public final long p50;
+        public final long p90;
+        public final long p99;
+
+        Summary(long count, long sum, long max, long p50, long p90, long p99) {
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+        }
+
+        public long mean() { return count == 0 ? 0 : sum / count; }
+    }
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    Histogram() {}
+
+    public void record(long value) {
+        long v = Math.max(0, value);
+        buckets.incrementAndGet(indexOf(v));
+        sum.add(v);
+        long m = max.get();
+        while (v > m && !max.compareAndSet(m, v)) m = max.get();
+    }
+
+    /** Records the time elapsed since {@code startNanos} (from {@link System#nanoTime()}) in microseconds. */
+    public void recordMicrosSince(long startNanos) {
+        record((System.nanoTime() - startNanos) / 1000L);
+    }
+
+    public Summary summary() {
+        long[] snap = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snap[i] = buckets.get(i);
+            total += snap[i];
+        }
+        long m = max.get();
+        // bucket upper bounds can overshoot the largest recorded value
+        return new Summary(total, sum.sum(), m, Math.min(m, percentile(snap, total, 0.50)),
+                Math.min(m, percentile(snap, total, 0.90)), Math.min(m, percentile(snap, total, 0.99)));
+    }
+
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) buckets.set(i, 0);
+        sum.reset();
+        max.set(0);
+    }
+
+    private static long percentile(long[] snap, long total, double q) {
+        if (total == 0) return 0;
+        long rank = (long) Math.ceil(q * total);
+        long seen = 0;
+        for (int i = 0; i < snap.length; i++) {
+            seen += snap[i];
+            if (seen >= rank) return highestEquivalent(i);
+        }
+        return highestEquivalent(snap.length - 1);
+    }
+
+    static int indexOf(long v) {
+        if (v < SUB_BUCKETS) return (int) v;
+        int exp = 63 - Long.numberOfLeadingZeros(v);
+        int sub = (int) (v >>> (exp - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exp - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    // Largest value that falls into bucket i
+    static long highestEquivalent(int i) {
+        if (i < SUB_BUCKETS) return i;
+        int exp = i / SUB_BUCKETS + SUB_BITS - 1;
+        long sub = i % SUB_BUCKETS;
+        long width = 1L << (exp - SUB_BITS);
+        long lowest = (SUB_BUCKETS + sub) << (exp - SUB_BITS);
+        return lowest + width - 1;
+    }
+}
@@ -0,0 +1,64 @@
+package aydaaydor.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Named counters, gauges and histograms for the scan pipeline. Metrics are created on first lookup;
+ * hot paths should look a metric up once and keep the reference. Reads never block writers.
+ */
+public final class MetricsRegistry {
+
+    /** Consistent-enough copy of every metric, taken at {@link #timestampNanos}. */
+    public static final class Snapshot {
+        public final long timestampNanos;
+        public final Map<String, Long> counters;
+        public final Map<String, Long> gauges;
+        public final Map<String, Histogram.Summary> histograms;
+
+        Snapshot(long timestampNanos, Map<String, Long> counters, Map<String, Long> gauges, Map<String, Histogram.Summary> histograms) {
+            this.timestampNanos = timestampNanos;
+            this.counters = Collections.unmodifiableMap(counters);
+            this.gauges = Collections.unmodifiableMap(gauges);
+            this.histograms = Collections.unmodifiableMap(histograms);
+        }
+    }
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, k -> new Counter());
+    }
+
+    public Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, k -> new Histogram());
+    }
+
+    /** Registers a value that is sampled at snapshot time (queue depth, cache size, ...). */
+    public void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    public Snapshot snapshot() {
+        Map<String, Long> c = new TreeMap<>();
+        for (var e : counters.entrySet()) c.put(e.getKey(), e.getValue().get());
+        Map<String, Long> g = new TreeMap<>();
+        for (var e : gauges.entrySet()) {
+            try { g.put(e.getKey(), e.getValue().getAsLong()); } catch (Exception ignored) {}
+        }
+        Map<String, Histogram.Summary> h = new TreeMap<>();
+        for (var e : histograms.entrySet()) h.put(e.getKey(), e.getValue().summary());
+        return new Snapshot(System.nanoTime(), c, g, h);
+    }
+
+    /** Zeroes counters and histograms; gauges are live values and are left alone. */
+    public void reset() {
+        for (Counter c : counters.values()) c.reset();
+        for (Histogram h : histograms.values()) h.reset();
+    }
+}
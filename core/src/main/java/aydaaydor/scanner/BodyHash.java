@@ -0,0 +1,141 @@
+package aydaaydor.scanner;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 64-bit body hashing (XXH64) over raw bytes.
+ *
+ * One implementation for dedup keys, CONTENT_AWARE signatures and response comparisons. Leading and trailing
+ * whitespace is trimmed by index rather than by copying, and {@link Hasher} accepts the input in chunks so
+ * large bodies can be hashed without materialising them in one array.
+ */
+public final class BodyHash {
+    private static final long P1 = 0x9E3779B185EBCA87L;
+    private static final long P2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long P3 = 0x165667B19E3779F9L;
+    private static final long P4 = 0x85EBCA77C2B2AE63L;
+    private static final long P5 = 0x27D4EB2F165667C5L;
+
+    private BodyHash() {}
+
+    /** Hash of the body with leading/trailing ASCII whitespace and control bytes ignored. */
+    static long trimmed(byte[] b) {
+        if (b == null) return hash(new byte[0], 0, 0);
+        int from = trimStart(b, 0, b.length);
+        int to = trimEnd(b, from, b.length);
+        return hash(b, from, to);
+    }
+
+    static long hash(byte[] b, int from, int to) {
+        return new Hasher().update(b, from, to - from).digest();
+    }
+
+    public static long hash(String s) {
+        byte[] b = (s == null ? "" : s).getBytes(StandardCharsets.UTF_8);
+        return hash(b, 0, b.length);
+    }
+
+    /** First index in [from, to) that is not whitespace (same set as {@link String#trim()}). */
+    static int trimStart(byte[] b, int from, int to) {
+        while (from < to && (b[from] & 0xff) <= ' ') from++;
+        return from;
+    }
+
+    static int trimEnd(byte[] b, int from, int to) {
+        while (to > from && (b[to - 1] & 0xff) <= ' ') to--;
+        return to;
+    }
+
+    /** Streaming XXH64 state. */
+    static final class Hasher {
+        private final byte[] buf = new byte[32];
+        private int bufLen;
+        private long total;
+        private long v1 = P1 + P2, v2 = P2, v3 = 0, v4 = -P1;
+
+        Hasher update(byte[] in, int off, int len) {
+            total += len;
+            if (bufLen + len < 32) {
+                System.arraycopy(in, off, buf, bufLen, len);
+                bufLen += len;
+                return this;
+            }
+            int end = off + len;
+            if (bufLen > 0) {
+                int fill = 32 - bufLen;
+                System.arraycopy(in, off, buf, bufLen, fill);
+                stripe(buf, 0);
+                off += fill;
+                bufLen = 0;
+            }
+            while (off + 32 <= end) {
+                stripe(in, off);
+                off += 32;
+            }
+            bufLen = end - off;
+            System.arraycopy(in, off, buf, 0, bufLen);
+            return this;
+        }
+
+        long digest() {
+            long h;
+            if (total >= 32) {
+                h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+                h = merge(h, v1);
+                h = merge(h, v2);
+                h = merge(h, v3);
+                h = merge(h, v4);
+            } else {
+                h = P5;
+            }
+            h += total;
+            int i = 0;
+            for (; i + 8 <= bufLen; i += 8) {
+                h ^= round(0, readLong(buf, i));
+                h = Long.rotateLeft(h, 27) * P1 + P4;
+            }
+            if (i + 4 <= bufLen) {
+                h ^= (readInt(buf, i) & 0xFFFFFFFFL) * P1;
+                h = Long.rotateLeft(h, 23) * P2 + P3;
+                i += 4;
+            }
+            for (; i < bufLen; i++) {
+                h ^= (buf[i] & 0xFFL) * P5;
+                h = Long.rotateLeft(h, 11) * P1;
+            }
+            h ^= h >>> 33;
+            h *= P2;
+            h ^= h >>> 29;
+            h *= P3;
+            h ^= h >>> 32;
+            return h;
+        }
+
+        private void stripe(byte[] b, int off) {
+            v1 = round(v1, readLong(b, off));
+            v2 = round(v2, readLong(b, off + 8));
+            v3 = round(v3, readLong(b, off + 16));
+            v4 = round(v4, readLong(b, off + 24));
+        }
+    }
+
+    private static long round(long acc, long input) {
+        acc += input * P2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * P1;
+    }
+
+    private static long merge(long h, long v) {
+        h ^= round(0, v);
+        return h * P1 + P4;
+    }
+
+    private static long readLong(byte[] b, int i) {
+        return (b[i] & 0xFFL) | (b[i + 1] & 0xFFL) << 8 | (b[i + 2] & 0xFFL) << 16 | (b[i + 3] & 0xFFL) << 24
+                | (b[i + 4] & 0xFFL) << 32 | (b[i + 5] & 0xFFL) << 40 | (b[i + 6] & 0xFFL) << 48 | (b[i + 7] & 0xFFL) << 56;
+    }
+
+    private static int readInt(byte[] b, int i) {
+        return (b[i] & 0xFF) | (b[i + 1] & 0xFF) << 8 | (b[i + 2] & 0xFF) << 16 | (b[i + 3] & 0xFF) << 24;
+    }
+}
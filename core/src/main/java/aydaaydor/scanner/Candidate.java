@@ -0,0 +1,35 @@
+package aydaaydor.scanner;
+
+class Candidate {
+    enum Type { PARAMETER, HEADER, PATH_SEGMENT, RAW_QUERY }
+    final Type type;
+    final String value;
+    final String paramName;          // for PARAMETER
+    final ParamType paramType; // for PARAMETER
+    final String headerName;   // for HEADER
+    final int pathIndex;       // for PATH_SEGMENT (segment position in split array)
+    final int valueStart;      // for PARAMETER: value offsets in the raw request, -1 if unknown
+    final int valueEnd;
+
+    private Candidate(Type t, String value, String paramName, ParamType paramType, String headerName, int pathIndex,
+                      int valueStart, int valueEnd) {
+        this.type = t; this.value = value; this.paramName = paramName; this.paramType = paramType;
+        this.headerName = headerName; this.pathIndex = pathIndex; this.valueStart = valueStart; this.valueEnd = valueEnd;
+    }
+
+    static Candidate forParam(ScanRequest.Param p) {
+        return new Candidate(Type.PARAMETER, p.value, p.name, p.type, null, -1, p.valueStart, p.valueEnd);
+    }
+
+    static Candidate forHeader(String name, String value) {
+        return new Candidate(Type.HEADER, value, null, null, name, -1, -1, -1);
+    }
+
+    static Candidate forPathSegment(int index, String value) {
+        return new Candidate(Type.PATH_SEGMENT, value, null, null, null, index, -1, -1);
+    }
+
+    static Candidate forRawQuery(String value) {
+        return new Candidate(Type.RAW_QUERY, value, null, null, null, -1, -1, -1);
+    }
+}
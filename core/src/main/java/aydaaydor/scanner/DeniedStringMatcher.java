@@ -0,0 +1,198 @@
+package aydaaydor.scanner;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Case-insensitive multi-needle search over raw response bytes (Aho-Corasick).
+ *
+ * Denied strings are compiled once into a DFA over case-folded UTF-8 bytes; a response is then scanned in a
+ * single pass regardless of how many needles are configured, without decoding it into a String or copying it.
+ * ASCII letters are folded byte-wise. Two-byte UTF-8 sequences (Latin-1 and Latin Extended, Greek, Cyrillic,
+ * Armenian) are folded per code point on the fly, so a denial message in Cyrillic or accented Latin matches in
+ * any mix of cases. Letters of longer sequences are matched in the needle's all-lower and all-upper spellings.
+ */
+final class DeniedStringMatcher {
+    /** State returned by {@link #advance} once any needle has been seen. */
+    static final int MATCHED = -1;
+    // A two-byte lead seen at the end of a chunk is carried in the state above the DFA state
+    private static final int PENDING_SHIFT = 24;
+    private static final int STATE_MASK = (1 << PENDING_SHIFT) - 1;
+    // Code points U+0080..U+07FF (two UTF-8 bytes) to their case fold, where that is also two bytes
+    private static final char[] FOLD2 = new char[0x800];
+
+    static {
+        for (int cp = 0x80; cp < 0x800; cp++) {
+            int f = Character.toLowerCase(Character.toUpperCase(cp));
+            if (f < 0x80 || f >= 0x800) f = Character.toLowerCase(cp);
+            FOLD2[cp] = (char) (f < 0x80 || f >= 0x800 ? cp : f);
+        }
+    }
+
+    private final List<String> source;  // needles as configured, for change detection
+    private final int[] byteClass;      // folded byte -> alphabet class
+    private final int[] delta;          // state * classes + class -> next state
+    private final boolean[] accept;     // state ends (or has a suffix that ends) a needle
+    private final int classes;
+
+    private DeniedStringMatcher(List<String> source, int[] byteClass, int[] delta, boolean[] accept, int classes) {
+        this.source = source;
+        this.byteClass = byteClass;
+        this.delta = delta;
+        this.accept = accept;
+        this.classes = classes;
+    }
+
+    static DeniedStringMatcher compile(List<String> needles) {
+        List<String> src = needles == null ? List.of() : List.copyOf(needles);
+        Set<String> variants = new LinkedHashSet<>();
+        for (String n : src) {
+            if (n == null || n.isEmpty()) continue;
+            variants.add(foldNeedle(n));
+            variants.add(foldNeedle(n.toLowerCase(Locale.ROOT)));
+            variants.add(foldNeedle(n.toUpperCase(Locale.ROOT)));
+        }
+        if (variants.isEmpty()) {
+            return new DeniedStringMatcher(src, new int[256], new int[0], new boolean[1], 1);
+        }
+        List<byte[]> patterns = new ArrayList<>();
+        for (String v : variants) patterns.add(v.getBytes(StandardCharsets.UTF_8));
+
+        // Alphabet compression: only bytes that occur in some needle get their own class; class 0 is "other"
+        int[] byteClass = new int[256];
+        int classes = 1;
+        for (byte[] p : patterns) for (byte x : p) if (byteClass[x & 0xff] == 0) byteClass[x & 0xff] = classes++;
+
+        // Trie
+        List<int[]> trie = new ArrayList<>();
+        List<Boolean> out = new ArrayList<>();
+        trie.add(filled(classes));
+        out.add(false);
+        for (byte[] p : patterns) {
+            int s = 0;
+            for (byte x : p) {
+                int c = byteClass[x & 0xff];
+                int next = trie.get(s)[c];
+                if (next < 0) {
+                    next = trie.size();
+                    trie.add(filled(classes));
+                    out.add(false);
+                    trie.get(s)[c] = next;
+                }
+                s = next;
+            }
+            out.set(s, true);
+        }
+
+        // Failure links, turned into a full DFA in BFS order
+        int states = trie.size();
+        int[] delta = new int[states * classes];
+        boolean[] accept = new boolean[states];
+        int[] fail = new int[states];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < classes; c++) {
+            int t = trie.get(0)[c];
+            if (t < 0) {
+                delta[c] = 0;
+            } else {
+                delta[c] = t;
+                fail[t] = 0;
+                queue.add(t);
+            }
+        }
+        accept[0] = out.get(0);
+        while (!queue.isEmpty()) {
+            int s = queue.poll();
+            accept[s] = out.get(s) || accept[fail[s]];
+            for (int c = 0; c < classes; c++) {
+                int t = trie.get(s)[c];
+                if (t < 0) {
+                    delta[s * classes + c] = delta[fail[s] * classes + c];
+                } else {
+                    delta[s * classes + c] = t;
+                    fail[t] = delta[fail[s] * classes + c];
+                    queue.add(t);
+                }
+            }
+        }
+        return new DeniedStringMatcher(src, byteClass, delta, accept, classes);
+    }
+
+    /** True if this matcher was compiled from exactly these needles. */
+    boolean compiledFrom(List<String> needles) {
+        return source.equals(needles == null ? List.of() : needles);
+    }
+
+    boolean isEmpty() {
+        return delta.length == 0;
+    }
+
+    boolean containsAny(byte[] haystack) {
+        return haystack != null && containsAny(haystack, 0, haystack.length);
+    }
+
+    boolean containsAny(byte[] haystack, int from, int to) {
+        if (isEmpty() || haystack == null) return false;
+        return advance(0, haystack, from, to) == MATCHED;
+    }
+
+    /**
+     * Continues a scan from {@code state} (0 to start) over one chunk, so a body can be fed in pieces.
+     * Returns {@link #MATCHED} as soon as a needle ends, otherwise the state to pass with the next chunk.
+     */
+    int advance(int state, byte[] chunk, int from, int to) {
+        if (state == MATCHED) return MATCHED;
+        if (isEmpty()) return state;
+        int s = state & STATE_MASK;
+        int lead = state >>> PENDING_SHIFT == 0 ? 0 : 0xC0 | state >>> PENDING_SHIFT;
+        for (int i = from; i < to; i++) {
+            int b = chunk[i] & 0xff;
+            if (lead != 0) {
+                if ((b & 0xC0) == 0x80) {
+                    // Complete two-byte sequence: feed its folded code point
+                    int cp = FOLD2[(lead & 0x1F) << 6 | (b & 0x3F)];
+                    lead = 0;
+                    s = delta[s * classes + byteClass[0xC0 | cp >>> 6]];
+                    if (accept[s]) return MATCHED;
+                    s = delta[s * classes + byteClass[0x80 | (cp & 0x3F)]];
+                    if (accept[s]) return MATCHED;
+                    continue;
+                }
+                // Not UTF-8 after all: the lead byte stands for itself
+                s = delta[s * classes + byteClass[lead]];
+                lead = 0;
+                if (accept[s]) return MATCHED;
+            }
+            if (b >= 0xC2 && b <= 0xDF) {
+                lead = b;
+                continue;
+            }
+            s = delta[s * classes + byteClass[(b >= 'A' && b <= 'Z') ? b + 32 : b]];
+            if (accept[s]) return MATCHED;
+        }
+        return lead == 0 ? s : (lead & 0x1F) << PENDING_SHIFT | s;
+    }
+
+    // The needle as the scanner sees the body: ASCII lowercased, two-byte code points case-folded
+    private static String foldNeedle(String n) {
+        StringBuilder sb = new StringBuilder(n.length());
+        n.codePoints().forEach(cp -> {
+            if (cp >= 'A' && cp <= 'Z') sb.append((char) (cp + 32));
+            else if (cp >= 0x80 && cp < 0x800) sb.append(FOLD2[cp]);
+            else sb.appendCodePoint(cp);
+        });
+        return sb.toString();
+    }
+
+    private static int[] filled(int n) {
+        int[] a = new int[n];
+        Arrays.fill(a, -1);
+        return a;
+    }
+}
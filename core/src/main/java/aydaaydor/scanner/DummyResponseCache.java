@@ -0,0 +1,78 @@
+package aydaaydor.scanner;
+
+import aydaaydor.metrics.Counter;
+import aydaaydor.metrics.MetricsRegistry;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Thread-safe TTL + LRU cache of dummy-ID probe results, keyed by route/location/chain/group type.
+ * Lets matches on the same endpoint reuse a recent dummy response instead of sending another one.
+ */
+class DummyResponseCache {
+    static final class Entry {
+        final String dummy;
+        final ResponseFingerprint fingerprint;
+        final long timestamp;
+
+        Entry(String dummy, ResponseFingerprint fingerprint, long timestamp) {
+            this.dummy = dummy;
+            this.fingerprint = fingerprint;
+            this.timestamp = timestamp;
+        }
+    }
+
+    private final Supplier<Long> ttlMillisSupplier;
+    private final Map<String, Entry> map;
+    private final Counter hits;
+    private final Counter misses;
+
+    DummyResponseCache(Supplier<Integer> maxEntriesSupplier, Supplier<Long> ttlMillisSupplier, MetricsRegistry metrics, String name) {
+        this.ttlMillisSupplier = ttlMillisSupplier;
+        this.hits = metrics.counter(name + ".hit");
+        this.misses = metrics.counter(name + ".miss");
+        this.map = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                Integer max = maxEntriesSupplier.get();
+                return max != null && max > 0 && size() > max;
+            }
+        });
+        metrics.gauge(name + ".size", map::size);
+    }
+
+    Entry get(String key, long now) {
+        long ttl = Math.max(0, ttlMillisSupplier.get());
+        if (ttl <= 0) return null; // caching disabled
+        synchronized (map) {
+            Entry e = map.get(key);
+            if (e == null) {
+                misses.inc();
+                return null;
+            }
+            if (now - e.timestamp >= ttl) {
+                map.remove(key);
+                misses.inc();
+                return null;
+            }
+            hits.inc();
+            return e;
+        }
+    }
+
+    void put(String key, String dummy, ResponseFingerprint fingerprint, long now) {
+        if (Math.max(0, ttlMillisSupplier.get()) <= 0) return;
+        synchronized (map) {
+            map.put(key, new Entry(dummy, fingerprint, now));
+        }
+    }
+
+    void clear() {
+        synchronized (map) {
+            map.clear();
+        }
+    }
+}
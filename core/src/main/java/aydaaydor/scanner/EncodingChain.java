@@ -87,7 +87,16 @@ class EncodingChain {
 
             // Second searching strategy: decode the whole candidate and then search for a target (wanted) value
             // inside it. Is used when entire candidate value is base64-encoded JSON for example
+            ScanEvents.ChainDecode ev = new ScanEvents.ChainDecode();
+            ev.begin();
             String decoded = chain.decodeAll(candidate);
+            ev.end();
+            if (ev.shouldCommit()) {
+                ev.chain = steps.toString();
+                ev.inputBytes = candidate.length();
+                ev.decodedBytes = decoded == null ? 0 : decoded.length();
+                ev.commit();
+            }
             if (decoded != null) {
                 int dIdx = decoded.indexOf(wanted);
                 if (dIdx >= 0) {
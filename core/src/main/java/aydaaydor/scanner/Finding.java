@@ -0,0 +1,40 @@
+package aydaaydor.scanner;
+
+/** A reported IDOR: the base exchange, the mutated or identity-replayed exchange that exposed it, and issue text. */
+public final class Finding {
+    public final String name;
+    public final String detail;
+    public final String remediation;
+    public final String url;
+    public final String group;
+    public final String location;
+    public final String baseId;
+    public final String testId;
+    public final String dummy;
+    public final String diff; // how the test response differs from the base; null if not applicable
+    public final String reportKey; // findings with the same key describe the same issue
+    public final ScanRequest baseRequest;
+    public final ScanResponse baseResponse;
+    public final ScanRequest testRequest;
+    public final ScanResponse testResponse;
+
+    Finding(String name, String detail, String remediation, String url, String group, String location,
+            String baseId, String testId, String dummy, String diff, String reportKey, ScanRequest baseRequest, ScanResponse baseResponse,
+            ScanRequest testRequest, ScanResponse testResponse) {
+        this.name = name;
+        this.detail = detail;
+        this.remediation = remediation;
+        this.url = url;
+        this.group = group;
+        this.location = location;
+        this.baseId = baseId;
+        this.testId = testId;
+        this.dummy = dummy;
+        this.diff = diff;
+        this.reportKey = reportKey;
+        this.baseRequest = baseRequest;
+        this.baseResponse = baseResponse;
+        this.testRequest = testRequest;
+        this.testResponse = testResponse;
+    }
+}
@@ -0,0 +1,317 @@
+package aydaaydor.scanner;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only record of every reported finding, kept next to the project settings so findings outlive the Burp
+ * project and can be pulled into other tools. Each record is one JSON object (the finding's text fields plus
+ * status, length and XXH64 hash of the base and test bodies, never the bodies themselves), stored as
+ * {@code [int length][UTF-8 JSON]} after an 8-byte header. A sibling {@code .idx} file holds one 8-byte
+ * offset per record, so the record count is a file size and an export can start at any record.
+ *
+ * Records reach the journal before their index entries. A writer cut short leaves at most a torn tail, which
+ * the next writer truncates; readers only go as far as the index and never modify either file. Exports to JSON
+ * Lines and SARIF stream one record at a time.
+ */
+public final class FindingsJournal {
+    private static final int MAGIC = 0x4159444A; // "AYDJ"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+    private static final int HASH_CHUNK = 64 * 1024;
+    private static final String RULE_IDOR = "AYDA-IDOR";
+    private static final String RULE_ACCESS = "AYDA-ACCESS";
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+
+    private final Path file;
+    private final Path indexFile;
+    private boolean recovered;
+
+    public FindingsJournal(Path file) {
+        this.file = file;
+        this.indexFile = file.resolveSibling(file.getFileName() + ".idx");
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    /** Number of complete records. */
+    public long count() throws IOException {
+        return Files.exists(indexFile) ? Files.size(indexFile) / 8 : 0;
+    }
+
+    public synchronized void append(List<Finding> findings) throws IOException {
+        if (findings.isEmpty()) return;
+        Path parent = file.getParent();
+        if (parent != null && !Files.exists(parent)) Files.createDirectories(parent);
+        if (!recovered) {
+            recover();
+            recovered = true;
+        }
+        try (FileChannel data = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileChannel index = FileChannel.open(indexFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            long pos = data.size();
+            long seq = index.size() / 8;
+            ByteArrayOutputStream buf = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(buf);
+            if (pos == 0) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                pos = HEADER_BYTES;
+            }
+            ByteBuffer offsets = ByteBuffer.allocate(8 * findings.size());
+            for (Finding f : findings) {
+                byte[] json = GSON.toJson(record(f, seq++)).getBytes(StandardCharsets.UTF_8);
+                if (json.length > MAX_RECORD_BYTES) json = GSON.toJson(truncated(f, seq - 1)).getBytes(StandardCharsets.UTF_8);
+                out.writeInt(json.length);
+                out.write(json);
+                offsets.putLong(pos);
+                pos += 4 + json.length;
+            }
+            write(data, data.size(), ByteBuffer.wrap(buf.toByteArray()));
+            data.force(false);
+            offsets.flip();
+            write(index, index.size(), offsets);
+            index.force(false);
+        }
+    }
+
+    /** Writes records from {@code since} on as JSON Lines; returns how many were written. */
+    public long exportJsonLines(Path out, long since) throws IOException {
+        try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(out))) {
+            return forEach(since, json -> {
+                os.write(json);
+                os.write('\n');
+            });
+        }
+    }
+
+    /** Writes records from {@code since} on as a SARIF 2.1.0 log with one result per finding. */
+    public long exportSarif(Path out, long since) throws IOException {
+        try (Writer w = Files.newBufferedWriter(out, StandardCharsets.UTF_8);
+             JsonWriter json = new JsonWriter(w)) {
+            json.setHtmlSafe(false);
+            json.beginObject();
+            json.name("$schema").value("https://json.schemastore.org/sarif-2.1.0.json");
+            json.name("version").value("2.1.0");
+            json.name("runs").beginArray().beginObject();
+            json.name("tool").beginObject().name("driver").beginObject();
+            json.name("name").value("AydaAydor");
+            json.name("rules").beginArray();
+            rule(json, RULE_IDOR, "PotentialIdor", "Potential IDOR: another user's ID returned a different, non-denied response");
+            rule(json, RULE_ACCESS, "BrokenAccessControl", "Replaying as another identity returned the original session's response");
+            json.endArray();
+            json.endObject().endObject();
+            json.name("results").beginArray();
+            long n = forEach(since, bytes -> result(json, JsonParser.parseString(new String(bytes, StandardCharsets.UTF_8)).getAsJsonObject()));
+            json.endArray();
+            json.endObject().endArray();
+            json.endObject();
+            return n;
+        }
+    }
+
+    private interface RecordSink {
+        void accept(byte[] json) throws IOException;
+    }
+
+    private long forEach(long since, RecordSink sink) throws IOException {
+        long count = count();
+        if (since < 0) since = 0;
+        if (since >= count || !Files.exists(file)) return 0;
+        long start;
+        try (FileChannel index = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            ByteBuffer b = ByteBuffer.allocate(8);
+            readFully(index, since * 8, b);
+            start = b.getLong(0);
+        }
+        long n = 0;
+        try (FileChannel data = FileChannel.open(file, StandardOpenOption.READ)) {
+            data.position(start);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(data)));
+            for (long i = since; i < count; i++) {
+                int len = in.readInt();
+                if (len < 0 || len > MAX_RECORD_BYTES) throw new IOException("Corrupt findings journal record " + i);
+                byte[] json = new byte[len];
+                in.readFully(json);
+                sink.accept(json);
+                n++;
+            }
+        }
+        return n;
+    }
+
+    // Drops a torn tail left by an interrupted append and rebuilds the index if it disagrees with the records
+    private void recover() throws IOException {
+        // Missing, empty, or torn before its header was complete: start over as an empty journal
+        if (!Files.exists(file) || Files.size(file) < HEADER_BYTES) {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(indexFile);
+            return;
+        }
+        try (FileChannel data = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+             FileChannel index = FileChannel.open(indexFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer head = ByteBuffer.allocate(HEADER_BYTES);
+            readFully(data, 0, head);
+            if (head.getInt(0) != MAGIC || head.getInt(4) != VERSION) throw new IOException("Unrecognised findings journal " + file);
+            long size = data.size();
+            long indexed = index.size() / 8;
+            if (index.size() % 8 == 0 && endOf(data, index, indexed) == size) return;
+            // Rescan the records, stopping at the first incomplete one
+            ByteArrayOutputStream offsets = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(offsets);
+            long pos = HEADER_BYTES;
+            ByteBuffer len = ByteBuffer.allocate(4);
+            while (pos + 4 <= size) {
+                len.clear();
+                readFully(data, pos, len);
+                int n = len.getInt(0);
+                if (n < 0 || n > MAX_RECORD_BYTES || pos + 4 + n > size) break;
+                out.writeLong(pos);
+                pos += 4 + n;
+            }
+            data.truncate(pos);
+            index.truncate(0);
+            write(index, 0, ByteBuffer.wrap(offsets.toByteArray()));
+            data.force(false);
+            index.force(false);
+        }
+    }
+
+    private static long endOf(FileChannel data, FileChannel index, long records) throws IOException {
+        if (records == 0) return HEADER_BYTES;
+        ByteBuffer b = ByteBuffer.allocate(8);
+        readFully(index, (records - 1) * 8, b);
+        long last = b.getLong(0);
+        if (last < HEADER_BYTES || last + 4 > data.size()) return -1;
+        ByteBuffer len = ByteBuffer.allocate(4);
+        readFully(data, last, len);
+        return last + 4 + len.getInt(0);
+    }
+
+    private static JsonObject record(Finding f, long seq) {
+        JsonObject o = new JsonObject();
+        o.addProperty("seq", seq);
+        o.addProperty("time", Instant.now().toString());
+        o.addProperty("name", f.name);
+        o.addProperty("url", f.url);
+        o.addProperty("method", f.baseRequest.method());
+        o.addProperty("group", f.group);
+        o.addProperty("location", f.location);
+        o.addProperty("baseId", f.baseId);
+        o.addProperty("testId", f.testId);
+        o.addProperty("dummy", f.dummy);
+        o.addProperty("reportKey", f.reportKey);
+        o.add("base", evidence(f.baseResponse));
+        o.add("test", evidence(f.testResponse));
+        o.addProperty("detail", f.detail);
+        if (f.diff != null) o.addProperty("diff", f.diff);
+        return o;
+    }
+
+    private static JsonObject truncated(Finding f, long seq) {
+        JsonObject o = record(f, seq);
+        o.remove("diff");
+        String detail = f.detail;
+        if (detail != null && detail.length() > 4096) o.addProperty("detail", detail.substring(0, 4096) + "...");
+        return o;
+    }
+
+    private static JsonObject evidence(ScanResponse r) {
+        JsonObject o = new JsonObject();
+        if (r == null) return o;
+        o.addProperty("status", r.statusCode());
+        int length = r.bodyLength();
+        o.addProperty("length", length);
+        try {
+            // In chunks, so a file-backed body is never read whole
+            BodyHash.Hasher h = new BodyHash.Hasher();
+            for (int from = 0; from < length; from += HASH_CHUNK) {
+                byte[] chunk = r.body(from, Math.min(length, from + HASH_CHUNK));
+                h.update(chunk, 0, chunk.length);
+            }
+            o.addProperty("hash", Long.toHexString(h.digest()));
+        } catch (Exception ignored) {}
+        return o;
+    }
+
+    private static void rule(JsonWriter json, String id, String name, String description) throws IOException {
+        json.beginObject();
+        json.name("id").value(id);
+        json.name("name").value(name);
+        json.name("shortDescription").beginObject().name("text").value(description).endObject();
+        json.name("defaultConfiguration").beginObject().name("level").value("error").endObject();
+        json.endObject();
+    }
+
+    private static void result(JsonWriter json, JsonObject r) throws IOException {
+        boolean identity = "identity".equals(string(r, "group"));
+        json.beginObject();
+        json.name("ruleId").value(identity ? RULE_ACCESS : RULE_IDOR);
+        json.name("ruleIndex").value(identity ? 1 : 0);
+        json.name("level").value("error");
+        json.name("message").beginObject().name("text").value(string(r, "detail")).endObject();
+        json.name("locations").beginArray().beginObject()
+            .name("physicalLocation").beginObject()
+            .name("artifactLocation").beginObject().name("uri").value(string(r, "url")).endObject()
+            .endObject()
+            .endObject().endArray();
+        String key = string(r, "reportKey");
+        if (key != null) {
+            json.name("partialFingerprints").beginObject()
+                .name("reportKey/v1").value(Long.toHexString(BodyHash.hash(key)))
+                .endObject();
+        }
+        json.name("properties").beginObject();
+        for (Map.Entry<String, JsonElement> e : r.entrySet()) {
+            if (e.getKey().equals("detail") || e.getKey().equals("url")) continue;
+            json.name(e.getKey());
+            GSON.toJson(e.getValue(), json);
+        }
+        json.endObject();
+        json.endObject();
+    }
+
+    private static String string(JsonObject o, String name) {
+        JsonElement e = o.get(name);
+        return e == null || e.isJsonNull() ? null : e.getAsString();
+    }
+
+    private static void write(FileChannel ch, long position, ByteBuffer b) throws IOException {
+        while (b.hasRemaining()) position += ch.write(b, position);
+    }
+
+    private static void readFully(FileChannel ch, long position, ByteBuffer b) throws IOException {
+        while (b.hasRemaining()) {
+            int n = ch.read(b, position);
+            if (n < 0) throw new EOFException();
+            position += n;
+        }
+    }
+}
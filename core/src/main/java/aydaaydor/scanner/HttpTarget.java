@@ -0,0 +1,40 @@
+package aydaaydor.scanner;
+
+import java.util.Objects;
+
+/** Where a request is sent: host, port and whether TLS is used. */
+public final class HttpTarget {
+    public final String host;
+    public final int port;
+    public final boolean secure;
+
+    public HttpTarget(String host, int port, boolean secure) {
+        this.host = host == null ? "" : host;
+        this.port = port;
+        this.secure = secure;
+    }
+
+    /** Absolute URL of {@code path} (origin-form, e.g. {@code /a?b=1}) on this target. */
+    public String url(String path) {
+        boolean defaultPort = port == (secure ? 443 : 80);
+        return (secure ? "https://" : "http://") + host + (defaultPort ? "" : ":" + port) + (path == null ? "" : path);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof HttpTarget)) return false;
+        HttpTarget t = (HttpTarget) o;
+        return port == t.port && secure == t.secure && host.equals(t.host);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(host, port, secure);
+    }
+
+    @Override
+    public String toString() {
+        return host + ':' + port + ':' + secure;
+    }
+}
@@ -0,0 +1,90 @@
+package aydaaydor.scanner;
+
+import aydaaydor.config.IdGroup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Cheap "could this request contain a configured ID" test over raw request bytes, used to skip most of a
+ * large history before candidate extraction. Each ID is compiled into the spellings the encoding chains can
+ * produce: plain, URL, unicode escapes and the base64/base64url characters that an ID determines at each of
+ * the three byte alignments (so IDs inside larger encoded blobs are caught too). Spellings outside that set,
+ * such as percent-encoded alphanumerics, are not; the live handler never uses this filter.
+ */
+final class IdPrefilter {
+    // Above this many needle bytes the DFA gets too large to be worth it; everything passes instead
+    private static final int MAX_NEEDLE_BYTES = 32 * 1024;
+    // Shorter base64 fragments would match almost anything
+    private static final int MIN_FRAGMENT = 3;
+
+    private final List<String> source; // "group\0id" per configured ID, for change detection
+    private final DeniedStringMatcher matcher; // null: no usable needles, pass everything
+
+    private IdPrefilter(List<String> source, DeniedStringMatcher matcher) {
+        this.source = source;
+        this.matcher = matcher;
+    }
+
+    static IdPrefilter compile(List<IdGroup> groups) {
+        List<String> src = sourceOf(groups);
+        Set<String> needles = new LinkedHashSet<>();
+        for (IdGroup g : groups) {
+            for (String id : g.ids) addSpellings(needles, id);
+        }
+        int total = 0;
+        for (String n : needles) total += n.length();
+        if (needles.isEmpty() || total > MAX_NEEDLE_BYTES) return new IdPrefilter(src, null);
+        return new IdPrefilter(src, DeniedStringMatcher.compile(new ArrayList<>(needles)));
+    }
+
+    boolean compiledFrom(List<IdGroup> groups) {
+        return source.equals(sourceOf(groups));
+    }
+
+    /** False only when no configured ID can occur in {@code raw}. */
+    boolean mayContainId(byte[] raw) {
+        return !source.isEmpty() && (matcher == null || matcher.containsAny(raw));
+    }
+
+    private static List<String> sourceOf(List<IdGroup> groups) {
+        List<String> out = new ArrayList<>();
+        for (IdGroup g : groups) {
+            for (String id : g.ids) out.add(g.name + '\0' + id);
+        }
+        return out;
+    }
+
+    private static void addSpellings(Set<String> out, String id) {
+        if (id == null || id.isEmpty()) return;
+        out.add(id);
+        out.add(EncodingChain.encUrl(id));
+        String uni = EncodingChain.encUnicode(id, null);
+        out.add(uni);
+        out.add(EncodingChain.encUrl(uni));
+        out.add(EncodingChain.encUnicode(id, "%u"));
+        byte[] b = id.getBytes(StandardCharsets.UTF_8);
+        for (int shift = 0; shift < 3; shift++) {
+            byte[] padded = new byte[shift + b.length];
+            System.arraycopy(b, 0, padded, shift, b.length);
+            String enc = Base64.getEncoder().withoutPadding().encodeToString(padded);
+            if (shift == 0) {
+                // The ID encoded on its own, trailing partial character included
+                out.add(enc);
+                out.add(enc.replace('+', '-').replace('/', '_'));
+            }
+            // Characters whose six bits all come from the ID
+            int from = (8 * shift + 5) / 6;
+            int to = Math.min(enc.length(), 8 * (shift + b.length) / 6);
+            if (to - from < MIN_FRAGMENT) continue;
+            String frag = enc.substring(from, to);
+            out.add(frag);
+            out.add(frag.replace('+', '-').replace('/', '_'));
+            out.add(EncodingChain.encUrl(frag));
+        }
+    }
+}
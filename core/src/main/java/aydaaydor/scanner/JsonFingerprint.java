@@ -0,0 +1,202 @@
+package aydaaydor.scanner;
+
+import com.google.gson.Strictness;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Streaming structural fingerprint of a JSON document.
+ *
+ * Each subtree is reduced to a 64-bit hash as it is read (Merkle-style), ignored keys are skipped on the fly
+ * and no tree is retained. Two documents get the same root hash when Gson would consider their pruned trees
+ * equal: object member order does not matter, array order does, numbers compare by value.
+ *
+ * Paths can also be skipped by hash ({@link #pathHash}, array indexes folded to {@code [*]}), which is how
+ * volatile fields learned per route are masked: the path hash is carried down the recursion, so a mask costs
+ * one binary search per object member.
+ */
+final class JsonFingerprint {
+    private static final long TAG_NULL = 0x6e756c6cL;
+    private static final long TAG_TRUE = 0x74727565L;
+    private static final long TAG_FALSE = 0x66616c73L;
+    private static final long TAG_STRING = 0x73747269L;
+    private static final long TAG_NUMBER = 0x6e756d62L;
+    private static final long TAG_ARRAY = 0x61727261L;
+    private static final long TAG_OBJECT = 0x6f626a65L;
+    static final long ROOT_PATH = 0x2450415448L;
+
+    private final Set<String> ignoredKeys; // case-sensitive
+    private final Map<String, Long> pathSink; // optional: JSON path -> subtree hash
+    private final long[] maskedPaths;          // optional: sorted path hashes to skip
+    private final Map<Long, long[]> leafSink;  // optional: scalar path hash -> {count, combined value hash}
+    private final boolean trackPaths;
+
+    private JsonFingerprint(Set<String> ignoredKeys, Map<String, Long> pathSink, long[] maskedPaths, Map<Long, long[]> leafSink) {
+        this.ignoredKeys = ignoredKeys;
+        this.pathSink = pathSink;
+        this.maskedPaths = maskedPaths != null && maskedPaths.length > 0 ? maskedPaths : null;
+        this.leafSink = leafSink;
+        this.trackPaths = this.maskedPaths != null || leafSink != null;
+    }
+
+    /**
+     * Root hash of the document. Throws if the input is not a single well-formed JSON value.
+     */
+    static long compute(Reader in, Set<String> ignoredKeys) throws IOException {
+        return compute(in, new JsonFingerprint(ignoredKeys, null, null, null));
+    }
+
+    /**
+     * Same as {@link #compute(Reader, Set)}, additionally recording the hash of every subtree by its
+     * path (e.g. {@code $.items[2].owner}) so callers can tell which part of two documents differs.
+     */
+    static long compute(Reader in, Set<String> ignoredKeys, Map<String, Long> pathSink) throws IOException {
+        return compute(in, new JsonFingerprint(ignoredKeys, pathSink, null, null));
+    }
+
+    /** Root hash with the paths in {@code maskedPaths} (sorted {@link #pathHash}es) skipped as well. */
+    static long compute(Reader in, Set<String> ignoredKeys, long[] maskedPaths) throws IOException {
+        return compute(in, new JsonFingerprint(ignoredKeys, null, maskedPaths, null));
+    }
+
+    /** Masked as {@link #compute(Reader, Set, long[])}, recording subtree hashes as {@link #compute(Reader, Set, Map)}. */
+    static long compute(Reader in, Set<String> ignoredKeys, long[] maskedPaths, Map<String, Long> pathSink) throws IOException {
+        return compute(in, new JsonFingerprint(ignoredKeys, pathSink, maskedPaths, null));
+    }
+
+    /**
+     * Every scalar of the document by path hash, as sorted {@code path, count, values} triples; values of one
+     * path under arrays are combined in order. Two responses to the same request are compared this way to
+     * learn which paths are volatile.
+     */
+    static long[] leaves(Reader in) throws IOException {
+        Map<Long, long[]> sink = new HashMap<>();
+        compute(in, new JsonFingerprint(null, null, null, sink));
+        Long[] paths = sink.keySet().toArray(new Long[0]);
+        Arrays.sort(paths);
+        long[] out = new long[paths.length * 3];
+        for (int i = 0; i < paths.length; i++) {
+            long[] e = sink.get(paths[i]);
+            out[3 * i] = paths[i];
+            out[3 * i + 1] = e[0];
+            out[3 * i + 2] = e[1];
+        }
+        return out;
+    }
+
+    /** Hash of {@code $.a[*].b} style paths: member names chained from {@link #ROOT_PATH}, array indexes ignored. */
+    static long pathHash(long parent, String member) {
+        return member == null ? mix(parent ^ TAG_ARRAY) : mix(parent * 31 + hashString(member));
+    }
+
+    private static long compute(Reader in, JsonFingerprint fp) throws IOException {
+        JsonReader reader = new JsonReader(in);
+        reader.setStrictness(Strictness.LENIENT); // same leniency as JsonParser.parseString
+        long h = fp.value(reader, "$", ROOT_PATH);
+        if (reader.peek() != JsonToken.END_DOCUMENT) {
+            throw new IOException("Did not consume the entire document");
+        }
+        return h;
+    }
+
+    private long value(JsonReader r, String path, long pathHash) throws IOException {
+        long h;
+        boolean scalar = true;
+        switch (r.peek()) {
+            case BEGIN_OBJECT: {
+                scalar = false;
+                r.beginObject();
+                long sum = 0;
+                int count = 0;
+                while (r.hasNext()) {
+                    String name = r.nextName();
+                    if (ignoredKeys != null && ignoredKeys.contains(name)) {
+                        r.skipValue();
+                        continue;
+                    }
+                    long childPath = trackPaths ? pathHash(pathHash, name) : 0L;
+                    if (maskedPaths != null && Arrays.binarySearch(maskedPaths, childPath) >= 0) {
+                        r.skipValue();
+                        continue;
+                    }
+                    long child = value(r, pathSink == null ? null : path + '.' + name, childPath);
+                    // Commutative combine: member order must not change the hash
+                    sum += mix(hashString(name) * 31 + child);
+                    count++;
+                }
+                r.endObject();
+                h = mix(TAG_OBJECT ^ sum ^ ((long) count << 32));
+                break;
+            }
+            case BEGIN_ARRAY: {
+                scalar = false;
+                r.beginArray();
+                long acc = TAG_ARRAY;
+                int i = 0;
+                long elementPath = trackPaths ? pathHash(pathHash, null) : 0L;
+                while (r.hasNext()) {
+                    long child = value(r, pathSink == null ? null : path + '[' + i + ']', elementPath);
+                    acc = mix(acc * 0x9E3779B97F4A7C15L + child);
+                    i++;
+                }
+                r.endArray();
+                h = mix(acc ^ i);
+                break;
+            }
+            case STRING:
+                h = mix(TAG_STRING ^ hashString(r.nextString()));
+                break;
+            case NUMBER: {
+                String raw = r.nextString();
+                long bits;
+                try {
+                    double d = Double.parseDouble(raw);
+                    if (d == 0.0d) d = 0.0d; // fold -0.0
+                    bits = Double.doubleToLongBits(d);
+                } catch (NumberFormatException e) {
+                    bits = hashString(raw);
+                }
+                h = mix(TAG_NUMBER ^ bits);
+                break;
+            }
+            case BOOLEAN:
+                h = mix(r.nextBoolean() ? TAG_TRUE : TAG_FALSE);
+                break;
+            case NULL:
+                r.nextNull();
+                h = mix(TAG_NULL);
+                break;
+            default:
+                throw new IOException("Unexpected token at " + r.getPath());
+        }
+        if (leafSink != null && scalar) {
+            long[] e = leafSink.computeIfAbsent(pathHash, k -> new long[2]);
+            e[0]++;
+            e[1] = mix(e[1] * 31 + h);
+        }
+        if (pathSink != null && path != null) pathSink.put(path, h);
+        return h;
+    }
+
+    private static long hashString(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h = (h ^ s.charAt(i)) * 0x100000001b3L;
+        }
+        return mix(h ^ s.length());
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -1,7 +1,6 @@
 package aydaaydor.scanner;
 
 import aydaaydor.config.IdGroup;
-import burp.api.montoya.http.message.params.HttpParameter;
 
 class Match {
     final IdGroup group;
@@ -29,8 +28,7 @@ class Match {
         String locationDescription() {
             switch (candidate.type) {
                 case PARAMETER:
-                    HttpParameter p = candidate.param;
-                    return "parameter '" + p.name() + "' (" + p.type() + ")";
+                    return "parameter '" + candidate.paramName + "' (" + candidate.paramType + ")";
                 case HEADER:
                     return "header '" + candidate.headerName + "'";
                 case PATH_SEGMENT:
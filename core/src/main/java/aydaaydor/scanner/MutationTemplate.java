@@ -0,0 +1,279 @@
+package aydaaydor.scanner;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A match compiled against the raw base request: the byte ranges ("slots") holding the ID and, if a slot sits
+ * in the body, the Content-Length value to rewrite. Producing a mutated request is a single splice of the new
+ * slot values into one exactly sized buffer; nothing is re-parsed per variant.
+ *
+ * Slot offsets come from the request bytes themselves and are verified against the candidate value when the
+ * template is compiled, so a template never writes into the wrong place. If verification fails, callers fall
+ * back to the request's structured edits ({@link ScanRequest#withParameter} and friends).
+ */
+final class MutationTemplate {
+    private final byte[] request;
+    private final int[] slotStart; // sorted, non-overlapping
+    private final int[] slotEnd;
+    private final int[] valueIndex; // sorted slot -> index of its value as passed to render()
+    private final int bodyOffset;
+    private final int clStart;     // Content-Length value range, -1 if absent or not needed
+    private final int clEnd;
+
+    private MutationTemplate(byte[] request, int[] slotStart, int[] slotEnd, int[] valueIndex, int bodyOffset, int clStart, int clEnd) {
+        this.request = request;
+        this.slotStart = slotStart;
+        this.slotEnd = slotEnd;
+        this.valueIndex = valueIndex;
+        this.bodyOffset = bodyOffset;
+        this.clStart = clStart;
+        this.clEnd = clEnd;
+    }
+
+    /**
+     * Compiles a single-slot template for {@code match}, or returns null if its location cannot be found
+     * (and verified) in the raw request.
+     */
+    static MutationTemplate compile(byte[] request, Match match) {
+        int[] slot = locate(request, match.candidate);
+        if (slot == null) return null;
+        return compile(request, new int[] { slot[0] }, new int[] { slot[1] });
+    }
+
+    /**
+     * Template with one slot per match, all replaced in the same render; values passed to {@link #render} follow
+     * the order of {@code matches}. Null if any location cannot be found (and verified) or two overlap.
+     */
+    static MutationTemplate compile(byte[] request, List<Match> matches) {
+        if (matches.size() == 1) return compile(request, matches.get(0));
+        int[] starts = new int[matches.size()];
+        int[] ends = new int[matches.size()];
+        for (int i = 0; i < starts.length; i++) {
+            int[] slot = locate(request, matches.get(i).candidate);
+            if (slot == null) return null;
+            starts[i] = slot[0];
+            ends[i] = slot[1];
+        }
+        return compile(request, starts, ends);
+    }
+
+    /** Multi-slot template; values passed to {@link #render} follow the order of {@code starts}. */
+    static MutationTemplate compile(byte[] request, int[] starts, int[] ends) {
+        int bodyOffset = bodyOffset(request);
+        if (bodyOffset < 0) return null;
+        Integer[] order = new Integer[starts.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Integer.compare(starts[a], starts[b]));
+        int[] s = new int[starts.length];
+        int[] e = new int[ends.length];
+        int[] v = new int[starts.length];
+        for (int i = 0; i < order.length; i++) {
+            s[i] = starts[order[i]];
+            e[i] = ends[order[i]];
+            v[i] = order[i];
+            if (s[i] < 0 || e[i] < s[i] || e[i] > request.length) return null;
+            if (i > 0 && s[i] < e[i - 1]) return null; // overlapping slots
+        }
+        int clStart = -1, clEnd = -1;
+        if (s.length > 0 && s[s.length - 1] >= bodyOffset) {
+            int[] cl = headerValue(request, bodyOffset, "Content-Length");
+            if (cl != null) { clStart = cl[0]; clEnd = cl[1]; }
+        }
+        return new MutationTemplate(request, s, e, v, bodyOffset, clStart, clEnd);
+    }
+
+    int slots() {
+        return slotStart.length;
+    }
+
+    /** Request bytes with each slot replaced by the corresponding value. */
+    byte[] render(String... values) {
+        int n = slotStart.length;
+        byte[][] enc = new byte[n][];
+        int size = request.length;
+        int bodyDelta = 0;
+        for (int i = 0; i < n; i++) {
+            enc[i] = bytes(values[valueIndex[i]]);
+            int delta = enc[i].length - (slotEnd[i] - slotStart[i]);
+            size += delta;
+            if (slotStart[i] >= bodyOffset) bodyDelta += delta;
+        }
+        byte[] cl = null;
+        if (clStart >= 0 && bodyDelta != 0) {
+            cl = Integer.toString(request.length - bodyOffset + bodyDelta).getBytes(StandardCharsets.US_ASCII);
+            size += cl.length - (clEnd - clStart);
+        }
+        byte[] out = new byte[size];
+        int src = 0, dst = 0;
+        boolean clPending = cl != null;
+        for (int i = 0; i <= n; i++) {
+            // The Content-Length value is one more splice, placed in offset order among the slots
+            if (clPending && (i == n || clStart < slotStart[i])) {
+                System.arraycopy(request, src, out, dst, clStart - src);
+                dst += clStart - src;
+                System.arraycopy(cl, 0, out, dst, cl.length);
+                dst += cl.length;
+                src = clEnd;
+                clPending = false;
+            }
+            if (i == n) break;
+            int gap = slotStart[i] - src;
+            System.arraycopy(request, src, out, dst, gap);
+            dst += gap;
+            System.arraycopy(enc[i], 0, out, dst, enc[i].length);
+            dst += enc[i].length;
+            src = slotEnd[i];
+        }
+        System.arraycopy(request, src, out, dst, request.length - src);
+        return out;
+    }
+
+    /** New value for the candidate slot when the matched ID is replaced by {@code newId}. */
+    static String slotValue(Match match, String newId) {
+        if (match.reencodeWhole) {
+            String mutated = replaceAt(match.decodedFull, match.decodedStart, match.matchedId.length(), newId);
+            return match.chain.encode(mutated, match.candidate.value);
+        }
+        String encoded = match.chain.encode(newId, match.candidate.value);
+        return replaceAt(match.candidate.value, match.startIndex, match.encodedFragment.length(), encoded);
+    }
+
+    static String replaceAt(String original, int start, int length, String replacement) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(original, 0, Math.max(0, start));
+        sb.append(replacement);
+        int end = Math.min(original.length(), start + Math.max(0, length));
+        if (end < original.length()) sb.append(original.substring(end));
+        return sb.toString();
+    }
+
+    // ---- locating slots in raw request bytes ----
+
+    /** [start, end) of the candidate's value in the request, verified against the candidate value; null if not found. */
+    static int[] locate(byte[] req, Candidate c) {
+        int[] slot;
+        switch (c.type) {
+            case PARAMETER:
+                slot = c.valueStart >= 0 ? new int[] { c.valueStart, c.valueEnd } : null;
+                break;
+            case HEADER: {
+                int body = bodyOffset(req);
+                slot = body < 0 ? null : headerValue(req, body, c.headerName);
+                break;
+            }
+            case PATH_SEGMENT:
+                slot = pathSegment(req, c.pathIndex);
+                break;
+            case RAW_QUERY:
+                slot = rawQuery(req);
+                break;
+            default:
+                slot = null;
+        }
+        if (slot == null || slot[0] < 0 || slot[1] > req.length || slot[1] < slot[0]) return null;
+        return regionEquals(req, slot[0], slot[1], c.value) ? slot : null;
+    }
+
+    static int bodyOffset(byte[] req) {
+        for (int i = 0; i + 3 < req.length; i++) {
+            if (req[i] == '\r' && req[i + 1] == '\n' && req[i + 2] == '\r' && req[i + 3] == '\n') return i + 4;
+        }
+        for (int i = 0; i + 1 < req.length; i++) {
+            if (req[i] == '\n' && req[i + 1] == '\n') return i + 2;
+        }
+        return -1;
+    }
+
+    /** Value range of the first header named {@code name} (case-insensitive), trimmed of surrounding spaces. */
+    static int[] headerValue(byte[] req, int bodyOffset, String name) {
+        byte[] n = name.getBytes(StandardCharsets.ISO_8859_1);
+        int line = lineEnd(req, 0, bodyOffset) + 1; // skip request line
+        while (line < bodyOffset) {
+            int end = lineEnd(req, line, bodyOffset);
+            if (end - line > n.length && req[line + n.length] == ':' && equalsIgnoreCase(req, line, n)) {
+                int vs = line + n.length + 1;
+                int ve = end > line && req[end - 1] == '\r' ? end - 1 : end;
+                while (vs < ve && (req[vs] == ' ' || req[vs] == '\t')) vs++;
+                while (ve > vs && (req[ve - 1] == ' ' || req[ve - 1] == '\t')) ve--;
+                return new int[] { vs, ve };
+            }
+            line = end + 1;
+        }
+        return null;
+    }
+
+    /** Range of path segment {@code index} (as produced by {@code path.split("/")}) in the request line. */
+    static int[] pathSegment(byte[] req, int index) {
+        int p = pathStart(req);
+        if (p < 0 || index < 0) return null;
+        int seg = 0;
+        int start = p;
+        for (int i = p; i < req.length; i++) {
+            byte b = req[i];
+            boolean stop = b == ' ' || b == '?' || b == '\r' || b == '\n';
+            if (b == '/' || stop) {
+                if (seg == index) return new int[] { start, i };
+                if (stop) return null;
+                seg++;
+                start = i + 1;
+            }
+        }
+        return null;
+    }
+
+    static int[] rawQuery(byte[] req) {
+        int p = pathStart(req);
+        if (p < 0) return null;
+        for (int i = p; i < req.length; i++) {
+            byte b = req[i];
+            if (b == ' ' || b == '\r' || b == '\n') return null;
+            if (b == '?') {
+                int j = i + 1;
+                while (j < req.length && req[j] != ' ' && req[j] != '\r' && req[j] != '\n') j++;
+                return new int[] { i + 1, j };
+            }
+        }
+        return null;
+    }
+
+    private static int pathStart(byte[] req) {
+        for (int i = 0; i < req.length; i++) {
+            if (req[i] == ' ') return i + 1 < req.length && req[i + 1] == '/' ? i + 1 : -1;
+            if (req[i] == '\r' || req[i] == '\n') return -1;
+        }
+        return -1;
+    }
+
+    private static int lineEnd(byte[] req, int from, int limit) {
+        for (int i = from; i < limit; i++) if (req[i] == '\n') return i;
+        return limit;
+    }
+
+    private static boolean equalsIgnoreCase(byte[] req, int at, byte[] name) {
+        for (int k = 0; k < name.length; k++) {
+            int a = req[at + k] & 0xff, b = name[k] & 0xff;
+            if (a >= 'A' && a <= 'Z') a += 32;
+            if (b >= 'A' && b <= 'Z') b += 32;
+            if (a != b) return false;
+        }
+        return true;
+    }
+
+    private static boolean regionEquals(byte[] req, int from, int to, String value) {
+        if (value == null) return false;
+        byte[] v = bytes(value);
+        if (v.length != to - from) return false;
+        for (int i = 0; i < v.length; i++) if (req[from + i] != v[i]) return false;
+        return true;
+    }
+
+    // Burp maps message bytes 1:1 to chars; anything wider is written as UTF-8
+    private static byte[] bytes(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > 0xFF) return s.getBytes(StandardCharsets.UTF_8);
+        }
+        return s.getBytes(StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,6 @@
+package aydaaydor.scanner;
+
+/** Request parameter locations; names match Burp's {@code HttpParameterType}. */
+public enum ParamType {
+    URL, BODY, COOKIE, XML, XML_ATTRIBUTE, MULTIPART_ATTRIBUTE, JSON
+}
@@ -0,0 +1,212 @@
+package aydaaydor.scanner;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link ScanRequest} parsed from raw HTTP/1.x bytes, for scanning outside Burp. Parameters are read from
+ * the query string, Cookie headers, URL-encoded form bodies and flat JSON members (string, number and boolean
+ * values), all with exact value offsets so matches in them can be spliced.
+ */
+public final class RawRequest implements ScanRequest {
+    private static final Pattern JSON_MEMBER =
+            Pattern.compile("\"([^\"\\\\]+)\"\\s*:\\s*(?:\"([^\"\\\\]*)\"|(-?\\d+(?:\\.\\d+)?|true|false))");
+
+    private final HttpTarget target;
+    private final byte[] raw;
+    private final String method;
+    private final int targetStart;
+    private final int targetEnd;
+    private final int bodyOffset;
+    private List<Map.Entry<String, String>> headers;
+    private List<Param> parameters;
+
+    private RawRequest(HttpTarget target, byte[] raw) {
+        this.target = target;
+        this.raw = raw;
+        int lineEnd = 0;
+        while (lineEnd < raw.length && raw[lineEnd] != '\r' && raw[lineEnd] != '\n') lineEnd++;
+        int sp1 = 0;
+        while (sp1 < lineEnd && raw[sp1] != ' ') sp1++;
+        int sp2 = sp1 + 1;
+        while (sp2 < lineEnd && raw[sp2] != ' ') sp2++;
+        this.method = str(0, sp1);
+        this.targetStart = Math.min(lineEnd, sp1 + 1);
+        this.targetEnd = Math.min(lineEnd, Math.max(targetStart, sp2));
+        int body = MutationTemplate.bodyOffset(raw);
+        this.bodyOffset = body < 0 ? raw.length : body;
+    }
+
+    public static RawRequest parse(HttpTarget target, byte[] raw) {
+        return new RawRequest(target, raw);
+    }
+
+    @Override
+    public HttpTarget target() {
+        return target;
+    }
+
+    @Override
+    public byte[] bytes() {
+        return raw;
+    }
+
+    @Override
+    public String method() {
+        return method;
+    }
+
+    @Override
+    public String path() {
+        return str(targetStart, targetEnd);
+    }
+
+    @Override
+    public String pathWithoutQuery() {
+        String p = path();
+        int q = p.indexOf('?');
+        return q >= 0 ? p.substring(0, q) : p;
+    }
+
+    @Override
+    public String url() {
+        return target.url(path());
+    }
+
+    /** Body bytes after the header block. */
+    public byte[] body() {
+        byte[] b = new byte[raw.length - bodyOffset];
+        System.arraycopy(raw, bodyOffset, b, 0, b.length);
+        return b;
+    }
+
+    @Override
+    public synchronized List<Map.Entry<String, String>> headers() {
+        if (headers == null) {
+            List<Map.Entry<String, String>> out = new ArrayList<>();
+            for (int[] h : headerRanges()) {
+                out.add(new AbstractMap.SimpleImmutableEntry<>(str(h[0], h[1]), str(h[2], h[3])));
+            }
+            headers = Collections.unmodifiableList(out);
+        }
+        return headers;
+    }
+
+    /** Value of the first header named {@code name} (case-insensitive), or null. */
+    public String header(String name) {
+        for (Map.Entry<String, String> h : headers()) {
+            if (h.getKey().equalsIgnoreCase(name)) return h.getValue();
+        }
+        return null;
+    }
+
+    @Override
+    public synchronized List<Param> parameters() {
+        if (parameters == null) {
+            List<Param> out = new ArrayList<>();
+            for (int i = targetStart; i < targetEnd; i++) {
+                if (raw[i] == '?') {
+                    pairs(out, i + 1, targetEnd, (byte) '&', ParamType.URL);
+                    break;
+                }
+            }
+            for (int[] h : headerRanges()) {
+                if (str(h[0], h[1]).equalsIgnoreCase("Cookie")) pairs(out, h[2], h[3], (byte) ';', ParamType.COOKIE);
+            }
+            String ct = header("Content-Type");
+            String lower = ct == null ? "" : ct.toLowerCase(Locale.ROOT);
+            if (lower.contains("x-www-form-urlencoded")) {
+                pairs(out, bodyOffset, raw.length, (byte) '&', ParamType.BODY);
+            } else if (lower.contains("json")) {
+                Matcher m = JSON_MEMBER.matcher(str(bodyOffset, raw.length));
+                while (m.find()) {
+                    int g = m.group(2) != null ? 2 : 3;
+                    out.add(new Param(m.group(1), m.group(g), ParamType.JSON, bodyOffset + m.start(g), bodyOffset + m.end(g)));
+                }
+            }
+            parameters = Collections.unmodifiableList(out);
+        }
+        return parameters;
+    }
+
+    @Override
+    public ScanRequest withPath(String path) {
+        return splice(targetStart, targetEnd, path);
+    }
+
+    @Override
+    public ScanRequest withHeader(String name, String value) {
+        int[] v = MutationTemplate.headerValue(raw, bodyOffset, name);
+        return v == null ? this : splice(v[0], v[1], value);
+    }
+
+    @Override
+    public ScanRequest withParameter(String name, ParamType type, String value) {
+        for (Param p : parameters()) {
+            if (p.type == type && p.name.equals(name) && p.valueStart >= 0) return splice(p.valueStart, p.valueEnd, value);
+        }
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return method + ' ' + url();
+    }
+
+    // Content-Length is kept in step by the template when the splice is in the body
+    private ScanRequest splice(int start, int end, String value) {
+        MutationTemplate t = MutationTemplate.compile(raw, new int[] { start }, new int[] { end });
+        return t == null ? this : new RawRequest(target, t.render(value));
+    }
+
+    private List<int[]> headerRanges() {
+        List<int[]> out = new ArrayList<>();
+        int line = 0;
+        while (line < bodyOffset && raw[line] != '\n') line++;
+        line++;
+        while (line < bodyOffset) {
+            int end = line;
+            while (end < bodyOffset && raw[end] != '\n') end++;
+            int ve = end > line && raw[end - 1] == '\r' ? end - 1 : end;
+            int colon = line;
+            while (colon < ve && raw[colon] != ':') colon++;
+            if (colon < ve) {
+                int vs = colon + 1;
+                while (vs < ve && (raw[vs] == ' ' || raw[vs] == '\t')) vs++;
+                int te = ve;
+                while (te > vs && (raw[te - 1] == ' ' || raw[te - 1] == '\t')) te--;
+                out.add(new int[] { line, colon, vs, te });
+            }
+            line = end + 1;
+        }
+        return out;
+    }
+
+    private void pairs(List<Param> out, int from, int to, byte sep, ParamType type) {
+        int i = from;
+        while (i < to) {
+            int end = i;
+            while (end < to && raw[end] != sep) end++;
+            int ns = i;
+            while (ns < end && raw[ns] == ' ') ns++;
+            int eq = ns;
+            while (eq < end && raw[eq] != '=') eq++;
+            if (eq > ns) {
+                int vs = Math.min(end, eq + 1);
+                out.add(new Param(str(ns, eq), str(vs, end), type, vs, end));
+            }
+            i = end + 1;
+        }
+    }
+
+    private String str(int from, int to) {
+        return new String(raw, from, Math.max(0, to - from), StandardCharsets.ISO_8859_1);
+    }
+}
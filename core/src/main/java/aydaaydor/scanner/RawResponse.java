@@ -0,0 +1,87 @@
+package aydaaydor.scanner;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+/** A {@link ScanResponse} over raw HTTP/1.x response bytes held in memory. */
+public final class RawResponse implements ScanResponse {
+    private final byte[] raw;
+    private final int status;
+    private final int bodyOffset;
+    private final boolean binary;
+
+    private RawResponse(byte[] raw) {
+        this.raw = raw;
+        int body = MutationTemplate.bodyOffset(raw);
+        this.bodyOffset = body < 0 ? raw.length : body;
+        String head = new String(raw, 0, bodyOffset, StandardCharsets.ISO_8859_1);
+        int sp = head.indexOf(' ');
+        int code = 0;
+        if (sp >= 0 && sp + 4 <= head.length()) {
+            try { code = Integer.parseInt(head.substring(sp + 1, sp + 4)); } catch (NumberFormatException ignored) {}
+        }
+        this.status = code;
+        String contentType = null;
+        for (String line : head.split("\r?\n")) {
+            int c = line.indexOf(':');
+            if (c > 0 && line.substring(0, c).trim().equalsIgnoreCase("Content-Type")) {
+                contentType = line.substring(c + 1).trim();
+                break;
+            }
+        }
+        this.binary = isBinaryType(contentType);
+    }
+
+    public static RawResponse parse(byte[] raw) {
+        return new RawResponse(raw);
+    }
+
+    /** Builds an HTTP/1.1 response with a Content-Length header. */
+    public static RawResponse of(int status, String contentType, byte[] body) {
+        StringBuilder head = new StringBuilder("HTTP/1.1 ").append(status).append(" \r\n");
+        if (contentType != null) head.append("Content-Type: ").append(contentType).append("\r\n");
+        head.append("Content-Length: ").append(body.length).append("\r\n\r\n");
+        byte[] h = head.toString().getBytes(StandardCharsets.ISO_8859_1);
+        byte[] raw = Arrays.copyOf(h, h.length + body.length);
+        System.arraycopy(body, 0, raw, h.length, body.length);
+        return new RawResponse(raw);
+    }
+
+    public byte[] bytes() {
+        return raw;
+    }
+
+    @Override
+    public int statusCode() {
+        return status;
+    }
+
+    @Override
+    public int bodyLength() {
+        return raw.length - bodyOffset;
+    }
+
+    @Override
+    public byte[] body() {
+        return Arrays.copyOfRange(raw, bodyOffset, raw.length);
+    }
+
+    @Override
+    public byte[] body(int from, int to) {
+        return Arrays.copyOfRange(raw, bodyOffset + from, bodyOffset + to);
+    }
+
+    @Override
+    public boolean binary() {
+        return binary;
+    }
+
+    static boolean isBinaryType(String contentType) {
+        if (contentType == null) return false;
+        String ct = contentType.toLowerCase(Locale.ROOT);
+        return ct.startsWith("image/") || ct.startsWith("audio/") || ct.startsWith("video/") || ct.startsWith("font/")
+                || ct.startsWith("application/octet-stream") || ct.startsWith("application/x-shockwave-flash")
+                || ct.startsWith("application/x-amf") || ct.startsWith("application/font-woff");
+    }
+}
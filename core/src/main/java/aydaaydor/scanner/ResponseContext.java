@@ -0,0 +1,340 @@
+package aydaaydor.scanner;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Per-response analysis state. The body length, hash and JSON/SimHash fingerprints are computed
+ * on first use and then shared by every match and comparison made against the same response. A non-JSON body
+ * is compared with the IDs its request carried removed, so a page that only echoes the ID back matches the
+ * dummy's, while any other difference (someone else's name, email, order) still counts.
+ *
+ * Bodies above the configured threshold, or with a binary content type, are never copied or decoded as a
+ * whole: they are hashed in fixed-size chunks, and a large JSON body is fingerprinted by streaming it through
+ * the same JSON parser (ignored keys and volatile paths included), so heap use per response stays capped
+ * regardless of body size.
+ */
+class ResponseContext {
+    static final int CHUNK = 64 * 1024;
+    static final int TRIM_BLOCK_SIZE = 512;
+    // Documents with more scalars than this are not used to learn volatile paths
+    static final int MAX_LEAVES = 2048;
+    private static final byte[][] NO_VALUES = new byte[0][];
+
+    private final ScanResponse response;
+    private final Set<String> ignoredJsonKeys; // case-sensitive
+    private final int largeBodyThreshold;
+    private long[] maskedJsonPaths; // learned volatile paths, sorted path hashes; null for none
+    private byte[][] reflected = NO_VALUES; // IDs the request carried, removed before a non-JSON body is compared
+
+    private int length = -1;
+    private Boolean bounded;
+    private boolean binary;
+    private byte[] bodyBytes; // only materialised for bodies under the threshold
+    private long hash;
+    private boolean hashed;
+    private Boolean looksLikeJson;
+    private Long jsonHash; // null if parsing failed
+    private boolean jsonParsed;
+    private ResponseFingerprint fingerprint;
+
+    ResponseContext(ScanResponse response, Set<String> ignoredJsonKeys, int largeBodyThreshold) {
+        this.response = response;
+        this.ignoredJsonKeys = ignoredJsonKeys;
+        this.largeBodyThreshold = largeBodyThreshold;
+    }
+
+    ScanResponse response() { return response; }
+
+    int statusCode() {
+        try { return response.statusCode(); } catch (Exception e) { return 0; }
+    }
+
+    synchronized int length() {
+        // Prefer actual body length; header Content-Length may be absent or compressed
+        if (length < 0) {
+            try { length = response.bodyLength(); } catch (Exception e) { length = 0; }
+        }
+        return length;
+    }
+
+    /** True if this body is analysed in bounded-memory mode (large or binary). */
+    synchronized boolean bounded() {
+        if (bounded == null) {
+            try { binary = response.binary(); } catch (Exception ignored) {}
+            bounded = binary || (largeBodyThreshold > 0 && length() > largeBodyThreshold);
+        }
+        return bounded;
+    }
+
+    /** Raw body bytes, copied out of the message once. Only valid when not {@link #bounded()}. */
+    private synchronized byte[] bodyBytes() {
+        if (bodyBytes == null) {
+            byte[] b = null;
+            try { b = response.body(); } catch (Exception ignored) {}
+            bodyBytes = b == null ? new byte[0] : b;
+        }
+        return bodyBytes;
+    }
+
+    synchronized long hash() {
+        if (!hashed) {
+            if (bounded()) streamFingerprint();
+            else hash = BodyHash.trimmed(bodyBytes());
+            hashed = true;
+        }
+        return hash;
+    }
+
+    synchronized boolean looksLikeJson() {
+        if (looksLikeJson == null) {
+            if (bounded()) {
+                looksLikeJson = !binary && streamedLooksLikeJson();
+            } else {
+                looksLikeJson = looksLikeJson(bodyBytes());
+            }
+        }
+        return looksLikeJson;
+    }
+
+    static boolean looksLikeJson(byte[] b) {
+        int from = BodyHash.trimStart(b, 0, b.length);
+        int to = BodyHash.trimEnd(b, from, b.length);
+        if (from >= to) return false;
+        byte c = b[from];
+        byte e = b[to - 1];
+        return (c == '{' && e == '}') || (c == '[' && e == ']');
+    }
+
+    /**
+     * Structural hash of the JSON body with ignored keys skipped, or null if the body does not parse.
+     */
+    synchronized Long jsonHash() {
+        if (!jsonParsed) {
+            jsonHash = bounded() ? streamedJsonHash() : jsonHash(bodyBytes(), ignoredJsonKeys, maskedJsonPaths);
+            jsonParsed = true;
+        }
+        return jsonHash;
+    }
+
+    static Long jsonHash(byte[] b, Set<String> ignoredJsonKeys) {
+        return jsonHash(b, ignoredJsonKeys, null);
+    }
+
+    static Long jsonHash(byte[] b, Set<String> ignoredJsonKeys, long[] maskedPaths) {
+        try {
+            return JsonFingerprint.compute(new InputStreamReader(new ByteArrayInputStream(b), StandardCharsets.UTF_8), ignoredJsonKeys, maskedPaths);
+        } catch (Throwable parseEx) {
+            return null;
+        }
+    }
+
+    /** Skips these path hashes in the JSON hash as well; only effective before the fingerprint is computed. */
+    synchronized void maskJsonPaths(long[] paths) {
+        this.maskedJsonPaths = paths;
+    }
+
+    /**
+     * Removes these values, where they stand as whole tokens, from a non-JSON body before it is hashed for
+     * comparison; only effective before the fingerprint is computed.
+     */
+    synchronized void maskReflected(Collection<String> values) {
+        this.reflected = valueBytes(values);
+    }
+
+    private static byte[][] valueBytes(Collection<String> values) {
+        List<byte[]> out = new ArrayList<>(values.size());
+        for (String v : values) {
+            if (v != null && !v.isEmpty()) out.add(v.getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toArray(NO_VALUES);
+    }
+
+    /** Scalars of the JSON body by path ({@link JsonFingerprint#leaves}), or null if not a small enough JSON body. */
+    synchronized long[] jsonLeaves() {
+        if (bounded() || !looksLikeJson()) return null;
+        try {
+            long[] leaves = JsonFingerprint.leaves(new InputStreamReader(new ByteArrayInputStream(bodyBytes()), StandardCharsets.UTF_8));
+            return leaves.length > 3 * MAX_LEAVES ? null : leaves;
+        } catch (Throwable parseEx) {
+            return null;
+        }
+    }
+
+    /** True if any denied string occurs in the body; large bodies are scanned chunk by chunk. */
+    boolean containsAny(DeniedStringMatcher denied) {
+        if (denied == null || denied.isEmpty()) return false;
+        if (!bounded()) return denied.containsAny(bodyBytes());
+        int len = length();
+        int state = 0;
+        for (int off = 0; off < len; off += CHUNK) {
+            byte[] chunk = response.body(off, Math.min(len, off + CHUNK));
+            state = denied.advance(state, chunk, 0, chunk.length);
+            if (state == DeniedStringMatcher.MATCHED) return true;
+        }
+        return false;
+    }
+
+    synchronized ResponseFingerprint fingerprint() {
+        if (fingerprint == null) {
+            if (bounded()) {
+                boolean json = looksLikeJson();
+                fingerprint = new ResponseFingerprint(statusCode(), length(), hash(), json, json ? jsonHash() : null, 0L, true);
+            } else {
+                boolean json = looksLikeJson();
+                fingerprint = json ? new ResponseFingerprint(statusCode(), length(), hash(), true, jsonHash(), 0L, false)
+                        : textFingerprint(statusCode(), bodyBytes(), hash(), reflected);
+            }
+        }
+        return fingerprint;
+    }
+
+    /** Fingerprint of an in-memory body, as {@link #fingerprint()} computes it for a response below the threshold. */
+    static ResponseFingerprint fingerprintOf(int statusCode, byte[] b, Set<String> ignoredJsonKeys, String... reflected) {
+        if (looksLikeJson(b)) return new ResponseFingerprint(statusCode, b.length, BodyHash.trimmed(b), true, jsonHash(b, ignoredJsonKeys), 0L, false);
+        return textFingerprint(statusCode, b, BodyHash.trimmed(b), valueBytes(Arrays.asList(reflected)));
+    }
+
+    private static ResponseFingerprint textFingerprint(int statusCode, byte[] b, long hash, byte[][] reflected) {
+        byte[] m = withoutValues(b, reflected);
+        return new ResponseFingerprint(statusCode, b.length, hash, false, null, m.length, BodyHash.trimmed(m),
+                SimHash.compute(m, 0, m.length), false);
+    }
+
+    /** The body without any whole-token occurrence of the values; the body itself when there is none. */
+    static byte[] withoutValues(byte[] b, byte[][] values) {
+        if (values.length == 0) return b;
+        ByteArrayOutputStream out = null;
+        int copied = 0;
+        for (int i = 0; i < b.length; i++) {
+            if (i > 0 && isWordByte(b[i - 1])) continue;
+            for (byte[] v : values) {
+                int end = i + v.length;
+                if (end > b.length || (end < b.length && isWordByte(b[end])) || !regionEquals(b, i, v)) continue;
+                if (out == null) out = new ByteArrayOutputStream(b.length);
+                out.write(b, copied, i - copied);
+                copied = end;
+                i = end - 1;
+                break;
+            }
+        }
+        if (out == null) return b;
+        out.write(b, copied, b.length - copied);
+        return out.toByteArray();
+    }
+
+    private static boolean isWordByte(byte c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+
+    private static boolean regionEquals(byte[] b, int at, byte[] v) {
+        for (int k = 0; k < v.length; k++) if (b[at + k] != v[k]) return false;
+        return true;
+    }
+
+    // Single streaming pass over the trimmed body
+    private void streamFingerprint() {
+        try {
+            int len = length();
+            int from = trimmedStart(len);
+            int to = trimmedEnd(from, len);
+            BodyHash.Hasher hasher = new BodyHash.Hasher();
+            for (int off = from; off < to; off += CHUNK) {
+                byte[] chunk = response.body(off, Math.min(to, off + CHUNK));
+                hasher.update(chunk, 0, chunk.length);
+            }
+            hash = hasher.digest();
+        } catch (Exception e) {
+            hash = 0L;
+        }
+    }
+
+    private boolean streamedLooksLikeJson() {
+        try {
+            int len = length();
+            int from = trimmedStart(len);
+            int to = trimmedEnd(from, len);
+            if (from >= to) return false;
+            byte c = response.body(from, from + 1)[0];
+            byte e = response.body(to - 1, to)[0];
+            return (c == '{' && e == '}') || (c == '[' && e == ']');
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private Long streamedJsonHash() {
+        try {
+            InputStream in = new ChunkedBody(response, length());
+            return JsonFingerprint.compute(new InputStreamReader(in, StandardCharsets.UTF_8), ignoredJsonKeys, maskedJsonPaths);
+        } catch (Throwable parseEx) {
+            return null;
+        }
+    }
+
+    // The body read by range, one chunk in memory at a time
+    private static final class ChunkedBody extends InputStream {
+        private final ScanResponse response;
+        private final int length;
+        private byte[] chunk = new byte[0];
+        private int chunkStart;
+        private int pos;
+
+        ChunkedBody(ScanResponse response, int length) {
+            this.response = response;
+            this.length = length;
+        }
+
+        private boolean fill() {
+            if (pos < chunkStart + chunk.length) return true;
+            if (pos >= length) return false;
+            chunkStart = pos;
+            chunk = response.body(pos, Math.min(length, pos + CHUNK));
+            return chunk.length > 0;
+        }
+
+        @Override
+        public int read() {
+            if (!fill()) return -1;
+            return chunk[pos++ - chunkStart] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) return 0;
+            if (!fill()) return -1;
+            int n = Math.min(len, chunkStart + chunk.length - pos);
+            System.arraycopy(chunk, pos - chunkStart, b, off, n);
+            pos += n;
+            return n;
+        }
+    }
+
+    // Whitespace trimming for the streamed hash, reading a block at a time from either end
+    private int trimmedStart(int len) {
+        for (int off = 0; off < len; off += TRIM_BLOCK_SIZE) {
+            byte[] b = response.body(off, Math.min(len, off + TRIM_BLOCK_SIZE));
+            int i = BodyHash.trimStart(b, 0, b.length);
+            if (i < b.length) return off + i;
+        }
+        return len;
+    }
+
+    private int trimmedEnd(int from, int len) {
+        for (int end = len; end > from; end -= TRIM_BLOCK_SIZE) {
+            int start = Math.max(from, end - TRIM_BLOCK_SIZE);
+            byte[] b = response.body(start, end);
+            int i = BodyHash.trimEnd(b, 0, b.length);
+            if (i > 0) return start + i;
+        }
+        return from;
+    }
+}
@@ -0,0 +1,149 @@
+package aydaaydor.scanner;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * How a test response differs from the base, as plain-text issue evidence. Only computed when a finding is
+ * reported, from the retained bodies: the deepest changed JSON paths (with the same ignored keys and volatile
+ * paths as the comparison), else the changed line range of a text body, else just the lengths of large or
+ * binary bodies. Output is capped at {@link #MAX_CHARS}.
+ */
+final class ResponseDiff {
+    static final int MAX_CHARS = 4000;
+    private static final int MAX_PATHS = 40;
+    private static final int MAX_SNIPPET_LINES = 6;
+    private static final int MAX_LINE_CHARS = 160;
+
+    private ResponseDiff() {}
+
+    static String describe(ScanResponse base, ScanResponse test, Set<String> ignoredJsonKeys, long[] jsonMask,
+                           int largeBodyThreshold) {
+        StringBuilder sb = new StringBuilder();
+        int baseLen = base.bodyLength();
+        int testLen = test.bodyLength();
+        sb.append("Status ").append(base.statusCode()).append(" -> ").append(test.statusCode())
+          .append(", body ").append(baseLen).append(" -> ").append(testLen).append(" bytes\n");
+        if (bounded(base, baseLen, largeBodyThreshold) || bounded(test, testLen, largeBodyThreshold)) {
+            sb.append("Large or binary body: compared by length and sampled blocks only\n");
+            return cap(sb);
+        }
+        byte[] a = base.body();
+        byte[] b = test.body();
+        if (ResponseContext.looksLikeJson(a) && ResponseContext.looksLikeJson(b)) {
+            Map<String, Long> pa = jsonPaths(a, ignoredJsonKeys, jsonMask);
+            Map<String, Long> pb = jsonPaths(b, ignoredJsonKeys, jsonMask);
+            if (pa != null && pb != null) {
+                appendJsonDiff(sb, pa, pb);
+                return cap(sb);
+            }
+        }
+        appendTextDiff(sb, new String(a, StandardCharsets.UTF_8), new String(b, StandardCharsets.UTF_8));
+        return cap(sb);
+    }
+
+    private static boolean bounded(ScanResponse r, int length, int threshold) {
+        boolean binary = false;
+        try { binary = r.binary(); } catch (Exception ignored) {}
+        return binary || (threshold > 0 && length > threshold);
+    }
+
+    private static Map<String, Long> jsonPaths(byte[] body, Set<String> ignoredJsonKeys, long[] jsonMask) {
+        Map<String, Long> paths = new HashMap<>();
+        try {
+            JsonFingerprint.compute(new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8),
+                    ignoredJsonKeys, jsonMask, paths);
+            return paths;
+        } catch (Throwable parseEx) {
+            return null;
+        }
+    }
+
+    private static void appendJsonDiff(StringBuilder sb, Map<String, Long> base, Map<String, Long> test) {
+        List<String> changed = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        List<String> added = new ArrayList<>();
+        for (Map.Entry<String, Long> e : base.entrySet()) {
+            Long h = test.get(e.getKey());
+            if (h == null) removed.add(e.getKey());
+            else if (!h.equals(e.getValue())) changed.add(e.getKey());
+        }
+        for (String p : test.keySet()) if (!base.containsKey(p)) added.add(p);
+        // A container changed because something below it did; keep the deepest paths
+        Set<String> parents = new HashSet<>();
+        for (List<String> l : List.of(changed, removed, added)) for (String p : l) parents.add(parentOf(p));
+        changed.removeIf(parents::contains);
+        // Of a removed or added subtree, keep its root
+        Set<String> removedSet = new HashSet<>(removed);
+        Set<String> addedSet = new HashSet<>(added);
+        removed.removeIf(p -> removedSet.contains(parentOf(p)));
+        added.removeIf(p -> addedSet.contains(parentOf(p)));
+        if (changed.isEmpty() && removed.isEmpty() && added.isEmpty()) {
+            sb.append("JSON structure identical after ignored keys and volatile fields\n");
+            return;
+        }
+        appendPaths(sb, "Changed JSON paths", changed);
+        appendPaths(sb, "Only in base", removed);
+        appendPaths(sb, "Only in test", added);
+    }
+
+    private static void appendPaths(StringBuilder sb, String label, List<String> paths) {
+        if (paths.isEmpty()) return;
+        Collections.sort(paths);
+        sb.append(label).append(" (").append(paths.size()).append("): ");
+        sb.append(String.join(", ", paths.subList(0, Math.min(MAX_PATHS, paths.size()))));
+        if (paths.size() > MAX_PATHS) sb.append(", ...");
+        sb.append('\n');
+    }
+
+    private static String parentOf(String path) {
+        int i = Math.max(path.lastIndexOf('.'), path.lastIndexOf('['));
+        return i <= 0 ? null : path.substring(0, i);
+    }
+
+    // One hunk: everything between the common leading and trailing lines
+    private static void appendTextDiff(StringBuilder sb, String a, String b) {
+        String[] la = a.split("\n", -1);
+        String[] lb = b.split("\n", -1);
+        int prefix = 0;
+        while (prefix < la.length && prefix < lb.length && la[prefix].equals(lb[prefix])) prefix++;
+        int suffix = 0;
+        while (suffix < la.length - prefix && suffix < lb.length - prefix
+                && la[la.length - 1 - suffix].equals(lb[lb.length - 1 - suffix])) suffix++;
+        int baseEnd = la.length - suffix;
+        int testEnd = lb.length - suffix;
+        if (prefix == baseEnd && prefix == testEnd) {
+            sb.append("No line-level difference\n");
+            return;
+        }
+        sb.append("Changed lines: base ").append(range(prefix, baseEnd)).append(", test ").append(range(prefix, testEnd)).append('\n');
+        appendLines(sb, "- ", la, prefix, baseEnd);
+        appendLines(sb, "+ ", lb, prefix, testEnd);
+    }
+
+    private static String range(int from, int to) {
+        if (from >= to) return "none";
+        return to - from == 1 ? Integer.toString(from + 1) : (from + 1) + "-" + to;
+    }
+
+    private static void appendLines(StringBuilder sb, String marker, String[] lines, int from, int to) {
+        for (int i = from; i < to && i < from + MAX_SNIPPET_LINES; i++) {
+            String line = lines[i].strip();
+            sb.append(marker).append(line.length() > MAX_LINE_CHARS ? line.substring(0, MAX_LINE_CHARS) + "..." : line).append('\n');
+        }
+        if (to - from > MAX_SNIPPET_LINES) sb.append(marker).append("... ").append(to - from - MAX_SNIPPET_LINES).append(" more line(s)\n");
+    }
+
+    private static String cap(StringBuilder sb) {
+        String s = sb.toString().trim();
+        return s.length() > MAX_CHARS ? s.substring(0, MAX_CHARS) + "\n[truncated]" : s;
+    }
+}
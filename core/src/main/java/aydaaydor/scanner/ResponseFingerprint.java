@@ -0,0 +1,38 @@
+package aydaaydor.scanner;
+
+/**
+ * Compact, immutable summary of a response used for comparisons. Holds no reference to the message itself,
+ * so it can be cached and shared long after the response was received.
+ */
+final class ResponseFingerprint {
+    final int statusCode;
+    final int length;
+    final long hash;
+    final boolean looksLikeJson;
+    final Long jsonHash; // null if not JSON or parsing failed
+    final int maskedLength; // non-JSON body with the reflected IDs removed; length/hash for everything else
+    final long maskedHash;
+    final long simHash;  // near-duplicate fingerprint of the masked non-JSON body (0 for JSON)
+    final boolean bounded; // large or binary body, hashed in chunks without SimHash
+
+    ResponseFingerprint(int statusCode, int length, long hash, boolean looksLikeJson, Long jsonHash, long simHash, boolean bounded) {
+        this(statusCode, length, hash, looksLikeJson, jsonHash, length, hash, simHash, bounded);
+    }
+
+    ResponseFingerprint(int statusCode, int length, long hash, boolean looksLikeJson, Long jsonHash,
+                        int maskedLength, long maskedHash, long simHash, boolean bounded) {
+        this.statusCode = statusCode;
+        this.length = length;
+        this.hash = hash;
+        this.looksLikeJson = looksLikeJson;
+        this.jsonHash = jsonHash;
+        this.maskedLength = maskedLength;
+        this.maskedHash = maskedHash;
+        this.simHash = simHash;
+        this.bounded = bounded;
+    }
+
+    boolean bounded() {
+        return bounded;
+    }
+}
@@ -0,0 +1,70 @@
+package aydaaydor.scanner;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-route mutation outcomes, used to size each route's mutation budget (adaptive budget). A route is the
+ * method, host and path with ID-like segments masked. Each alternate ID tried is one trial; it counts as
+ * "varied" when the response differed from the base without being denied, and as an error on 429/5xx.
+ *
+ * The budget is an upper-confidence bound on the varied rate (findings weigh more), so routes that keep
+ * answering every ID identically shrink towards {@link #MIN_BUDGET} while new or interesting routes keep the
+ * full budget. The table is a bounded LRU of four ints per route.
+ */
+final class RouteStats {
+    private static final int MAX_ROUTES = 4096;
+    private static final int MIN_BUDGET = 2;
+    private static final int FINDING_WEIGHT = 4;
+    // Routes whose responses vary at least this often (optimistically) get the full budget
+    private static final double FULL_BUDGET_RATE = 0.25;
+    // Slots of the per-route counters
+    private static final int TRIALS = 0, VARIED = 1, FINDINGS = 2, ERRORS = 3;
+
+    private final Map<String, int[]> routes = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, int[]> eldest) {
+            return size() > MAX_ROUTES;
+        }
+    };
+    private long totalTrials;
+
+    /** Alternate IDs to try for one match on {@code route}, at most {@code max}. */
+    synchronized int budget(String route, int max) {
+        double score = score(routes.get(route), max);
+        return Math.max(Math.min(MIN_BUDGET, max), Math.min(max, (int) Math.ceil(max * score)));
+    }
+
+    /** Whether checks of {@code route} should run ahead of other live checks. */
+    synchronized boolean hot(String route, int max) {
+        return score(routes.get(route), max) >= 0.5;
+    }
+
+    synchronized void record(String route, int trials, int varied, int errors, boolean finding) {
+        int[] s = routes.computeIfAbsent(route, k -> new int[4]);
+        s[TRIALS] += trials;
+        s[VARIED] += varied;
+        s[ERRORS] += errors;
+        if (finding) s[FINDINGS]++;
+        totalTrials += trials;
+    }
+
+    synchronized int size() {
+        return routes.size();
+    }
+
+    synchronized void clear() {
+        routes.clear();
+        totalTrials = 0;
+    }
+
+    // 0..1; routes with less than one full budget of trials are still being explored
+    private double score(int[] s, int max) {
+        if (s == null || s[TRIALS] < max) return 1.0;
+        double n = s[TRIALS];
+        double rate = (s[VARIED] + FINDING_WEIGHT * s[FINDINGS] + 1) / (n + 2);
+        double bonus = 0.5 * Math.sqrt(Math.log(totalTrials + 1) / n);
+        double errorRate = s[ERRORS] / n;
+        return Math.min(1.0, (rate + bonus) / FULL_BUDGET_RATE) * (1 - errorRate);
+    }
+}
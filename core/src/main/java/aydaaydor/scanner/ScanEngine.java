@@ -0,0 +1,1098 @@
+package aydaaydor.scanner;
+
+import aydaaydor.config.DedupMode;
+import aydaaydor.config.IdGroup;
+import aydaaydor.config.Identity;
+import aydaaydor.config.ScanSettings;
+import aydaaydor.metrics.Counter;
+import aydaaydor.metrics.Histogram;
+import aydaaydor.metrics.MetricsRegistry;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.regex.Pattern;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * The IDOR scanning pipeline, independent of Burp: candidate extraction, matching against the configured ID
+ * groups, mutation, comparison and dedup. Requests are sent and findings reported through a
+ * {@link ScanPlatform}; the Burp extension and the command line scanner each provide one.
+ */
+public class ScanEngine implements ScannerControls {
+
+    private final ScanSettings config;
+    private final ScanPlatform platform;
+    private final ThreadPoolExecutor exec;
+    // Dedup caches (no inFlight as per requirements)
+    private final TtlLruCache seen;
+    private final TtlLruCache reported;
+    // Recent dummy-ID probe results per endpoint/location
+    private final DummyResponseCache dummies;
+    private volatile DeniedStringMatcher deniedMatcher;
+    private volatile IdPrefilter idPrefilter;
+    private volatile PathExcludes pathExcludes;
+    private volatile ValueIndex valueIndex; // null: not collected
+    // Per-route outcomes behind the adaptive mutation budget
+    private final RouteStats routeStats = new RouteStats();
+    // Per-route volatile JSON paths, skipped when fingerprinting
+    private final VolatileMasks volatileMasks = new VolatileMasks();
+    private static final long[] NO_MASK = new long[0];
+
+    // Pipeline metrics
+    private final MetricsRegistry metrics;
+    private final Counter responsesSeen;
+    private final Counter responsesMatched;
+    private final Counter tasksQueued;
+    private final Counter tasksDeduped;
+    private final Counter tasksCombined;
+    private final Counter mutationsSent;
+    private final Counter identitySent;
+    private final Counter budgetTrimmed;
+    private final Counter confirmProbes;
+    private final Counter maskProbes;
+    private final Counter confirmAccepted;
+    private final Counter confirmRejected;
+    private final Counter sendTimeouts;
+    private final Counter comparisons;
+    private final Counter findings;
+    private final Counter scanErrors;
+    private final Histogram handlerTime;
+    private final Histogram matchTime;
+    private final Histogram compareTime;
+    private final Histogram taskTime;
+    private final Histogram queueWait;
+
+    // Finding confirmation: a real finding holds up on re-check 95% of the time, a flaky one at chance;
+    // 5% false-accept and false-reject rates, and at most four rounds of re-checks
+    private static final double CONFIRM_P_REAL = 0.95;
+    private static final double CONFIRM_P_NOISE = 0.5;
+    private static final double CONFIRM_ALPHA = 0.05;
+    private static final double CONFIRM_BETA = 0.05;
+    private static final int CONFIRM_MAX_OBSERVATIONS = 9;
+
+    // Headers to ignore when extracting candidate values (case-insensitive)
+    private static final java.util.Set<String> IGNORED_HEADER_NAMES = new java.util.HashSet<>(java.util.List.of(
+            "host",
+            "cookie",
+            "content-length",
+            "sec-ch-ua-platform",
+            "sec-ch-ua",
+            "sec-ch-ua-mobile",
+            "content-type",
+            "user-agent",
+            "accept",
+            "origin",
+            "sec-fetch-site",
+            "sec-fetch-mode",
+            "sec-fetch-dest",
+            "referer",
+            "accept-encoding",
+            "priority"
+    ));
+
+    public ScanEngine(ScanSettings config, ScanPlatform platform, MetricsRegistry metrics) {
+        this.config = config;
+        this.platform = platform;
+        this.metrics = metrics;
+        this.responsesSeen = metrics.counter("responses.seen");
+        this.responsesMatched = metrics.counter("responses.matched");
+        this.tasksQueued = metrics.counter("tasks.queued");
+        this.tasksDeduped = metrics.counter("tasks.deduped");
+        this.tasksCombined = metrics.counter("tasks.combined");
+        this.mutationsSent = metrics.counter("mutations.sent");
+        this.identitySent = metrics.counter("identity.sent");
+        this.budgetTrimmed = metrics.counter("budget.trimmed");
+        this.confirmProbes = metrics.counter("confirm.probes");
+        this.maskProbes = metrics.counter("mask.probes");
+        this.confirmAccepted = metrics.counter("confirm.accepted");
+        this.confirmRejected = metrics.counter("confirm.rejected");
+        this.sendTimeouts = metrics.counter("send.timeouts");
+        this.comparisons = metrics.counter("compare.count");
+        this.findings = metrics.counter("findings.reported");
+        this.scanErrors = metrics.counter("scan.errors");
+        this.handlerTime = metrics.histogram("handler.time_us");
+        this.matchTime = metrics.histogram("match.time_us");
+        this.compareTime = metrics.histogram("compare.time_us");
+        this.taskTime = metrics.histogram("task.time_us");
+        this.queueWait = metrics.histogram("queue.wait_us");
+        this.seen = new TtlLruCache(() -> this.config.getDedupLruMax(), () -> this.config.getDedupTtlMillis(), metrics, "cache.seen");
+        this.reported = new TtlLruCache(() -> this.config.getDedupLruMax(), () -> this.config.getDedupTtlMillis(), metrics, "cache.reported");
+        this.dummies = new DummyResponseCache(() -> this.config.getDedupLruMax(), () -> this.config.getDummyCacheTtlMillis(), metrics, "cache.dummy");
+        int n = Math.max(1, config.getMaxParallelMutations());
+        // Only ScanTasks are queued; they order live checks ahead of background ones
+        this.exec = new ThreadPoolExecutor(n, n, 0L, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<>());
+        metrics.gauge("queue.depth", () -> exec.getQueue().size());
+        metrics.gauge("workers.active", exec::getActiveCount);
+        metrics.gauge("routes.tracked", routeStats::size);
+        metrics.gauge("mask.paths", volatileMasks::pathCount);
+    }
+
+    public void shutdown() {
+        exec.shutdown();
+        try { exec.awaitTermination(2, TimeUnit.SECONDS); } catch (InterruptedException ignored) {}
+    }
+
+    /** Stops accepting work and waits for every queued check to finish; for batch runs. */
+    public boolean awaitCompletion(long timeout, TimeUnit unit) throws InterruptedException {
+        exec.shutdown();
+        return exec.awaitTermination(timeout, unit);
+    }
+
+    @Override
+    public void clearScanCache() {
+        seen.clear();
+        dummies.clear();
+        routeStats.clear();
+        volatileMasks.clear();
+    }
+
+    @Override
+    public void clearReportedCache() {
+        reported.clear();
+    }
+
+    @Override
+    public MetricsRegistry metrics() {
+        return metrics;
+    }
+
+    @Override
+    public void applySettings() {
+        try {
+            int n = Math.max(1, config.getMaxParallelMutations());
+            exec.setCorePoolSize(n);
+            exec.setMaximumPoolSize(n);
+        } catch (Exception ignored) {}
+    }
+
+    /** Queues IDOR checks for every configured ID found in {@code baseReq}; returns without waiting for them. */
+    public void scan(ScanRequest baseReq, ScanResponse baseResp) {
+        scan(baseReq, baseResp, false);
+    }
+
+    /**
+     * As {@link #scan(ScanRequest, ScanResponse)}; {@code background} checks (history backfill) only run
+     * when no live check is waiting.
+     */
+    public void scan(ScanRequest baseReq, ScanResponse baseResp, boolean background) {
+        long start = System.nanoTime();
+        responsesSeen.inc();
+        try {
+            scanResponse(baseReq, baseResp, background);
+        } finally {
+            handlerTime.recordMicrosSince(start);
+        }
+    }
+
+    /**
+     * Cheap pre-check on the raw request: false when {@link #scan} would certainly queue nothing for it
+     * (out of scope, static, excluded, or no configured ID spelled anywhere in it). Meant for bulk sources
+     * such as proxy history; some exotic ID encodings are not recognised, see {@link IdPrefilter}.
+     */
+    public boolean prefilter(ScanRequest req) {
+        try {
+            if (req == null || !req.inScope()) return false;
+            String pathNoQuery = req.pathWithoutQuery();
+            if (pathNoQuery != null && (isStaticAssetPath(pathNoQuery) || isPathExcluded(pathNoQuery))) return false;
+            return idPrefilter().mayContainId(req.bytes());
+        } catch (Exception e) {
+            return true;
+        }
+    }
+
+    /** Starts recording every candidate location's values into {@code index}; null stops it. */
+    public void setValueIndex(ValueIndex index) {
+        this.valueIndex = index;
+    }
+
+    /** Checks queued and not yet started. */
+    public int pendingChecks() {
+        return exec.getQueue().size();
+    }
+
+    private void scanResponse(ScanRequest baseReq, ScanResponse baseResp, boolean background) {
+        // Only scan in-scope traffic
+        if (baseReq == null || !baseReq.inScope()) return;
+
+        // Skip static assets by URL path extension
+        String pathNoQuery = baseReq.pathWithoutQuery();
+        if (pathNoQuery != null && isStaticAssetPath(pathNoQuery)) return;
+        // Skip by project path exclude regex
+        if (pathNoQuery != null && isPathExcluded(pathNoQuery)) return;
+
+        // find all matching occurrences across all groups and scan each
+        long matchStart = System.nanoTime();
+        List<Match> matches = findAllMatches(baseReq, config.allGroups());
+        matchTime.recordMicrosSince(matchStart);
+        if (matches.isEmpty()) return;
+        responsesMatched.inc();
+        // One compact base per response, shared by all of its matches; the response is retained for reporting
+        // once a check is queued
+        String maskRoute = computeRouteKey(baseReq, List.of());
+        List<String> reflected = matches.stream().map(m -> m.matchedId).distinct().collect(toList());
+        ScanTask.Base base = new ScanTask.Base(baseReq, baseResp, reflected, r -> newContext(r, null, reflected),
+                () -> config.isLearnVolatileJsonPaths() ? volatileMasks.mask(maskRoute) : NO_MASK);
+        long now = System.currentTimeMillis();
+        List<List<Match>> units = config.isConsistentSubstitution()
+                ? combineSameId(base.requestBytes(), matches)
+                : matches.stream().map(List::of).collect(toList());
+        for (List<Match> unit : units) {
+            String scanKey = computeScanKey(baseReq, base, unit);
+            if (seen.isFresh(scanKey, now)) {
+                // recently scanned; skip
+                tasksDeduped.inc();
+                continue;
+            }
+            tasksQueued.inc();
+            base.retain();
+            if (unit.size() > 1) tasksCombined.add(unit.size() - 1);
+            String route = computeRouteKey(baseReq, unit);
+            boolean hot = config.isAdaptiveBudget() && routeStats.hot(route, Math.max(1, config.getMaxMutationsPerBase()));
+            exec.execute(new ScanTask(base, unit, scanKey, route, hot, background, this::runIdorChecks));
+        }
+    }
+
+    /**
+     * Consistent substitution: all locations holding the same ID of the same group become one unit, mutated
+     * together through one multi-slot template. Locations whose bytes overlap an earlier one (the raw query
+     * around a query parameter) are dropped as redundant; locations that cannot be located in the raw request
+     * stay single.
+     */
+    static List<List<Match>> combineSameId(byte[] request, List<Match> matches) {
+        Map<String, List<Match>> byId = new LinkedHashMap<>();
+        for (Match m : matches) byId.computeIfAbsent(m.group.name + '\0' + m.matchedId, k -> new ArrayList<>()).add(m);
+        List<List<Match>> out = new ArrayList<>();
+        for (List<Match> same : byId.values()) {
+            if (same.size() == 1) {
+                out.add(same);
+                continue;
+            }
+            // Specific locations first, so the raw query is the one dropped on overlap
+            same.sort(Comparator.comparing(m -> m.candidate.type == Candidate.Type.RAW_QUERY));
+            List<Match> unit = new ArrayList<>();
+            List<int[]> slots = new ArrayList<>();
+            for (Match m : same) {
+                int[] slot = MutationTemplate.locate(request, m.candidate);
+                if (slot == null) {
+                    out.add(List.of(m));
+                    continue;
+                }
+                boolean overlaps = false;
+                for (int[] t : slots) overlaps |= slot[0] < t[1] && t[0] < slot[1];
+                if (overlaps) continue;
+                unit.add(m);
+                slots.add(slot);
+            }
+            if (!unit.isEmpty()) out.add(unit);
+        }
+        return out;
+    }
+
+    private boolean isStaticAssetPath(String path) {
+        String p = path.toLowerCase(Locale.ROOT);
+        for (String ext : config.getSkipExtensions()) {
+            if (p.endsWith(ext)) return true;
+        }
+        return false;
+    }
+
+    private boolean isPathExcluded(String path) {
+        try {
+            // Recompile only when the configured regexes change
+            List<String> current = config.getPathExcludeRegex();
+            PathExcludes p = pathExcludes;
+            if (p == null || !p.source.equals(current)) {
+                p = new PathExcludes(current);
+                pathExcludes = p;
+            }
+            for (Pattern rx : p.patterns) {
+                if (rx.matcher(path).find()) return true;
+            }
+        } catch (Exception ignored) {}
+        return false;
+    }
+
+    private static final class PathExcludes {
+        final List<String> source;
+        final List<Pattern> patterns = new ArrayList<>();
+
+        PathExcludes(List<String> source) {
+            this.source = List.copyOf(source);
+            for (String rx : source) {
+                try { patterns.add(Pattern.compile(rx)); } catch (Exception ignored) {}
+            }
+        }
+    }
+
+    private IdPrefilter idPrefilter() {
+        List<IdGroup> groups = config.allGroups();
+        IdPrefilter p = idPrefilter;
+        if (p == null || !p.compiledFrom(groups)) {
+            p = IdPrefilter.compile(groups);
+            idPrefilter = p;
+        }
+        return p;
+    }
+
+    private ResponseContext newContext(ScanResponse resp, long[] jsonMask) {
+        return newContext(resp, jsonMask, List.of());
+    }
+
+    /** Context with the volatile JSON paths and the IDs the request carried masked for comparison. */
+    private ResponseContext newContext(ScanResponse resp, long[] jsonMask, List<String> reflected) {
+        ResponseContext ctx = new ResponseContext(resp, new LinkedHashSet<>(config.getIgnoredJsonKeys()), config.getLargeBodyThresholdBytes());
+        if (jsonMask != null) ctx.maskJsonPaths(jsonMask);
+        if (!reflected.isEmpty()) ctx.maskReflected(reflected);
+        return ctx;
+    }
+
+    private static List<String> plus(List<String> ids, String id) {
+        List<String> out = new ArrayList<>(ids.size() + 1);
+        out.addAll(ids);
+        out.add(id);
+        return out;
+    }
+
+    private void runIdorChecks(ScanTask task) {
+        Match match = task.match;
+        long start = System.nanoTime();
+        int trials = 0, varied = 0, errors = 0;
+        boolean found = false;
+        try {
+            ScanRequest baseReq = platform.request(task.base.target(), task.base.requestBytes());
+            queueWait.record((start - task.enqueuedNanos) / 1000L);
+            ScanEvents.QueueWait waitEv = new ScanEvents.QueueWait();
+            if (waitEv.shouldCommit()) {
+                waitEv.host = hostFromRequest(baseReq);
+                waitEv.route = baseReq.pathWithoutQuery();
+                waitEv.locationType = match.candidate.type.name();
+                waitEv.waitNanos = start - task.enqueuedNanos;
+                waitEv.commit();
+            }
+            boolean first = task.base.claimFirst();
+            if (first && config.isLearnVolatileJsonPaths()) learnVolatilePaths(task, baseReq);
+            ResponseFingerprint baseFp = task.base.fingerprint();
+            // Every response compared with the base is fingerprinted with the same volatile paths masked
+            long[] mask = task.base.jsonMask();
+            // Compile the match once; every variant below is a byte splice into the base request
+            MutationTemplate template = MutationTemplate.compile(task.base.requestBytes(), task.matches);
+            // Build requests for each alternate id + dummy
+            DeniedStringMatcher denied = deniedMatcher();
+            // Identity replays go out with the first mutations and are judged once the dummy probe is in
+            List<Replay> replays = first ? startReplays(task, baseReq, mask) : List.of();
+
+            IdGroup group = match.group;
+            List<String> otherIds = group.ids.stream().filter(id -> !id.equals(match.matchedId)).collect(toList());
+            if (otherIds.isEmpty() && replays.isEmpty()) return;
+
+            // Reuse a recent dummy probe of the same endpoint/location if there is one, else send it first
+            String dummyKey = computeDummyKey(baseReq, task.matches) + '|' + mask.length;
+            DummyResponseCache.Entry cachedDummy = dummies.get(dummyKey, System.currentTimeMillis());
+            String dummy;
+            ResponseFingerprint dummyFp;
+            if (cachedDummy != null) {
+                dummy = cachedDummy.dummy;
+                dummyFp = cachedDummy.fingerprint;
+            } else {
+                dummy = group.generateDummyLike(match.matchedId);
+                dummyFp = null;
+            }
+            // With batching enabled, the dummy and a window of alternate IDs go out together
+            int delay = config.getDelayMsBetweenMutations();
+            int window = delay > 0 ? 1 : Math.max(1, config.getBatchSize());
+            int maxBudget = Math.max(1, config.getMaxMutationsPerBase());
+            int budget = Math.min(otherIds.size(), maxBudget);
+            if (config.isAdaptiveBudget()) {
+                // Routes that keep answering every ID the same way get fewer tries
+                int adaptive = Math.min(budget, routeStats.budget(task.route, maxBudget));
+                budgetTrimmed.add(budget - adaptive);
+                budget = adaptive;
+            }
+            Future<ScanResponse> dummyF = dummyFp == null
+                    ? sendAsync(mutate(task.base, baseReq, template, task.matches, dummy)) : null;
+            if (otherIds.isEmpty()) {
+                // Replays are still judged against the dummy: an ID-independent response is no finding
+                if (dummyF != null) {
+                    dummyFp = newContext(await(dummyF), mask, plus(task.base.reflectedIds(), dummy)).fingerprint();
+                    dummies.put(dummyKey, dummy, dummyFp, System.currentTimeMillis());
+                }
+                finishReplays(task, baseReq, replays, baseFp, dummyFp, denied);
+                return;
+            }
+
+            outer:
+            for (int w = 0; w < budget; w += window) {
+                List<String> ids = otherIds.subList(w, Math.min(budget, w + window));
+                List<ScanRequest> sent = new ArrayList<>(ids.size());
+                List<Future<ScanResponse>> inFlight = new ArrayList<>(ids.size());
+                for (String id : ids) {
+                    ScanRequest testReq = mutate(task.base, baseReq, template, task.matches, id);
+                    if (delay > 0) {
+                        try { Thread.sleep(delay); } catch (InterruptedException ie) { Thread.currentThread().interrupt(); }
+                    }
+                    sent.add(testReq);
+                    inFlight.add(sendAsync(testReq));
+                }
+                if (dummyF != null) {
+                    dummyFp = newContext(await(dummyF), mask, plus(task.base.reflectedIds(), dummy)).fingerprint();
+                    dummies.put(dummyKey, dummy, dummyFp, System.currentTimeMillis());
+                    dummyF = null;
+                }
+                for (int k = 0; k < ids.size(); k++) {
+                    String id = ids.get(k);
+                    ScanResponse testResp = await(inFlight.get(k));
+                    ScanEvents.Comparison cmpEv = new ScanEvents.Comparison();
+                    cmpEv.begin();
+                    ResponseContext testCtx = newContext(testResp, mask, plus(task.base.reflectedIds(), id));
+                    ResponseFingerprint testFp = testCtx.fingerprint();
+
+                    boolean differentFromBase = responsesDifferent(baseFp, testFp);
+                    boolean differentFromDummy = responsesDifferent(dummyFp, testFp);
+                    boolean containsDenied = testCtx.containsAny(denied);
+                    boolean extraCriterion = (testFp.length == baseFp.length) && (testFp.length != dummyFp.length)
+                            && testFp.hash != baseFp.hash;
+
+                    boolean finding = ((differentFromBase && differentFromDummy) || extraCriterion) && !containsDenied;
+                    trials++;
+                    if (differentFromBase && !containsDenied) varied++;
+                    if (testFp.statusCode == 429 || testFp.statusCode >= 500) errors++;
+                    cmpEv.end();
+                    if (cmpEv.shouldCommit()) {
+                        cmpEv.host = hostFromRequest(baseReq);
+                        cmpEv.route = baseReq.pathWithoutQuery();
+                        cmpEv.locationType = match.candidate.type.name();
+                        cmpEv.baseBytes = baseFp.length;
+                        cmpEv.testBytes = testFp.length;
+                        cmpEv.bounded = baseFp.bounded() || testFp.bounded();
+                        cmpEv.finding = finding;
+                        cmpEv.commit();
+                    }
+
+                    if (finding && config.isConfirmFindings()) {
+                        finding = confirmFinding(baseReq, sent.get(k), baseFp, dummyFp, denied, mask, task.base.reflectedIds(), id);
+                    }
+                    if (finding) {
+                        found = true;
+                        reportIssue(baseReq, task.base.response(), sent.get(k), testResp, task.matches, id, dummy, mask);
+                        break outer; // one finding per base request
+                    }
+                }
+            }
+            finishReplays(task, baseReq, replays, baseFp, dummyFp, denied);
+        } catch (Exception e) {
+            scanErrors.inc();
+            platform.logError("AydaAydor error: " + e);
+        } finally {
+            if (trials > 0) routeStats.record(task.route, trials, varied, errors, found);
+            seen.mark(task.scanKey, System.currentTimeMillis());
+            taskTime.recordMicrosSince(start);
+        }
+    }
+
+    /**
+     * Re-sends the base request and the finding's request in pairs until a sequential test decides whether
+     * the finding is real. A base that no longer matches itself, or a test response that no longer meets
+     * the finding condition, counts against it. Undecided after the last round means not confirmed.
+     */
+    private boolean confirmFinding(ScanRequest baseReq, ScanRequest testReq, ResponseFingerprint baseFp,
+                                   ResponseFingerprint dummyFp, DeniedStringMatcher denied, long[] mask,
+                                   List<String> baseIds, String testId) throws Exception {
+        SequentialTest test = new SequentialTest(CONFIRM_P_REAL, CONFIRM_P_NOISE, CONFIRM_ALPHA, CONFIRM_BETA);
+        test.observe(true); // the response that raised it
+        int delay = config.getDelayMsBetweenMutations();
+        while (test.verdict() == SequentialTest.Verdict.CONTINUE && test.observations() < CONFIRM_MAX_OBSERVATIONS) {
+            if (delay > 0) {
+                try { Thread.sleep(delay); } catch (InterruptedException ie) { Thread.currentThread().interrupt(); }
+            }
+            Future<ScanResponse> baseF = sendAsync(baseReq);
+            Future<ScanResponse> testF = sendAsync(testReq);
+            confirmProbes.add(2);
+            test.observe(!responsesDifferent(baseFp, newContext(await(baseF), mask, baseIds).fingerprint()));
+            ResponseContext ctx = newContext(await(testF), mask, plus(baseIds, testId));
+            ResponseFingerprint fp = ctx.fingerprint();
+            boolean extraCriterion = fp.length == baseFp.length && fp.length != dummyFp.length && fp.hash != baseFp.hash;
+            test.observe(((responsesDifferent(baseFp, fp) && responsesDifferent(dummyFp, fp)) || extraCriterion)
+                    && !ctx.containsAny(denied));
+        }
+        boolean accepted = test.verdict() == SequentialTest.Verdict.ACCEPT;
+        (accepted ? confirmAccepted : confirmRejected).inc();
+        return accepted;
+    }
+
+    /**
+     * Learns volatile JSON paths of the base's route before its fingerprint is taken: passively against the
+     * last response to the same request, and once per route by sending the base request again.
+     */
+    private void learnVolatilePaths(ScanTask task, ScanRequest baseReq) throws Exception {
+        long[] leaves = task.base.jsonLeaves();
+        if (leaves == null) return;
+        String route = computeRouteKey(baseReq, List.of());
+        byte[] req = task.base.requestBytes();
+        int bodyOffset = MutationTemplate.bodyOffset(req);
+        long bodyHash = bodyOffset < 0 ? 0L : BodyHash.hash(req, bodyOffset, req.length);
+        volatileMasks.observe(route, baseReq.method() + ' ' + baseReq.url() + '#' + Long.toHexString(bodyHash), leaves);
+        if (!volatileMasks.claimProbe(route)) return;
+        maskProbes.inc();
+        long[] again = newContext(await(sendAsync(baseReq)), null).jsonLeaves();
+        if (again != null) volatileMasks.learn(route, leaves, again);
+    }
+
+    /** An identity replay in flight. */
+    private static final class Replay {
+        final Identity identity;
+        final ScanRequest request;
+        final Future<ScanResponse> response;
+        final long[] jsonMask;
+
+        Replay(Identity identity, ScanRequest request, Future<ScanResponse> response, long[] jsonMask) {
+            this.identity = identity;
+            this.request = request;
+            this.response = response;
+            this.jsonMask = jsonMask;
+        }
+    }
+
+    /**
+     * Sends the base request once as each configured identity, through the same platform sender (and so the
+     * same per-host batching) as the mutations. Only the first task of a base replays it, and each route is
+     * replayed per identity at most once per dedup TTL.
+     */
+    private List<Replay> startReplays(ScanTask task, ScanRequest baseReq, long[] mask) {
+        List<Identity> identities = config.getIdentities();
+        if (identities.isEmpty()) return List.of();
+        List<Replay> out = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        int delay = config.getDelayMsBetweenMutations();
+        for (Identity identity : identities) {
+            String key = computeIdentityKey(baseReq, identity);
+            if (seen.isFresh(key, now)) continue;
+            ScanRequest req = withIdentity(task.base, identity);
+            if (req == null) continue;
+            seen.mark(key, now);
+            if (delay > 0) {
+                try { Thread.sleep(delay); } catch (InterruptedException ie) { Thread.currentThread().interrupt(); }
+            }
+            identitySent.inc();
+            out.add(new Replay(identity, req, platform.send(req), mask));
+        }
+        return out;
+    }
+
+    private void finishReplays(ScanTask task, ScanRequest baseReq, List<Replay> replays, ResponseFingerprint baseFp,
+                               ResponseFingerprint dummyFp, DeniedStringMatcher denied) throws Exception {
+        if (dummyFp == null) return;
+        for (Replay r : replays) {
+            ScanResponse resp = await(r.response);
+            ResponseContext ctx = newContext(resp, r.jsonMask, task.base.reflectedIds());
+            ResponseFingerprint fp = ctx.fingerprint();
+            // The other session got the base session's content, and that content depends on the ID (unlike the dummy's)
+            boolean finding = !responsesDifferent(baseFp, fp) && !ctx.containsAny(denied)
+                    && responsesDifferent(baseFp, dummyFp);
+            if (finding) reportIdentityIssue(baseReq, task.base.response(), task.match, r, resp);
+        }
+    }
+
+    /**
+     * The base request with the identity's headers: present headers get their value replaced through a
+     * template, missing ones are inserted before the blank line. Null when the request would not change.
+     */
+    private ScanRequest withIdentity(ScanTask.Base base, Identity identity) {
+        byte[] req = base.requestBytes();
+        int bodyOffset = MutationTemplate.bodyOffset(req);
+        if (bodyOffset < 0) return null;
+        boolean crlf = req[bodyOffset - 2] == '\r';
+        int headersEnd = bodyOffset - (crlf ? 2 : 1);
+        int n = identity.headers.size();
+        int[] starts = new int[n];
+        int[] ends = new int[n];
+        String[] values = new String[n];
+        int k = 0;
+        for (Map.Entry<String, String> h : identity.headers.entrySet()) {
+            int[] v = MutationTemplate.headerValue(req, bodyOffset, h.getKey());
+            if (v != null) {
+                starts[k] = v[0];
+                ends[k] = v[1];
+                values[k++] = h.getValue();
+            } else if (!h.getValue().isEmpty()) {
+                starts[k] = headersEnd;
+                ends[k] = headersEnd;
+                values[k++] = h.getKey() + ": " + h.getValue() + (crlf ? "\r\n" : "\n");
+            }
+        }
+        if (k == 0) return null;
+        MutationTemplate template = MutationTemplate.compile(req, Arrays.copyOf(starts, k), Arrays.copyOf(ends, k));
+        if (template == null) return null;
+        byte[] out = template.render(Arrays.copyOf(values, k));
+        return Arrays.equals(out, req) ? null : platform.request(base.target(), out);
+    }
+
+    private Future<ScanResponse> sendAsync(ScanRequest req) {
+        mutationsSent.inc();
+        return platform.send(req);
+    }
+
+    private ScanResponse await(Future<ScanResponse> f) throws Exception {
+        int timeout = Math.max(0, config.getRequestTimeoutMs());
+        if (timeout <= 0 || f.isDone()) return f.get();
+        try {
+            return f.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException te) {
+            // Give up on this check rather than tie up the worker behind a hung host
+            sendTimeouts.inc();
+            f.cancel(true);
+            throw te;
+        }
+    }
+
+    private boolean responsesDifferent(ResponseFingerprint a, ResponseFingerprint b) {
+        long start = System.nanoTime();
+        comparisons.inc();
+        try {
+            return compareFingerprints(a, b, config.getSimHashMaxDistance());
+        } finally {
+            compareTime.recordMicrosSince(start);
+        }
+    }
+
+    static boolean compareFingerprints(ResponseFingerprint a, ResponseFingerprint b, int simHashMaxDistance) {
+        // If body looks like JSON for both, compare structural fingerprints (ignored keys already skipped),
+        // whether the body was parsed in memory or streamed
+        if (a.looksLikeJson && b.looksLikeJson) {
+            if (a.jsonHash == null || b.jsonHash == null) {
+                // Fallback to hash-based compare on parse failure
+                return a.hash != b.hash;
+            }
+            return a.jsonHash.longValue() != b.jsonHash.longValue();
+        }
+        // Large or binary bodies: any change in the full-body hash counts
+        if (a.bounded() || b.bounded()) return a.length != b.length || a.hash != b.hash;
+        // One JSON, one not: fall back to content-length compare
+        if (a.looksLikeJson || b.looksLikeJson) return a.length != b.length;
+        // Otherwise the bodies are compared with the reflected IDs masked out, so what is left is the page itself:
+        // a different length or content there is someone else's data
+        if (a.maskedLength != b.maskedLength) return true;
+        if (a.maskedHash == b.maskedHash) return false;
+        // Same length, different content: near-duplicates only within an explicitly configured SimHash distance
+        return simHashMaxDistance <= 0 || SimHash.distance(a.simHash, b.simHash) > simHashMaxDistance;
+    }
+
+    private DeniedStringMatcher deniedMatcher() {
+        // Recompile only when the configured denied strings change
+        List<String> current = config.getDeniedStrings();
+        DeniedStringMatcher m = deniedMatcher;
+        if (m == null || !m.compiledFrom(current)) {
+            m = DeniedStringMatcher.compile(current);
+            deniedMatcher = m;
+        }
+        return m;
+    }
+
+    private void reportIssue(ScanRequest baseReq, ScanResponse baseResp, ScanRequest testReq, ScanResponse testResp,
+                             List<Match> unit, String toId, String dummy, long[] jsonMask) {
+        Match match = unit.get(0);
+        String name = "Potential IDOR (AydaAydor)";
+        String where = locationDescription(unit);
+        String detail = "Base ID '" + match.matchedId + "' in " + where +
+                " replaced with '" + toId + "' produced different response, also different from dummy '" + dummy + "'.";
+        String remediation = "Enforce object-level authorization checks. Tie access to user/session, not identifiers.";
+        String reportKey = computeReportKey(baseReq, unit);
+        ScanEvents.Report ev = new ScanEvents.Report();
+        ev.begin();
+        // Every finding goes to the platform, which deduplicates by report key (see markReported); one for an
+        // issue already reported only adds evidence, so its diff is not worked out
+        boolean known = reported.isFresh(reportKey, System.currentTimeMillis());
+        String diff = null;
+        if (!known) {
+            try {
+                diff = ResponseDiff.describe(baseResp, testResp, new LinkedHashSet<>(config.getIgnoredJsonKeys()), jsonMask,
+                        config.getLargeBodyThresholdBytes());
+            } catch (Exception ignored) {}
+        }
+        Finding finding = new Finding(name, detail, remediation, baseReq.url(), match.group.name,
+                where, match.matchedId, toId, dummy, diff, reportKey, baseReq, baseResp, testReq, testResp);
+        findings.inc();
+        platform.report(finding);
+        commitReportEvent(ev, baseReq, match, known);
+    }
+
+    private void reportIdentityIssue(ScanRequest baseReq, ScanResponse baseResp, Match match, Replay replay, ScanResponse testResp) {
+        Identity identity = replay.identity;
+        String name = "Potential broken access control (AydaAydor)";
+        String detail = "Replaying the request as identity '" + identity.name + "' (" + String.join(", ", identity.headers.keySet())
+                + " replaced) returned the same response as the original session.";
+        String remediation = "Enforce authorization checks for the requesting session on every object access.";
+        String reportKey = computeIdentityKey(baseReq, identity);
+        ScanEvents.Report ev = new ScanEvents.Report();
+        ev.begin();
+        boolean known = reported.isFresh(reportKey, System.currentTimeMillis());
+        Finding finding = new Finding(name, detail, remediation, baseReq.url(), "identity",
+                "identity '" + identity.name + "'", "", identity.name, "", null, reportKey, baseReq, baseResp, replay.request, testResp);
+        findings.inc();
+        platform.report(finding);
+        commitReportEvent(ev, baseReq, match, known);
+    }
+
+    /**
+     * Records that an issue for {@code reportKey} is being published. False if one already was within the dedup
+     * TTL, in which case the finding is further evidence for that issue rather than a new one. Called by the
+     * platform when it publishes what {@link ScanPlatform#report} handed it.
+     */
+    public boolean markReported(String reportKey) {
+        synchronized (reported) {
+            long now = System.currentTimeMillis();
+            if (reported.isFresh(reportKey, now)) return false;
+            reported.mark(reportKey, now);
+            return true;
+        }
+    }
+
+    private void commitReportEvent(ScanEvents.Report ev, ScanRequest baseReq, Match match, boolean deduplicated) {
+        ev.end();
+        if (!ev.shouldCommit()) return;
+        ev.host = hostFromRequest(baseReq);
+        ev.route = baseReq.pathWithoutQuery();
+        ev.locationType = match.candidate.type.name();
+        ev.group = match.group.name;
+        ev.deduplicated = deduplicated;
+        ev.commit();
+    }
+
+    private static String locationDescription(List<Match> unit) {
+        if (unit.size() == 1) return unit.get(0).locationDescription();
+        StringBuilder sb = new StringBuilder();
+        for (Match m : unit) {
+            if (sb.length() > 0) sb.append(" + ");
+            sb.append(m.locationDescription());
+        }
+        return sb.append(" (substituted together)").toString();
+    }
+
+    private String computeScanKey(ScanRequest req, ScanTask.Base base, List<Match> unit) {
+        Match m = unit.get(0);
+        String method = req.method();
+        String host = hostFromRequest(req);
+        String path = safe(req.pathWithoutQuery());
+        String loc = locationKey(unit);
+        String chain = chainKey(unit);
+        String groupSig = groupSignature(m.group);
+        StringBuilder sb = new StringBuilder();
+        sb.append(method).append('|').append(host).append('|').append(path).append('|')
+          .append(loc).append('|').append(chain).append('|').append(groupSig);
+        if (config.getDedupMode() == DedupMode.CONTENT_AWARE) {
+            ResponseFingerprint fp = base.fingerprint();
+            sb.append('|').append(fp.statusCode).append(':').append(Long.toHexString(fp.hash));
+        }
+        return sb.toString();
+    }
+
+    private String computeDummyKey(ScanRequest req, List<Match> unit) {
+        Match m = unit.get(0);
+        String method = req.method();
+        String host = hostFromRequest(req);
+        String path = safe(req.pathWithoutQuery());
+        for (Match u : unit) {
+            if (u.candidate.type != Candidate.Type.PATH_SEGMENT) continue;
+            // The matched segment is the ID itself; mask it so all IDs share one route
+            String[] parts = path.split("/", -1);
+            if (u.candidate.pathIndex >= 0 && u.candidate.pathIndex < parts.length) {
+                parts[u.candidate.pathIndex] = "{id}";
+                path = String.join("/", parts);
+            }
+        }
+        String loc = locationKey(unit);
+        String chain = chainKey(unit);
+        return method + '|' + host + '|' + path + '|' + loc + '|' + chain + '|' + m.group.type;
+    }
+
+    private String computeReportKey(ScanRequest req, List<Match> unit) {
+        Match m = unit.get(0);
+        String method = req.method();
+        String host = hostFromRequest(req);
+        String path = safe(req.pathWithoutQuery());
+        String loc = locationKey(unit);
+        return method + '|' + host + '|' + path + '|' + loc + '|' + m.group.name;
+    }
+
+    // Method, host and path with the matched and other ID-like segments masked, so all IDs share one route
+    private String computeRouteKey(ScanRequest req, List<Match> unit) {
+        String[] parts = safe(req.pathWithoutQuery()).split("/", -1);
+        for (Match u : unit) {
+            int i = u.candidate.pathIndex;
+            if (u.candidate.type == Candidate.Type.PATH_SEGMENT && i >= 0 && i < parts.length) parts[i] = "{id}";
+        }
+        for (int i = 0; i < parts.length; i++) {
+            if (idLikeSegment(parts[i])) parts[i] = "{id}";
+        }
+        return req.method() + '|' + hostFromRequest(req) + '|' + String.join("/", parts);
+    }
+
+    private static boolean idLikeSegment(String s) {
+        boolean digit = false, allDigits = !s.isEmpty();
+        for (int i = 0; i < s.length(); i++) {
+            boolean d = Character.isDigit(s.charAt(i));
+            digit |= d;
+            allDigits &= d;
+        }
+        return allDigits || (digit && s.length() >= 8);
+    }
+
+    // Used both to replay a route once per identity and to report it once
+    private String computeIdentityKey(ScanRequest req, Identity identity) {
+        return req.method() + '|' + hostFromRequest(req) + '|' + safe(req.pathWithoutQuery()) + "|identity:" + identity.name;
+    }
+
+    private static String locationKey(List<Match> unit) {
+        if (unit.size() == 1) return locationKey(unit.get(0).candidate);
+        List<String> keys = new ArrayList<>();
+        for (Match m : unit) keys.add(locationKey(m.candidate));
+        Collections.sort(keys);
+        return "C[" + String.join(";", keys) + "]";
+    }
+
+    private static String chainKey(List<Match> unit) {
+        if (unit.size() == 1) return unit.get(0).chain.steps.toString();
+        StringBuilder sb = new StringBuilder();
+        for (Match m : unit) sb.append(m.chain.steps);
+        return sb.toString();
+    }
+
+    private static String locationKey(Candidate c) {
+        switch (c.type) {
+            case PARAMETER:
+                return "P|" + c.paramName + '|' + c.paramType;
+            case HEADER:
+                return "H|" + c.headerName;
+            case PATH_SEGMENT:
+                return "S|" + c.pathIndex;
+            case RAW_QUERY:
+                return "Q";
+            default:
+                return "?";
+        }
+    }
+
+    private String groupSignature(IdGroup g) {
+        try {
+            List<String> ids = new ArrayList<>(g.ids);
+            Collections.sort(ids);
+            String joined = String.join("\n", ids);
+            return g.name + "#" + Long.toHexString(BodyHash.hash(joined));
+        } catch (Exception e) {
+            return g.name;
+        }
+    }
+
+    private String hostFromRequest(ScanRequest req) {
+        try {
+            for (Map.Entry<String, String> h : req.headers()) {
+                if (h.getKey().equalsIgnoreCase("Host")) return h.getValue();
+            }
+        } catch (Exception ignored) {}
+        return "";
+    }
+
+    private String safe(String s) { return s == null ? "" : s; }
+
+    private boolean isIgnoredHeader(String name) {
+        if (name == null) return false;
+        String lower = name.trim().toLowerCase(Locale.ROOT);
+        if (IGNORED_HEADER_NAMES.contains(lower)) return true;
+        try { return config.getIgnoredHeaders().contains(lower); } catch (Exception ignored) { return false; }
+    }
+
+    private List<Match> findAllMatches(ScanRequest req, List<IdGroup> groups) {
+        // Collect candidate value occurrences
+        ScanEvents.CandidateExtraction extractEv = new ScanEvents.CandidateExtraction();
+        extractEv.begin();
+        List<Candidate> candidates = new ArrayList<>();
+        // Parameters (all types including URL, BODY, JSON, COOKIE, MULTIPART_ATTRIBUTE)
+        for (ScanRequest.Param p : req.parameters()) {
+            try {
+                if (config.isParamIgnored(p.type, p.name)) continue;
+            } catch (Throwable ignored) {}
+            candidates.add(Candidate.forParam(p));
+        }
+        // Headers
+        for (Map.Entry<String, String> h : req.headers()) {
+            String hn = h.getKey();
+            if (isIgnoredHeader(hn)) continue; // skip noisy/standard headers
+            candidates.add(Candidate.forHeader(hn, h.getValue()));
+        }
+        // Path segments
+        String path = req.pathWithoutQuery();
+        if (path != null && !path.isEmpty()) {
+            String[] parts = path.split("/");
+            int idx = 0;
+            for (String s : parts) {
+                if (s.isEmpty()) { idx++; continue; }
+                candidates.add(Candidate.forPathSegment(idx, s));
+                idx++;
+            }
+        }
+
+        // Raw query as a whole (covers cases where entire query is Base64 blob)
+        String fullPath = req.path();
+        if (fullPath != null) {
+            int q = fullPath.indexOf('?');
+            if (q >= 0 && q + 1 < fullPath.length()) {
+                String rawQuery = fullPath.substring(q + 1);
+                if (!rawQuery.isEmpty()) {
+                    candidates.add(Candidate.forRawQuery(rawQuery));
+                }
+            }
+        }
+
+        ValueIndex index = valueIndex;
+        if (index != null) {
+            List<String> keys = new ArrayList<>(candidates.size());
+            for (Candidate c : candidates) keys.add(locationKey(c));
+            index.observe(req.method(), req.url(), candidates, keys);
+        }
+
+        extractEv.end();
+        if (extractEv.shouldCommit()) {
+            extractEv.host = hostFromRequest(req);
+            extractEv.route = req.pathWithoutQuery();
+            extractEv.requestBytes = req.bytes().length;
+            extractEv.candidates = candidates.size();
+            extractEv.commit();
+        }
+
+        // Try to match each candidate against group IDs (with decoders), collect all unique matches
+        ScanEvents.Matching matchEv = new ScanEvents.Matching();
+        matchEv.begin();
+        List<Match> out = matchCandidates(candidates, groups);
+        matchEv.end();
+        if (matchEv.shouldCommit()) {
+            matchEv.host = hostFromRequest(req);
+            matchEv.route = req.pathWithoutQuery();
+            matchEv.candidates = candidates.size();
+            for (IdGroup g : groups) matchEv.ids += g.ids.size();
+            matchEv.matches = out.size();
+            matchEv.commit();
+        }
+        return out;
+    }
+
+    /** Searches every candidate for every group ID (through the supported encoding chains); unique matches only. */
+    static List<Match> matchCandidates(List<Candidate> candidates, List<IdGroup> groups) {
+        List<Match> out = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (Candidate c : candidates) {
+            for (IdGroup g : groups) {
+                for (String id : g.ids) {
+                    var occ = EncodingChain.findOccurrence(c.value, id);
+                    if (occ.isPresent()) {
+                        var o = occ.get();
+                        String modeTag;
+                        String key;
+                        if (o.reencodeWhole) {
+                            modeTag = "D:" + o.decodedStart;
+                            key = c.type + "|" + c.value + "|" + g.name + "|" + id + "|" + o.chain.steps.toString() + "|" + modeTag;
+                            if (seen.add(key)) {
+                                out.add(new Match(g, id, c, o.chain, o.decodedFull, o.decodedStart, true));
+                            }
+                        } else {
+                            modeTag = "E:" + o.startIndex;
+                            key = c.type + "|" + c.value + "|" + g.name + "|" + id + "|" + o.chain.steps.toString() + "|" + modeTag;
+                            if (seen.add(key)) {
+                                out.add(new Match(g, id, c, o.chain, o.fragment, o.startIndex));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    private ScanRequest mutate(ScanTask.Base base, ScanRequest baseReq, MutationTemplate template, List<Match> unit, String newId) {
+        if (template == null) {
+            ScanRequest req = baseReq;
+            for (Match m : unit) req = applyReplacement(req, m, newId);
+            return req;
+        }
+        String[] values = new String[unit.size()];
+        for (int i = 0; i < values.length; i++) values[i] = MutationTemplate.slotValue(unit.get(i), newId);
+        return platform.request(base.target(), template.render(values));
+    }
+
+    private ScanRequest applyReplacement(ScanRequest req, Match match, String newId) {
+        String encoded = match.chain.encode(newId, match.candidate.value);
+        switch (match.candidate.type) {
+            case PARAMETER: {
+                String newVal;
+                if (match.reencodeWhole) {
+                    String decoded = match.decodedFull;
+                    String mutated = MutationTemplate.replaceAt(decoded, match.decodedStart, match.matchedId.length(), newId);
+                    newVal = match.chain.encode(mutated, match.candidate.value);
+                } else {
+                    String oldVal = match.candidate.value;
+                    newVal = MutationTemplate.replaceAt(oldVal, match.startIndex, match.encodedFragment.length(), encoded);
+                }
+                return req.withParameter(match.candidate.paramName, match.candidate.paramType, newVal);
+            }
+            case HEADER: {
+                String newVal;
+                if (match.reencodeWhole) {
+                    String decoded = match.decodedFull;
+                    String mutated = MutationTemplate.replaceAt(decoded, match.decodedStart, match.matchedId.length(), newId);
+                    newVal = match.chain.encode(mutated, match.candidate.value);
+                } else {
+                    String oldVal = match.candidate.value;
+                    newVal = MutationTemplate.replaceAt(oldVal, match.startIndex, match.encodedFragment.length(), encoded);
+                }
+                return req.withHeader(match.candidate.headerName, newVal);
+            }
+            case PATH_SEGMENT: {
+                String path = req.path();
+                String[] parts = path.split("/");
+                int segIndex = match.candidate.pathIndex;
+                int i = 0; List<String> rebuilt = new ArrayList<>();
+                for (String s : parts) {
+                    if (i == segIndex && !s.isEmpty()) {
+                        String newSeg;
+                        int qpos = s.indexOf('?');
+                        String segCore = qpos >= 0 ? s.substring(0, qpos) : s;
+                        String suffix = qpos >= 0 ? s.substring(qpos) : ""; // includes '?...'
+                        if (match.reencodeWhole) {
+                            String decoded = match.decodedFull; // decoded original segment core
+                            String mutated = MutationTemplate.replaceAt(decoded, match.decodedStart, match.matchedId.length(), newId);
+                            String encodedCore = match.chain.encode(mutated, segCore);
+                            newSeg = encodedCore + suffix;
+                        } else {
+                            String replacedCore = MutationTemplate.replaceAt(segCore, match.startIndex, match.encodedFragment.length(), encoded);
+                            newSeg = replacedCore + suffix;
+                        }
+                        rebuilt.add(newSeg);
+                    } else {
+                        rebuilt.add(s);
+                    }
+                    i++;
+                }
+                String newPath = String.join("/", rebuilt);
+                if (!newPath.startsWith("/")) newPath = "/" + newPath;
+                return req.withPath(newPath);
+            }
+            case RAW_QUERY: {
+                String full = req.path();
+                int q = full.indexOf('?');
+                String base = q >= 0 ? full.substring(0, q) : full;
+                String oldQuery = q >= 0 && q + 1 < full.length() ? full.substring(q + 1) : "";
+                String newQuery;
+                if (match.reencodeWhole) {
+                    String decoded = match.decodedFull;
+                    String mutated = MutationTemplate.replaceAt(decoded, match.decodedStart, match.matchedId.length(), newId);
+                    newQuery = match.chain.encode(mutated, match.candidate.value);
+                } else {
+                    newQuery = MutationTemplate.replaceAt(oldQuery, match.startIndex, match.encodedFragment.length(), encoded);
+                }
+                String rebuilt = base + (newQuery.isEmpty() ? "" : ("?" + newQuery));
+                return req.withPath(rebuilt);
+            }
+            default:
+                return req;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package aydaaydor.scanner;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JDK Flight Recorder events for each scanner pipeline stage. When no recording is running the events are
+ * disabled and each {@code begin()/commit()} pair is close to free; callers fill in descriptive fields
+ * (host, route, ...) only after {@code shouldCommit()} says the event will actually be written.
+ *
+ * Recording profile: {@code core/src/main/resources/aydaaydor.jfc}.
+ */
+public final class ScanEvents {
+    private ScanEvents() {}
+
+    @Name("aydaaydor.CandidateExtraction")
+    @Label("Candidate Extraction")
+    @Category({"AydaAydor", "Scanner"})
+    @Description("Collecting parameter, header, path and query candidates from a proxied request")
+    @StackTrace(false)
+    static final class CandidateExtraction extends Event {
+        @Label("Host") String host;
+        @Label("Route") String route;
+        @Label("Request Size") @DataAmount long requestBytes;
+        @Label("Candidates") int candidates;
+    }
+
+    @Name("aydaaydor.ChainDecode")
+    @Label("Chain Decode")
+    @Category({"AydaAydor", "Scanner"})
+    @Description("Decoding one candidate value through one encoding chain")
+    @StackTrace(false)
+    static final class ChainDecode extends Event {
+        @Label("Chain") String chain;
+        @Label("Input Size") @DataAmount long inputBytes;
+        @Label("Decoded Size") @DataAmount long decodedBytes;
+    }
+
+    @Name("aydaaydor.Matching")
+    @Label("Matching")
+    @Category({"AydaAydor", "Scanner"})
+    @Description("Searching every candidate for every configured group ID")
+    @StackTrace(false)
+    static final class Matching extends Event {
+        @Label("Host") String host;
+        @Label("Route") String route;
+        @Label("Candidates") int candidates;
+        @Label("Group IDs") int ids;
+        @Label("Matches") int matches;
+    }
+
+    @Name("aydaaydor.QueueWait")
+    @Label("Queue Wait")
+    @Category({"AydaAydor", "Scanner"})
+    @Description("Time a scan task spent queued before a worker picked it up")
+    @StackTrace(false)
+    static final class QueueWait extends Event {
+        @Label("Host") String host;
+        @Label("Route") String route;
+        @Label("Location Type") String locationType;
+        @Label("Wait") @Timespan(Timespan.NANOSECONDS) long waitNanos;
+    }
+
+    @Name("aydaaydor.HttpSend")
+    @Label("HTTP Send")
+    @Category({"AydaAydor", "Scanner"})
+    @Description("Sending one mutated request, or one batch of them, through Burp")
+    @StackTrace(false)
+    public static final class HttpSend extends Event {
+        @Label("Host") public String host;
+        @Label("Route") public String route;
+        @Label("Requests") public int requests;
+        @Label("Request Size") @DataAmount public long requestBytes;
+        @Label("Response Size") @DataAmount public long responseBytes;
+    }
+
+    @Name("aydaaydor.Comparison")
+    @Label("Comparison")
+    @Category({"AydaAydor", "Scanner"})
+    @Description("Fingerprinting a mutated response and comparing it with the base and dummy responses")
+    @StackTrace(false)
+    static final class Comparison extends Event {
+        @Label("Host") String host;
+        @Label("Route") String route;
+        @Label("Location Type") String locationType;
+        @Label("Base Size") @DataAmount long baseBytes;
+        @Label("Test Size") @DataAmount long testBytes;
+        @Label("Bounded") boolean bounded;
+        @Label("Finding") boolean finding;
+    }
+
+    @Name("aydaaydor.Report")
+    @Label("Report")
+    @Category({"AydaAydor", "Scanner"})
+    @Description("Building and adding an IDOR issue to the site map")
+    @StackTrace(false)
+    static final class Report extends Event {
+        @Label("Host") String host;
+        @Label("Route") String route;
+        @Label("Location Type") String locationType;
+        @Label("Group") String group;
+        @Label("Deduplicated") boolean deduplicated;
+    }
+}
@@ -0,0 +1,15 @@
+package aydaaydor.scanner;
+
+import java.util.concurrent.Future;
+
+/** What {@link ScanEngine} needs from its host: building and sending requests, and reporting. */
+public interface ScanPlatform {
+    /** Request object for raw bytes addressed to {@code target}. */
+    ScanRequest request(HttpTarget target, byte[] raw);
+
+    Future<ScanResponse> send(ScanRequest request);
+
+    void report(Finding finding);
+
+    void logError(String message);
+}
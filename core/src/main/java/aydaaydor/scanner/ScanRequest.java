@@ -0,0 +1,58 @@
+package aydaaydor.scanner;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The view of an HTTP request the engine works with. The Burp extension adapts Montoya requests to it;
+ * {@link RawRequest} parses raw bytes for everything else.
+ */
+public interface ScanRequest {
+
+    /** A parsed parameter; value offsets into {@link #bytes()} are -1 when unknown. */
+    final class Param {
+        public final String name;
+        public final String value;
+        public final ParamType type;
+        public final int valueStart;
+        public final int valueEnd;
+
+        public Param(String name, String value, ParamType type, int valueStart, int valueEnd) {
+            this.name = name;
+            this.value = value;
+            this.type = type;
+            this.valueStart = valueStart;
+            this.valueEnd = valueEnd;
+        }
+    }
+
+    HttpTarget target();
+
+    /** Serialized request; callers must not modify it. */
+    byte[] bytes();
+
+    String method();
+
+    /** Request target including the query string. */
+    String path();
+
+    String pathWithoutQuery();
+
+    String url();
+
+    List<Map.Entry<String, String>> headers();
+
+    List<Param> parameters();
+
+    default boolean inScope() {
+        return true;
+    }
+
+    // Structured edits, used when a match cannot be spliced into the raw bytes directly
+
+    ScanRequest withPath(String path);
+
+    ScanRequest withHeader(String name, String value);
+
+    ScanRequest withParameter(String name, ParamType type, String value);
+}
@@ -0,0 +1,27 @@
+package aydaaydor.scanner;
+
+/**
+ * The view of an HTTP response the engine works with. Bodies may be large or file-backed, so they are read
+ * either whole (small bodies only) or by range.
+ */
+public interface ScanResponse {
+    int statusCode();
+
+    int bodyLength();
+
+    byte[] body();
+
+    /** Body bytes in [from, to). */
+    byte[] body(int from, int to);
+
+    /** True if the stated content type is binary (images, media, fonts, ...). */
+    boolean binary();
+
+    /**
+     * A copy that is cheap to keep until a finding is reported; the Burp adapter moves the body to a temp
+     * file. In-memory responses return themselves.
+     */
+    default ScanResponse retain() {
+        return this;
+    }
+}
@@ -0,0 +1,138 @@
+package aydaaydor.scanner;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * One queued IDOR check. Carries only what the mutation needs: the shared base (serialized request and
+ * response fingerprint), the match coordinates and the dedup key. Full request objects are rebuilt on demand.
+ * Checks from live traffic run before background (history backfill) checks; within each, checks of routes the
+ * adaptive budget considers promising go first, then arrival order.
+ */
+final class ScanTask implements Runnable, Comparable<ScanTask> {
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    /**
+     * State shared by all tasks created from one base request/response. The request is kept as raw bytes,
+     * the response as a retained copy (temp-file backed in Burp) that is only read back for fingerprinting
+     * and reporting. The copy is made by {@link #retain()} once a check is actually queued, so responses
+     * whose checks are all deduplicated never pay for it.
+     */
+    static final class Base {
+        private final HttpTarget target;
+        private final byte[] request;
+        private final Function<ScanResponse, ResponseContext> contexts;
+        private final List<String> reflectedIds;
+        private ScanResponse storedResponse;
+        private boolean retained;
+        private final AtomicBoolean firstClaimed = new AtomicBoolean();
+        private final Supplier<long[]> jsonMaskSource;
+        private ResponseContext pending; // dropped once the fingerprint exists
+        private ResponseFingerprint fingerprint;
+        private long[] jsonMask;
+
+        Base(ScanRequest request, ScanResponse response, List<String> reflectedIds,
+             Function<ScanResponse, ResponseContext> contexts, Supplier<long[]> jsonMaskSource) {
+            this.target = request.target();
+            this.request = request.bytes();
+            this.storedResponse = response;
+            this.reflectedIds = reflectedIds;
+            this.contexts = contexts;
+            this.pending = contexts.apply(response);
+            this.jsonMaskSource = jsonMaskSource;
+        }
+
+        /** Swaps the response for its retained copy; later calls do nothing. */
+        synchronized void retain() {
+            if (retained) return;
+            retained = true;
+            try { storedResponse = storedResponse.retain(); } catch (Exception ignored) {}
+            // Not fingerprinted yet: analyse the copy, so the original body is not held while queued
+            if (pending != null) pending = contexts.apply(storedResponse);
+        }
+
+        HttpTarget target() {
+            return target;
+        }
+
+        /** Serialized base request; shared, must not be modified. */
+        byte[] requestBytes() {
+            return request;
+        }
+
+        /** Every ID matched in the base request; masked out of each non-JSON response compared with the base. */
+        List<String> reflectedIds() {
+            return reflectedIds;
+        }
+
+        synchronized ScanResponse response() {
+            return storedResponse;
+        }
+
+        /** True for the first caller only; per-base work (identity replays, learning) runs once, not per match. */
+        boolean claimFirst() {
+            return firstClaimed.compareAndSet(false, true);
+        }
+
+        /** The fingerprint, with the route's volatile JSON paths as of the first call masked. */
+        synchronized ResponseFingerprint fingerprint() {
+            if (fingerprint == null) {
+                jsonMask = jsonMaskSource.get();
+                pending.maskJsonPaths(jsonMask);
+                fingerprint = pending.fingerprint();
+                pending = null; // release cached body bytes
+            }
+            return fingerprint;
+        }
+
+        /** Volatile JSON paths the fingerprint was computed with; responses compared to it must use the same. */
+        synchronized long[] jsonMask() {
+            fingerprint();
+            return jsonMask;
+        }
+
+        /** Scalars of the base's JSON body, or null if not JSON; reads the stored response once fingerprinted. */
+        synchronized long[] jsonLeaves() {
+            return (pending != null ? pending : contexts.apply(storedResponse)).jsonLeaves();
+        }
+    }
+
+    final Base base;
+    final Match match;         // first of matches
+    final List<Match> matches; // one location, or several holding the same ID (consistent substitution)
+    final String scanKey;
+    final String route;        // RouteStats key
+    final boolean hot;         // route promising enough to jump ahead of other checks
+    final boolean background;
+    final long enqueuedNanos = System.nanoTime();
+    private final long seq = SEQUENCE.incrementAndGet();
+    private final Consumer<ScanTask> worker;
+
+    ScanTask(Base base, List<Match> matches, String scanKey, String route, boolean hot, boolean background,
+             Consumer<ScanTask> worker) {
+        this.base = base;
+        this.match = matches.get(0);
+        this.matches = matches;
+        this.scanKey = scanKey;
+        this.route = route;
+        this.hot = hot;
+        this.background = background;
+        this.worker = worker;
+    }
+
+    @Override
+    public int compareTo(ScanTask o) {
+        if (background != o.background) return background ? 1 : -1;
+        if (hot != o.hot) return hot ? -1 : 1;
+        return Long.compare(seq, o.seq);
+    }
+
+    @Override
+    public void run() {
+        worker.accept(this);
+    }
+}
@@ -1,7 +1,10 @@
 package aydaaydor.scanner;
 
+import aydaaydor.metrics.MetricsRegistry;
+
 public interface ScannerControls {
     void clearScanCache();
     void clearReportedCache();
     void applySettings();
+    MetricsRegistry metrics();
 }
@@ -0,0 +1,40 @@
+package aydaaydor.scanner;
+
+/**
+ * Wald's sequential probability ratio test over yes/no observations of "the finding held up". A real finding
+ * holds up with probability {@code pReal}, a fluke of a flaky endpoint with {@code pNoise}; observations are
+ * added until the log-likelihood ratio crosses a bound set by the tolerated false-accept ({@code alpha}) and
+ * false-reject ({@code beta}) rates, so clear cases stop after very few probes.
+ */
+final class SequentialTest {
+    enum Verdict { ACCEPT, REJECT, CONTINUE }
+
+    private final double supportLlr;
+    private final double refuteLlr;
+    private final double upper;
+    private final double lower;
+    private double llr;
+    private int observations;
+
+    SequentialTest(double pReal, double pNoise, double alpha, double beta) {
+        this.supportLlr = Math.log(pReal / pNoise);
+        this.refuteLlr = Math.log((1 - pReal) / (1 - pNoise));
+        this.upper = Math.log((1 - beta) / alpha);
+        this.lower = Math.log(beta / (1 - alpha));
+    }
+
+    void observe(boolean supports) {
+        llr += supports ? supportLlr : refuteLlr;
+        observations++;
+    }
+
+    Verdict verdict() {
+        if (llr >= upper) return Verdict.ACCEPT;
+        if (llr <= lower) return Verdict.REJECT;
+        return Verdict.CONTINUE;
+    }
+
+    int observations() {
+        return observations;
+    }
+}
@@ -0,0 +1,67 @@
+package aydaaydor.scanner;
+
+/**
+ * 64-bit shingled SimHash for near-duplicate detection of non-JSON bodies (HTML, text).
+ *
+ * Computed in one linear pass over the raw bytes: the body is split into alphanumeric tokens (any non-ASCII
+ * byte counts as a token byte, so UTF-8 text needs no decoding), every run of {@link #SHINGLE}
+ * consecutive tokens is hashed and votes on each of the 64 output bits. Bodies that differ only in a few
+ * tokens (e.g. a reflected ID) end up a small Hamming distance apart.
+ */
+final class SimHash {
+    static final int SHINGLE = 3;
+
+    private SimHash() {}
+
+    static long compute(byte[] b, int from, int to) {
+        int[] votes = new int[64];
+        long[] window = new long[SHINGLE]; // ring buffer of the last token hashes
+        int tokens = 0;
+        long tok = 0;
+        boolean inToken = false;
+        for (int i = from; i <= to; i++) {
+            int c = i < to ? b[i] & 0xff : ' ';
+            if (isTokenByte(c)) {
+                if (c >= 'A' && c <= 'Z') c += 32;
+                tok = (tok ^ c) * 0x100000001b3L;
+                if (!inToken) inToken = true;
+                continue;
+            }
+            if (!inToken) continue;
+            window[tokens % SHINGLE] = tok;
+            tokens++;
+            if (tokens >= SHINGLE) vote(votes, shingle(window, tokens));
+            tok = 0;
+            inToken = false;
+        }
+        // Short bodies: fewer tokens than one shingle, hash what there is
+        if (tokens > 0 && tokens < SHINGLE) vote(votes, shingle(window, tokens));
+        long out = 0;
+        for (int bit = 0; bit < 64; bit++) if (votes[bit] > 0) out |= 1L << bit;
+        return out;
+    }
+
+    private static boolean isTokenByte(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c >= 0x80;
+    }
+
+    static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    private static long shingle(long[] window, int tokens) {
+        int len = Math.min(tokens, SHINGLE);
+        long h = 0x9E3779B97F4A7C15L;
+        for (int k = len; k >= 1; k--) {
+            h = (h ^ window[(tokens - k) % SHINGLE]) * 0xbf58476d1ce4e5b9L;
+            h ^= h >>> 31;
+        }
+        return h;
+    }
+
+    private static void vote(int[] votes, long h) {
+        for (int b = 0; b < 64; b++) {
+            votes[b] += ((h >>> b) & 1L) != 0 ? 1 : -1;
+        }
+    }
+}
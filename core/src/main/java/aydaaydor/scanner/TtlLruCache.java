@@ -1,5 +1,8 @@
 package aydaaydor.scanner;
 
+import aydaaydor.metrics.Counter;
+import aydaaydor.metrics.MetricsRegistry;
+
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -12,10 +15,15 @@ class TtlLruCache {
     private final Supplier<Integer> maxEntriesSupplier;
     private final Supplier<Long> ttlMillisSupplier;
     private final Map<String, Long> map;
+    private final Counter hits;
+    private final Counter misses;
 
-    TtlLruCache(Supplier<Integer> maxEntriesSupplier, Supplier<Long> ttlMillisSupplier) {
+    TtlLruCache(Supplier<Integer> maxEntriesSupplier, Supplier<Long> ttlMillisSupplier, MetricsRegistry metrics, String name) {
         this.maxEntriesSupplier = maxEntriesSupplier;
         this.ttlMillisSupplier = ttlMillisSupplier;
+        this.hits = metrics.counter(name + ".hit");
+        this.misses = metrics.counter(name + ".miss");
+        metrics.gauge(name + ".size", this::size);
         this.map = Collections.synchronizedMap(new LinkedHashMap<>(1024, 0.75f, true) {
             @Override
             protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
@@ -29,12 +37,17 @@ class TtlLruCache {
         Long ts;
         synchronized (map) {
             ts = map.get(key);
-            if (ts == null) return false;
+            if (ts == null) {
+                misses.inc();
+                return false;
+            }
             long ttl = Math.max(0, ttlMillisSupplier.get());
             if (ttl > 0 && now - ts >= ttl) {
                 map.remove(key);
+                misses.inc();
                 return false;
             }
+            hits.inc();
             return true;
         }
     }
@@ -45,6 +58,10 @@ class TtlLruCache {
         }
     }
 
+    int size() {
+        return map.size();
+    }
+
     void clear() {
         synchronized (map) {
             map.clear();
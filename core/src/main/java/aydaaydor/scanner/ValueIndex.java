@@ -0,0 +1,386 @@
+package aydaaydor.scanner;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Inverted index of the values seen in candidate locations: token hash -> locations that carried it.
+ *
+ * Every candidate value the engine extracts is split into tokens (alphanumeric runs, and runs that also keep
+ * {@code . _ - @ +}, so e-mails and UUIDs are whole tokens), after URL-decoding and, for base64-looking runs,
+ * base64-decoding. Only 64-bit token hashes are kept, never the values. When IDs are added, the endpoints
+ * whose locations held any of them are found with one lookup per ID. Sizes are capped: tokens seen in too
+ * many locations stop collecting postings, and each location keeps a bounded number of tokens.
+ *
+ * Observations come from the proxy handler thread, so they never wait for the index: values are tokenized
+ * without the lock and queued, and the queue is applied in batches by whichever caller next holds the lock
+ * (an observer that finds it free, a lookup or a save). Observations beyond {@link #MAX_QUEUED} are dropped.
+ */
+public final class ValueIndex {
+    private static final int MAGIC = 0x41594449; // "AYDI"
+    private static final int VERSION = 1;
+    private static final int MAX_LOCATIONS = 50_000;
+    private static final int MAX_TOKENS_PER_LOCATION = 256;
+    private static final int MAX_POSTINGS_PER_TOKEN = 4096;
+    private static final int MIN_BASE64_RUN = 8;
+    private static final int[] EMPTY = new int[0];
+    private static final int MAX_QUEUED = 4096;
+    private static final int DRAIN_BATCH = 64;
+
+    private static final class Observation {
+        final String endpoint;
+        final String[] locationKeys;
+        final long[][] tokens;
+
+        Observation(String endpoint, String[] locationKeys, long[][] tokens) {
+            this.endpoint = endpoint;
+            this.locationKeys = locationKeys;
+            this.tokens = tokens;
+        }
+    }
+
+    private final Map<String, Integer> endpointIds = new HashMap<>();
+    private final List<String> endpoints = new ArrayList<>();  // "METHOD url-without-query"
+    private final Map<String, Integer> locationIds = new HashMap<>();
+    private final List<int[]> locations = new ArrayList<>();   // {endpoint id, tokens indexed}
+    private final Map<Long, int[]> postings = new HashMap<>(); // token hash -> location ids, [0] = size
+    private volatile boolean dirty;
+    private volatile int locationCount;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ConcurrentLinkedQueue<Observation> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+
+    /** Records the values of one request's candidate locations; never blocks. */
+    void observe(String method, String url, List<Candidate> candidates, List<String> locationKeys) {
+        List<String> keys = new ArrayList<>();
+        List<long[]> tokens = new ArrayList<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            String value = candidates.get(i).value;
+            if (value == null || value.isEmpty()) continue;
+            keys.add(locationKeys.get(i));
+            tokens.add(tokens(value));
+        }
+        if (keys.isEmpty()) return;
+        if (queued.incrementAndGet() > MAX_QUEUED) {
+            queued.decrementAndGet();
+        } else {
+            queue.add(new Observation(endpointKey(method, url), keys.toArray(new String[0]), tokens.toArray(new long[0][])));
+        }
+        if (queued.get() >= DRAIN_BATCH && lock.tryLock()) {
+            try {
+                drain();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Caller holds the lock
+    private void drain() {
+        for (Observation o; (o = queue.poll()) != null; ) {
+            queued.decrementAndGet();
+            apply(o);
+        }
+    }
+
+    private void apply(Observation o) {
+        Integer e = endpointIds.get(o.endpoint);
+        for (int i = 0; i < o.locationKeys.length; i++) {
+            if (e == null) {
+                if (locations.size() >= MAX_LOCATIONS) return;
+                e = endpoints.size();
+                endpoints.add(o.endpoint);
+                endpointIds.put(o.endpoint, e);
+            }
+            String lk = e + "|" + o.locationKeys[i];
+            Integer loc = locationIds.get(lk);
+            if (loc == null) {
+                if (locations.size() >= MAX_LOCATIONS) return;
+                loc = locations.size();
+                locations.add(new int[]{e, 0});
+                locationIds.put(lk, loc);
+                locationCount = locations.size();
+            }
+            int[] l = locations.get(loc);
+            if (l[1] >= MAX_TOKENS_PER_LOCATION) continue;
+            for (long h : o.tokens[i]) {
+                if (post(h, loc)) {
+                    dirty = true;
+                    if (++l[1] >= MAX_TOKENS_PER_LOCATION) break;
+                }
+            }
+        }
+    }
+
+    /** Endpoints ("METHOD url-without-query") whose locations have carried any of {@code ids}. */
+    public Set<String> endpointsFor(Iterable<String> ids) {
+        lock.lock();
+        try {
+            drain();
+            Set<String> out = new LinkedHashSet<>();
+            for (String id : ids) {
+                int[] p = postings.getOrDefault(idHash(id), EMPTY);
+                for (int k = 1; k <= (p.length == 0 ? 0 : p[0]); k++) out.add(endpoints.get(locations.get(p[k])[0]));
+            }
+            return out;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Locations indexed so far, without waiting for the lock (metrics gauge). */
+    public int locationCount() {
+        return locationCount;
+    }
+
+    public boolean dirty() {
+        return dirty || queued.get() > 0;
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            queue.clear();
+            queued.set(0);
+            endpointIds.clear();
+            endpoints.clear();
+            locationIds.clear();
+            locations.clear();
+            postings.clear();
+            locationCount = 0;
+            dirty = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public static String endpointKey(String method, String url) {
+        String u = url == null ? "" : url;
+        int q = u.indexOf('?');
+        return method + ' ' + (q >= 0 ? u.substring(0, q) : u);
+    }
+
+    // Appends a posting unless present; false when nothing changed
+    private boolean post(long hash, int loc) {
+        int[] p = postings.get(hash);
+        if (p == null) {
+            postings.put(hash, new int[]{1, loc, 0, 0});
+            return true;
+        }
+        int n = p[0];
+        if (n >= MAX_POSTINGS_PER_TOKEN) return false;
+        // Recent locations repeat most, so search from the end
+        for (int k = n; k >= 1; k--) if (p[k] == loc) return false;
+        if (n + 1 >= p.length) {
+            p = Arrays.copyOf(p, Math.min(MAX_POSTINGS_PER_TOKEN + 1, p.length * 2));
+            postings.put(hash, p);
+        }
+        p[n + 1] = loc;
+        p[0] = n + 1;
+        return true;
+    }
+
+    private static long idHash(String id) {
+        // An ID made of token characters is a token itself; otherwise use its longest alphanumeric run
+        if (id == null) return 0;
+        boolean plain = !id.isEmpty();
+        for (int i = 0; i < id.length() && plain; i++) plain = wide(id.charAt(i));
+        if (plain) return fnv(id, 0, id.length());
+        int bestFrom = 0, bestTo = 0;
+        for (int i = 0; i < id.length(); ) {
+            if (!alnum(id.charAt(i))) { i++; continue; }
+            int j = i;
+            while (j < id.length() && alnum(id.charAt(j))) j++;
+            if (j - i > bestTo - bestFrom) { bestFrom = i; bestTo = j; }
+            i = j;
+        }
+        return fnv(id, bestFrom, bestTo);
+    }
+
+    /** Token hashes of a candidate value and of its URL- and base64-decoded forms. */
+    static long[] tokens(String value) {
+        LongSet out = new LongSet();
+        addTokens(value, out);
+        if (value.indexOf('%') >= 0 || value.indexOf('+') >= 0) addTokens(EncodingChain.decUrl(value), out);
+        // Base64 runs (JWT segments, opaque blobs) are decoded and tokenized too
+        for (int i = 0; i < value.length(); ) {
+            if (!base64(value.charAt(i))) { i++; continue; }
+            int j = i;
+            while (j < value.length() && base64(value.charAt(j))) j++;
+            if (j - i >= MIN_BASE64_RUN) {
+                String run = value.substring(i, j);
+                String decoded = EncodingChain.decB64(run).or(() -> EncodingChain.decB64Url(run)).orElse(null);
+                if (decoded != null && mostlyText(decoded)) addTokens(decoded, out);
+            }
+            i = j;
+        }
+        return out.toArray();
+    }
+
+    private static void addTokens(String s, LongSet out) {
+        for (int i = 0; i < s.length(); ) {
+            if (!wide(s.charAt(i))) { i++; continue; }
+            int j = i;
+            while (j < s.length() && wide(s.charAt(j))) j++;
+            out.add(fnv(s, i, j));
+            // Alphanumeric runs inside a wide token ("user-1001" also yields "user" and "1001")
+            for (int a = i; a < j; ) {
+                if (!alnum(s.charAt(a))) { a++; continue; }
+                int b = a;
+                while (b < j && alnum(s.charAt(b))) b++;
+                if (a != i || b != j) out.add(fnv(s, a, b));
+                a = b;
+            }
+            i = j;
+        }
+    }
+
+    private static boolean alnum(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean wide(char c) {
+        return alnum(c) || c == '.' || c == '_' || c == '-' || c == '@' || c == '+';
+    }
+
+    private static boolean base64(char c) {
+        // '=' is left out so "key=value" splits; decoding re-pads
+        return alnum(c) || c == '+' || c == '/' || c == '-' || c == '_';
+    }
+
+    private static boolean mostlyText(String s) {
+        int printable = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 0x20 && c < 0x7f || c == '\n' || c == '\r' || c == '\t') printable++;
+        }
+        return printable * 10 >= s.length() * 9;
+    }
+
+    // FNV-1a over UTF-16 units; tokens are hashed without allocating substrings
+    private static long fnv(String s, int from, int to) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = from; i < to; i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    public void write(DataOutputStream out) throws IOException {
+        lock.lock();
+        try {
+            drain();
+            writeLocked(out);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void writeLocked(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(endpoints.size());
+        for (String e : endpoints) out.writeUTF(e);
+        out.writeInt(locations.size());
+        // Location keys are only needed to de-duplicate while observing; stored alongside their slot
+        String[] keys = new String[locations.size()];
+        for (Map.Entry<String, Integer> e : locationIds.entrySet()) keys[e.getValue()] = e.getKey();
+        for (int i = 0; i < keys.length; i++) {
+            out.writeUTF(keys[i]);
+            out.writeInt(locations.get(i)[0]);
+            out.writeInt(locations.get(i)[1]);
+        }
+        out.writeInt(postings.size());
+        for (Map.Entry<Long, int[]> e : postings.entrySet()) {
+            int[] p = e.getValue();
+            out.writeLong(e.getKey());
+            out.writeInt(p[0]);
+            for (int k = 1; k <= p[0]; k++) out.writeInt(p[k]);
+        }
+        dirty = false;
+    }
+
+    public void read(DataInputStream in) throws IOException {
+        lock.lock();
+        try {
+            readLocked(in);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void readLocked(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) throw new IOException("Unrecognised value index file");
+        clear();
+        int ne = in.readInt();
+        for (int i = 0; i < ne; i++) {
+            String e = in.readUTF();
+            endpointIds.put(e, i);
+            endpoints.add(e);
+        }
+        int nl = in.readInt();
+        for (int i = 0; i < nl; i++) {
+            locationIds.put(in.readUTF(), i);
+            locations.add(new int[]{in.readInt(), in.readInt()});
+        }
+        int np = in.readInt();
+        for (int i = 0; i < np; i++) {
+            long h = in.readLong();
+            int n = in.readInt();
+            int[] p = new int[n + 1];
+            p[0] = n;
+            for (int k = 1; k <= n; k++) p[k] = in.readInt();
+            postings.put(h, p);
+        }
+        locationCount = locations.size();
+        dirty = false;
+    }
+
+    /** Small open-addressing set of longs; avoids boxing on the per-request path. */
+    private static final class LongSet {
+        private long[] slots = new long[32];
+        private boolean[] used = new boolean[32];
+        private int size;
+
+        void add(long v) {
+            if ((size + 1) * 2 > slots.length) grow();
+            int mask = slots.length - 1;
+            int i = (int) (v ^ (v >>> 32)) & mask;
+            while (used[i]) {
+                if (slots[i] == v) return;
+                i = (i + 1) & mask;
+            }
+            used[i] = true;
+            slots[i] = v;
+            size++;
+        }
+
+        long[] toArray() {
+            long[] out = new long[size];
+            int n = 0;
+            for (int i = 0; i < slots.length; i++) if (used[i]) out[n++] = slots[i];
+            return out;
+        }
+
+        private void grow() {
+            long[] oldSlots = slots;
+            boolean[] oldUsed = used;
+            slots = new long[oldSlots.length * 2];
+            used = new boolean[oldSlots.length * 2];
+            size = 0;
+            for (int i = 0; i < oldSlots.length; i++) if (oldUsed[i]) add(oldSlots[i]);
+        }
+    }
+}
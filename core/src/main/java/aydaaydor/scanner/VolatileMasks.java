@@ -0,0 +1,95 @@
+package aydaaydor.scanner;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * JSON paths learned to be volatile (timestamps, nonces, request IDs) per route, kept as sorted path-hash
+ * arrays that {@link JsonFingerprint} skips while hashing. A path is learned when two responses to the same
+ * request have the same shape but a different value there: either an extra send of a base request, or the
+ * same request seen again in traffic. Pairs where the shape changed, or where most values changed, say
+ * nothing about noise and are ignored.
+ */
+final class VolatileMasks {
+    private static final long[] NONE = new long[0];
+    private static final int MAX_ROUTES = 4096;
+    private static final int MAX_PATHS_PER_ROUTE = 64;
+    private static final int MAX_SEEN_REQUESTS = 128;
+    private static final int PROBES_PER_ROUTE = 1;
+
+    private final Map<String, long[]> masks = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, long[]> eldest) {
+            if (size() <= MAX_ROUTES) return false;
+            paths -= eldest.getValue().length; // an evicted route's paths are no longer learned
+            return true;
+        }
+    };
+    private final Map<String, Integer> probes = lru(MAX_ROUTES);
+    private final Map<String, long[]> lastLeaves = lru(MAX_SEEN_REQUESTS); // request key -> leaves of its last response
+    private int paths; // across all routes still held
+
+    /** Sorted path hashes to skip on {@code route}; shared, must not be modified. */
+    synchronized long[] mask(String route) {
+        return masks.getOrDefault(route, NONE);
+    }
+
+    /** True while {@code route} still deserves an extra send of a base request to learn from. */
+    synchronized boolean claimProbe(String route) {
+        int n = probes.getOrDefault(route, 0);
+        if (n >= PROBES_PER_ROUTE) return false;
+        probes.put(route, n + 1);
+        return true;
+    }
+
+    /** Passive learning: compares with the previous response to the same request, then remembers this one. */
+    synchronized void observe(String route, String requestKey, long[] leaves) {
+        long[] previous = lastLeaves.put(requestKey, leaves);
+        if (previous != null) learn(route, previous, leaves);
+    }
+
+    /** Learns from two responses to the same request, as {@link JsonFingerprint#leaves} triples. */
+    synchronized void learn(String route, long[] a, long[] b) {
+        if (a.length != b.length || a.length == 0) return;
+        long[] changed = new long[a.length / 3];
+        int n = 0;
+        for (int i = 0; i < a.length; i += 3) {
+            // Same paths, same occurrence counts, or the content itself changed
+            if (a[i] != b[i] || a[i + 1] != b[i + 1]) return;
+            if (a[i + 2] != b[i + 2]) changed[n++] = a[i];
+        }
+        if (n == 0 || n * 2 > changed.length) return;
+        long[] mask = masks.getOrDefault(route, NONE);
+        long[] merged = Arrays.copyOf(mask, Math.min(MAX_PATHS_PER_ROUTE, mask.length + n));
+        int size = mask.length;
+        for (int k = 0; k < n && size < merged.length; k++) {
+            if (Arrays.binarySearch(mask, changed[k]) < 0) merged[size++] = changed[k];
+        }
+        if (size == mask.length) return;
+        merged = Arrays.copyOf(merged, size);
+        Arrays.sort(merged);
+        masks.put(route, merged);
+        paths += size - mask.length;
+    }
+
+    synchronized int pathCount() {
+        return paths;
+    }
+
+    synchronized void clear() {
+        masks.clear();
+        probes.clear();
+        lastLeaves.clear();
+        paths = 0;
+    }
+
+    private static <V> Map<String, V> lru(int max) {
+        return new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > max;
+            }
+        };
+    }
+}
@@ -0,0 +1,69 @@
+package aydaaydor.scanner;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BodyHashTest {
+    @Test
+    void matchesTheReferenceXxh64Vectors() {
+        assertEquals(0xEF46DB3751D8E999L, BodyHash.hash(""));
+        assertEquals(0x44BC2CF5AD770999L, BodyHash.hash("abc"));
+    }
+
+    @Test
+    void trimmedIgnoresSurroundingWhitespace() {
+        long plain = BodyHash.trimmed(bytes("{\"id\":1}"));
+        assertEquals(plain, BodyHash.trimmed(bytes("\r\n  {\"id\":1}\n\t")));
+        assertEquals(BodyHash.hash(""), BodyHash.trimmed(bytes(" \n ")));
+        assertEquals(BodyHash.hash(""), BodyHash.trimmed(null));
+    }
+
+    @Test
+    void innerWhitespaceStillCounts() {
+        assertTrue(BodyHash.trimmed(bytes("a b")) != BodyHash.trimmed(bytes("ab")));
+    }
+
+    @Test
+    void subrangeHashesLikeACopy() {
+        byte[] b = bytes("prefix|the interesting part|suffix");
+        int from = 7, to = 27;
+        assertEquals(BodyHash.hash(new String(Arrays.copyOfRange(b, from, to), StandardCharsets.UTF_8)),
+                BodyHash.hash(b, from, to));
+    }
+
+    @Test
+    void chunkedUpdatesMatchOneShot() {
+        for (int len : new int[]{0, 1, 31, 32, 33, 63, 64, 1000}) {
+            byte[] b = new byte[len];
+            for (int i = 0; i < len; i++) b[i] = (byte) (i * 131 + 7);
+            long expected = BodyHash.hash(b, 0, len);
+            for (int chunk : new int[]{1, 7, 32, 100}) {
+                BodyHash.Hasher h = new BodyHash.Hasher();
+                for (int off = 0; off < len; off += chunk) h.update(b, off, Math.min(chunk, len - off));
+                assertEquals(expected, h.digest(), "len " + len + " chunk " + chunk);
+            }
+        }
+    }
+
+    @Test
+    void trimBoundsStopAtContent() {
+        byte[] b = bytes("  ab \n");
+        assertEquals(2, BodyHash.trimStart(b, 0, b.length));
+        assertEquals(4, BodyHash.trimEnd(b, 2, b.length));
+        assertEquals(3, BodyHash.trimStart(b, 3, 3));
+    }
+
+    @Test
+    void differentBodiesHashDifferently() {
+        assertTrue(BodyHash.hash("{\"owner\":\"alice\"}") != BodyHash.hash("{\"owner\":\"bob\"}"));
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,79 @@
+package aydaaydor.scanner;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeniedStringMatcherTest {
+    @Test
+    void asciiIsCaseInsensitive() {
+        DeniedStringMatcher m = DeniedStringMatcher.compile(List.of("Access Denied", "forbidden"));
+        assertTrue(m.containsAny(utf8("<h1>ACCESS DENIED</h1>")));
+        assertTrue(m.containsAny(utf8("403 Forbidden")));
+        assertFalse(m.containsAny(utf8("access was granted")));
+    }
+
+    @Test
+    void cyrillicInAnyCase() {
+        DeniedStringMatcher m = DeniedStringMatcher.compile(List.of("ошибка", "доступ запрещён"));
+        assertTrue(m.containsAny(utf8("<p>Ошибка авторизации</p>")));
+        assertTrue(m.containsAny(utf8("ОШИБКА")));
+        assertTrue(m.containsAny(utf8("Доступ запрещён")));
+        assertTrue(m.containsAny(utf8("ДОСТУП ЗАПРЕЩЁН")));
+        assertFalse(m.containsAny(utf8("Ошибок нет")));
+    }
+
+    @Test
+    void upperCaseNeedleMatchesLowerCaseBody() {
+        // Р and р differ in their UTF-8 lead byte (D0 A0 vs D1 80)
+        DeniedStringMatcher m = DeniedStringMatcher.compile(List.of("НЕВЕРНЫЙ ПАРОЛЬ"));
+        assertTrue(m.containsAny(utf8("неверный пароль")));
+        assertTrue(m.containsAny(utf8("Неверный Пароль")));
+    }
+
+    @Test
+    void latinAndGreekLetters() {
+        DeniedStringMatcher m = DeniedStringMatcher.compile(List.of("échec", "Σφάλμα"));
+        assertTrue(m.containsAny(utf8("ÉCHEC de connexion")));
+        assertTrue(m.containsAny(utf8("ΣΦΆΛΜΑ")));
+        assertTrue(m.containsAny(utf8("σφάλμα")));
+    }
+
+    @Test
+    void twoByteSequenceSplitAcrossChunks() {
+        DeniedStringMatcher m = DeniedStringMatcher.compile(List.of("ошибка"));
+        byte[] body = utf8("xx ОШИБКА");
+        for (int cut = 1; cut < body.length; cut++) {
+            int state = m.advance(0, Arrays.copyOfRange(body, 0, cut), 0, cut);
+            state = m.advance(state, Arrays.copyOfRange(body, cut, body.length), 0, body.length - cut);
+            assertEquals(DeniedStringMatcher.MATCHED, state, "cut at " + cut);
+        }
+    }
+
+    @Test
+    void nonUtf8BytesStandForThemselves() {
+        DeniedStringMatcher m = DeniedStringMatcher.compile(List.of("denied"));
+        // A Latin-1 'É' directly before the needle is not a UTF-8 lead byte here
+        byte[] body = { (byte) 0xC9, 'D', 'e', 'n', 'i', 'e', 'd' };
+        assertTrue(m.containsAny(body));
+    }
+
+    @Test
+    void noNeedles() {
+        DeniedStringMatcher m = DeniedStringMatcher.compile(List.of("", ""));
+        assertTrue(m.isEmpty());
+        assertFalse(m.containsAny(utf8("anything")));
+        assertTrue(m.compiledFrom(List.of("", "")));
+        assertFalse(m.compiledFrom(List.of("x")));
+    }
+
+    private static byte[] utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
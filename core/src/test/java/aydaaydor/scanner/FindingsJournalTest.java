@@ -0,0 +1,112 @@
+package aydaaydor.scanner;
+
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FindingsJournalTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void appendsAndExportsFromAnyRecord() throws IOException {
+        FindingsJournal journal = new FindingsJournal(dir.resolve("findings.journal"));
+        journal.append(List.of(finding("1002"), finding("1003")));
+        journal.append(List.of(finding("1004")));
+        assertEquals(3, journal.count());
+        assertEquals(List.of("1002", "1003", "1004"), testIds(journal, 0));
+        assertEquals(List.of("1004"), testIds(journal, 2));
+        assertEquals(List.of(), testIds(journal, 3));
+    }
+
+    @Test
+    void tornTailIsDroppedByTheNextWriter() throws IOException {
+        Path file = dir.resolve("findings.journal");
+        new FindingsJournal(file).append(List.of(finding("1002"), finding("1003")));
+        // A record header promising more bytes than were written
+        Files.write(file, new byte[] { 0, 0, 0, 100, '{', '"' }, StandardOpenOption.APPEND);
+
+        FindingsJournal journal = new FindingsJournal(file);
+        assertEquals(2, journal.count());
+        journal.append(List.of(finding("1004")));
+        assertEquals(List.of("1002", "1003", "1004"), testIds(journal, 0));
+    }
+
+    @Test
+    void missingIndexIsRebuilt() throws IOException {
+        Path file = dir.resolve("findings.journal");
+        new FindingsJournal(file).append(List.of(finding("1002"), finding("1003")));
+        Files.delete(dir.resolve("findings.journal.idx"));
+
+        FindingsJournal journal = new FindingsJournal(file);
+        assertEquals(0, journal.count());
+        journal.append(List.of(finding("1004")));
+        assertEquals(3, journal.count());
+        assertEquals(List.of("1003", "1004"), testIds(journal, 1));
+    }
+
+    @Test
+    void journalShorterThanItsHeaderStartsOver() throws IOException {
+        Path file = dir.resolve("findings.journal");
+        Files.write(file, new byte[] { 0x41, 0x59, 0x44 });
+
+        FindingsJournal journal = new FindingsJournal(file);
+        journal.append(List.of(finding("1002")));
+        assertEquals(1, journal.count());
+        assertEquals(List.of("1002"), testIds(journal, 0));
+    }
+
+    @Test
+    void foreignFileIsNotOverwritten() throws IOException {
+        Path file = dir.resolve("findings.journal");
+        Files.writeString(file, "not a journal");
+
+        FindingsJournal journal = new FindingsJournal(file);
+        assertThrows(IOException.class, () -> journal.append(List.of(finding("1002"))));
+        assertEquals("not a journal", Files.readString(file));
+    }
+
+    @Test
+    void sarifExportHasOneResultPerFinding() throws IOException {
+        FindingsJournal journal = new FindingsJournal(dir.resolve("findings.journal"));
+        journal.append(List.of(finding("1002"), finding("1003")));
+        Path out = dir.resolve("findings.sarif");
+        assertEquals(2, journal.exportSarif(out, 0));
+        String sarif = Files.readString(out);
+        assertTrue(sarif.contains("\"ruleId\":\"AYDA-IDOR\""));
+        assertFalse(sarif.contains("\"ruleId\":\"AYDA-ACCESS\""));
+    }
+
+    private List<String> testIds(FindingsJournal journal, long since) throws IOException {
+        Path out = Files.createTempFile(dir, "export", ".jsonl");
+        long n = journal.exportJsonLines(out, since);
+        List<String> ids = Files.readAllLines(out, StandardCharsets.UTF_8).stream()
+                .map(line -> JsonParser.parseString(line).getAsJsonObject().get("testId").getAsString())
+                .toList();
+        assertEquals(n, ids.size());
+        return ids;
+    }
+
+    private static Finding finding(String testId) {
+        HttpTarget target = new HttpTarget("example.com", 443, true);
+        String path = "/api/users/" + testId;
+        ScanRequest base = RawRequest.parse(target, ("GET /api/users/1001 HTTP/1.1\r\nHost: example.com\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+        ScanRequest test = RawRequest.parse(target, ("GET " + path + " HTTP/1.1\r\nHost: example.com\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+        ScanResponse baseResponse = RawResponse.of(200, "application/json", "{\"id\":1001}".getBytes(StandardCharsets.UTF_8));
+        ScanResponse testResponse = RawResponse.of(200, "application/json", ("{\"id\":" + testId + "}").getBytes(StandardCharsets.UTF_8));
+        return new Finding("Potential IDOR", "detail", "remediation", "https://example.com" + path, "users", "path segment 3",
+                "1001", testId, "1", null, "users|" + testId, base, baseResponse, test, testResponse);
+    }
+}
@@ -0,0 +1,117 @@
+package aydaaydor.scanner;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonFingerprintTest {
+    @Test
+    void memberOrderDoesNotMatter() throws IOException {
+        assertEquals(fp("{\"a\":1,\"b\":{\"c\":true,\"d\":null}}"), fp("{\"b\":{\"d\":null,\"c\":true},\"a\":1}"));
+    }
+
+    @Test
+    void arrayOrderMatters() throws IOException {
+        assertTrue(fp("[1,2]") != fp("[2,1]"));
+        assertTrue(fp("{\"ids\":[\"a\",\"b\"]}") != fp("{\"ids\":[\"b\",\"a\"]}"));
+    }
+
+    @Test
+    void numbersCompareByValue() throws IOException {
+        assertEquals(fp("{\"n\":1}"), fp("{\"n\":1.0}"));
+        assertEquals(fp("{\"n\":0}"), fp("{\"n\":-0.0}"));
+        assertTrue(fp("{\"n\":1}") != fp("{\"n\":\"1\"}"));
+    }
+
+    @Test
+    void whitespaceDoesNotMatter() throws IOException {
+        assertEquals(fp("{\"a\":[1,2]}"), fp(" {\n  \"a\" : [ 1, 2 ]\n}\n"));
+    }
+
+    @Test
+    void ignoredKeysAreSkippedAtAnyDepth() throws IOException {
+        Set<String> ignored = Set.of("csrf");
+        assertEquals(JsonFingerprint.compute(new StringReader("{\"id\":7,\"meta\":{\"csrf\":\"x1\"}}"), ignored),
+                JsonFingerprint.compute(new StringReader("{\"meta\":{\"csrf\":\"y2\"},\"id\":7}"), ignored));
+        assertTrue(fp("{\"id\":7,\"meta\":{\"csrf\":\"x1\"}}") != fp("{\"id\":7,\"meta\":{\"csrf\":\"y2\"}}"));
+    }
+
+    @Test
+    void maskedPathsFoldArrayIndexes() throws IOException {
+        long items = JsonFingerprint.pathHash(JsonFingerprint.ROOT_PATH, "items");
+        long ts = JsonFingerprint.pathHash(JsonFingerprint.pathHash(items, null), "ts");
+        long[] masked = {ts};
+        String a = "{\"items\":[{\"id\":1,\"ts\":100},{\"id\":2,\"ts\":101}]}";
+        String b = "{\"items\":[{\"id\":1,\"ts\":200},{\"id\":2,\"ts\":205}]}";
+        String c = "{\"items\":[{\"id\":1,\"ts\":200},{\"id\":3,\"ts\":205}]}";
+        assertEquals(masked(a, masked), masked(b, masked));
+        assertTrue(masked(a, masked) != masked(c, masked));
+        // Only the masked path is skipped: a top-level "ts" still counts
+        assertTrue(masked("{\"ts\":1}", masked) != masked("{\"ts\":2}", masked));
+    }
+
+    @Test
+    void pathSinkRecordsEverySubtree() throws IOException {
+        Map<String, Long> paths = new HashMap<>();
+        long root = JsonFingerprint.compute(new StringReader("{\"items\":[{\"owner\":\"alice\"}]}"), null, paths);
+        assertEquals(Long.valueOf(root), paths.get("$"));
+        assertTrue(paths.containsKey("$.items"));
+        assertTrue(paths.containsKey("$.items[0]"));
+        assertTrue(paths.containsKey("$.items[0].owner"));
+        assertEquals(4, paths.size());
+    }
+
+    @Test
+    void leavesGroupScalarsByPath() throws IOException {
+        long[] a = JsonFingerprint.leaves(new StringReader("{\"id\":1,\"tags\":[\"x\",\"y\",\"z\"]}"));
+        assertEquals(6, a.length);
+        long tags = JsonFingerprint.pathHash(JsonFingerprint.pathHash(JsonFingerprint.ROOT_PATH, "tags"), null);
+        long id = JsonFingerprint.pathHash(JsonFingerprint.ROOT_PATH, "id");
+        assertEquals(3L, count(a, tags));
+        assertEquals(1L, count(a, id));
+        assertTrue(a[0] < a[3]);
+
+        long[] b = JsonFingerprint.leaves(new StringReader("{\"tags\":[\"x\",\"y\",\"z\"],\"id\":2}"));
+        assertEquals(value(a, tags), value(b, tags));
+        assertTrue(value(a, id) != value(b, id));
+    }
+
+    @Test
+    void parsingIsLenientButMustConsumeTheDocument() throws IOException {
+        assertEquals(fp("{\"a\":\"b\"}"), fp("{a:'b'}"));
+        assertThrows(IOException.class, () -> fp("{\"a\":1} trailing"));
+    }
+
+    private static long fp(String json) throws IOException {
+        return JsonFingerprint.compute(new StringReader(json), null);
+    }
+
+    private static long masked(String json, long[] maskedPaths) throws IOException {
+        Arrays.sort(maskedPaths);
+        return JsonFingerprint.compute(new StringReader(json), null, maskedPaths);
+    }
+
+    private static long count(long[] leaves, long path) {
+        return leaves[index(leaves, path) + 1];
+    }
+
+    private static long value(long[] leaves, long path) {
+        return leaves[index(leaves, path) + 2];
+    }
+
+    private static int index(long[] leaves, long path) {
+        for (int i = 0; i < leaves.length; i += 3) {
+            if (leaves[i] == path) return i;
+        }
+        throw new AssertionError("no leaf for path " + path);
+    }
+}
@@ -0,0 +1,132 @@
+package aydaaydor.scanner;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MutationTemplateTest {
+    private static final String BODY = "user=1001&a=b";
+    private static final String REQUEST = "POST /api/users/1001/orders?id=1001 HTTP/1.1\r\n"
+            + "Host: example.com\r\n"
+            + "X-User:  1001 \r\n"
+            + "Content-Type: application/x-www-form-urlencoded\r\n"
+            + "Content-Length: " + BODY.length() + "\r\n"
+            + "\r\n"
+            + BODY;
+
+    @Test
+    void headerValueIsCaseInsensitiveAndTrimmed() {
+        byte[] req = bytes(REQUEST);
+        int body = MutationTemplate.bodyOffset(req);
+        assertEquals(REQUEST.indexOf(BODY), body);
+        assertEquals("1001", slice(req, MutationTemplate.headerValue(req, body, "x-user")));
+        assertEquals(Integer.toString(BODY.length()), slice(req, MutationTemplate.headerValue(req, body, "Content-Length")));
+        assertNull(MutationTemplate.headerValue(req, body, "X-Use"));
+        assertNull(MutationTemplate.headerValue(req, body, "Authorization"));
+    }
+
+    @Test
+    void headerValueIgnoresTheBody() {
+        String raw = "GET / HTTP/1.1\r\nHost: example.com\r\n\r\nX-User: 1001";
+        byte[] req = bytes(raw);
+        assertNull(MutationTemplate.headerValue(req, MutationTemplate.bodyOffset(req), "X-User"));
+    }
+
+    @Test
+    void pathSegmentFollowsSplitIndexing() {
+        byte[] req = bytes(REQUEST);
+        assertEquals("", slice(req, MutationTemplate.pathSegment(req, 0)));
+        assertEquals("api", slice(req, MutationTemplate.pathSegment(req, 1)));
+        assertEquals("1001", slice(req, MutationTemplate.pathSegment(req, 3)));
+        assertEquals("orders", slice(req, MutationTemplate.pathSegment(req, 4)));
+        assertNull(MutationTemplate.pathSegment(req, 5));
+        assertNull(MutationTemplate.pathSegment(req, -1));
+        assertEquals("id=1001", slice(req, MutationTemplate.rawQuery(req)));
+    }
+
+    @Test
+    void locateRejectsAStaleCandidate() {
+        byte[] req = bytes(REQUEST);
+        assertNotNull(MutationTemplate.locate(req, Candidate.forPathSegment(3, "1001")));
+        assertNull(MutationTemplate.locate(req, Candidate.forPathSegment(3, "1002")));
+        assertNull(MutationTemplate.locate(req, Candidate.forHeader("X-User", "1002")));
+    }
+
+    @Test
+    void bodySlotRewritesContentLength() {
+        byte[] req = bytes(REQUEST);
+        int at = REQUEST.indexOf("1001", REQUEST.indexOf(BODY));
+        MutationTemplate t = MutationTemplate.compile(req, new int[] { at }, new int[] { at + 4 });
+        String body = "user=100200&a=b";
+        assertEquals(expected(REQUEST.replace("user=1001", "user=100200"), body), string(t.render("100200")));
+    }
+
+    @Test
+    void sameLengthValueKeepsContentLength() {
+        byte[] req = bytes(REQUEST);
+        int at = REQUEST.indexOf("1001", REQUEST.indexOf(BODY));
+        MutationTemplate t = MutationTemplate.compile(req, new int[] { at }, new int[] { at + 4 });
+        assertArrayEquals(bytes(REQUEST.replace("user=1001", "user=1002")), t.render("1002"));
+    }
+
+    @Test
+    void multiSlotValuesFollowCompileOrder() {
+        byte[] req = bytes(REQUEST);
+        int path = REQUEST.indexOf("1001");
+        int header = REQUEST.indexOf("1001", REQUEST.indexOf("X-User"));
+        int body = REQUEST.indexOf("1001", REQUEST.indexOf(BODY));
+        // Body slot first, then a header before Content-Length, then the path: sorted internally, rendered by position
+        MutationTemplate t = MutationTemplate.compile(req,
+                new int[] { body, header, path }, new int[] { body + 4, header + 4, path + 4 });
+        assertEquals(3, t.slots());
+        String out = string(t.render("77", "888888", "9"));
+        String expected = REQUEST
+                .replace("/users/1001/", "/users/9/")
+                .replace("X-User:  1001 ", "X-User:  888888 ")
+                .replace("user=1001", "user=77");
+        assertEquals(expected(expected, "user=77&a=b"), out);
+    }
+
+    @Test
+    void bodySlotBeforeContentLengthHeader() {
+        // Content-Length is the first header here, so the splice for it comes before the header slot
+        String body = "{\"id\":\"1001\"}";
+        String raw = "PUT /x HTTP/1.1\r\nContent-Length: " + body.length() + "\r\nX-User: 1001\r\n\r\n" + body;
+        byte[] req = bytes(raw);
+        int header = raw.indexOf("1001");
+        int slot = raw.indexOf("1001", raw.indexOf(body));
+        MutationTemplate t = MutationTemplate.compile(req, new int[] { slot, header }, new int[] { slot + 4, header + 4 });
+        String out = string(t.render("10", "20"));
+        assertEquals("PUT /x HTTP/1.1\r\nContent-Length: 11\r\nX-User: 20\r\n\r\n{\"id\":\"10\"}", out);
+    }
+
+    @Test
+    void overlappingSlotsAreRejected() {
+        byte[] req = bytes(REQUEST);
+        int at = REQUEST.indexOf("1001");
+        assertNull(MutationTemplate.compile(req, new int[] { at, at + 2 }, new int[] { at + 4, at + 6 }));
+        assertNull(MutationTemplate.compile(req, new int[] { at }, new int[] { req.length + 1 }));
+    }
+
+    private static String expected(String request, String body) {
+        return request.replace("Content-Length: " + BODY.length(), "Content-Length: " + body.length());
+    }
+
+    private static String slice(byte[] req, int[] range) {
+        assertNotNull(range);
+        return new String(req, range[0], range[1] - range[0], StandardCharsets.ISO_8859_1);
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static String string(byte[] b) {
+        return new String(b, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,86 @@
+package aydaaydor.scanner;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScanEngineTest {
+    private static final Set<String> NO_KEYS = Set.of();
+
+    @Test
+    void sameTemplateWithAnotherUsersDataIsDifferent() {
+        ResponseFingerprint base = html("1001", "Alice Andersson", "alice@example.com", "+1 555 0100");
+        ResponseFingerprint test = html("1002", "Bob Li", "bob@example.org", "+1 555 0199");
+        // The SimHash alone cannot tell these apart
+        assertTrue(SimHash.distance(base.simHash, test.simHash) <= 3);
+        assertTrue(ScanEngine.compareFingerprints(base, test, 0));
+        assertTrue(ScanEngine.compareFingerprints(base, test, 3));
+    }
+
+    @Test
+    void sameLengthDataChangeIsDifferentByDefault() {
+        ResponseFingerprint base = html("1001", "Alice", "alice@example.com", "+1 555 0100");
+        ResponseFingerprint test = html("1002", "Carol", "carol@example.com", "+1 555 0101");
+        assertEquals(base.maskedLength, test.maskedLength);
+        assertTrue(ScanEngine.compareFingerprints(base, test, 0));
+    }
+
+    @Test
+    void reflectedIdAloneIsNotADifference() {
+        // A not-found page that echoes the requested ID, for two IDs of different length
+        ResponseFingerprint a = ResponseContext.fingerprintOf(200, bytes("<p>No user 1002 here</p>"), NO_KEYS, "1001", "1002");
+        ResponseFingerprint b = ResponseContext.fingerprintOf(200, bytes("<p>No user 98765 here</p>"), NO_KEYS, "1001", "98765");
+        assertFalse(ScanEngine.compareFingerprints(a, b, 0));
+    }
+
+    @Test
+    void onlyWholeTokensAreMasked() {
+        byte[] body = bytes("id=1001 ref=X10012 n=1001");
+        assertEquals("id= ref=X10012 n=", new String(ResponseContext.withoutValues(body, new byte[][] { bytes("1001") }), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void jsonIsComparedStructurally() {
+        ResponseFingerprint a = ResponseContext.fingerprintOf(200, bytes("{\"id\":1,\"name\":\"a\"}"), NO_KEYS);
+        ResponseFingerprint b = ResponseContext.fingerprintOf(200, bytes("{ \"name\": \"a\", \"id\": 1 }"), NO_KEYS);
+        ResponseFingerprint c = ResponseContext.fingerprintOf(200, bytes("{\"id\":2,\"name\":\"a\"}"), NO_KEYS);
+        assertFalse(ScanEngine.compareFingerprints(a, b, 0));
+        assertTrue(ScanEngine.compareFingerprints(a, c, 0));
+    }
+
+    @Test
+    void jsonAgainstHtmlFallsBackToLength() {
+        ResponseFingerprint json = ResponseContext.fingerprintOf(200, bytes("{\"a\":1}"), NO_KEYS);
+        ResponseFingerprint html = ResponseContext.fingerprintOf(200, bytes("<p>ok</p>"), NO_KEYS);
+        assertTrue(ScanEngine.compareFingerprints(json, html, 0));
+    }
+
+    @Test
+    void boundedBodiesCompareByFullHash() {
+        ResponseFingerprint a = new ResponseFingerprint(200, 5_000_000, 1L, false, null, 0L, true);
+        ResponseFingerprint b = new ResponseFingerprint(200, 5_000_000, 2L, false, null, 0L, true);
+        assertTrue(ScanEngine.compareFingerprints(a, b, 64));
+        assertFalse(ScanEngine.compareFingerprints(a, a, 0));
+    }
+
+    // A 16 KB profile page: the same template, one user's details
+    private static ResponseFingerprint html(String id, String name, String email, String phone) {
+        StringBuilder sb = new StringBuilder("<html><head><title>Profile</title></head><body><nav>");
+        for (int i = 0; sb.length() < 16 * 1024; i++) {
+            sb.append("<a href=\"/section/").append(i).append("\">Section ").append(i).append("</a>");
+        }
+        sb.append("</nav><main><h1>User ").append(id).append("</h1><dl><dt>Name</dt><dd>").append(name)
+                .append("</dd><dt>Email</dt><dd>").append(email).append("</dd><dt>Phone</dt><dd>").append(phone)
+                .append("</dd></dl></main></body></html>");
+        return ResponseContext.fingerprintOf(200, bytes(sb.toString()), NO_KEYS, "1001", id);
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
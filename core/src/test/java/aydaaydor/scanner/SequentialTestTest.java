@@ -0,0 +1,56 @@
+package aydaaydor.scanner;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SequentialTestTest {
+    // The confirmation parameters ScanEngine uses: the bounds are +-ln(19)
+    private static SequentialTest test() {
+        return new SequentialTest(0.95, 0.5, 0.05, 0.05);
+    }
+
+    @Test
+    void continuesUntilEnoughSupport() {
+        SequentialTest t = test();
+        assertEquals(SequentialTest.Verdict.CONTINUE, t.verdict());
+        for (int i = 0; i < 4; i++) {
+            t.observe(true);
+            assertEquals(SequentialTest.Verdict.CONTINUE, t.verdict());
+        }
+        t.observe(true);
+        assertEquals(SequentialTest.Verdict.ACCEPT, t.verdict());
+        assertEquals(5, t.observations());
+    }
+
+    @Test
+    void twoRefutationsReject() {
+        SequentialTest t = test();
+        t.observe(false);
+        assertEquals(SequentialTest.Verdict.CONTINUE, t.verdict());
+        t.observe(false);
+        assertEquals(SequentialTest.Verdict.REJECT, t.verdict());
+    }
+
+    @Test
+    void oneRefutationOutweighsSeveralSupports() {
+        SequentialTest t = test();
+        for (int i = 0; i < 4; i++) t.observe(true);
+        t.observe(false);
+        assertEquals(SequentialTest.Verdict.CONTINUE, t.verdict());
+        for (int i = 0; i < 4; i++) t.observe(true);
+        assertEquals(SequentialTest.Verdict.CONTINUE, t.verdict());
+        t.observe(true);
+        assertEquals(SequentialTest.Verdict.ACCEPT, t.verdict());
+        assertEquals(10, t.observations());
+    }
+
+    @Test
+    void stricterAlphaNeedsMoreSupport() {
+        SequentialTest t = new SequentialTest(0.95, 0.5, 0.001, 0.05);
+        for (int i = 0; i < 10; i++) t.observe(true);
+        assertEquals(SequentialTest.Verdict.CONTINUE, t.verdict());
+        t.observe(true);
+        assertEquals(SequentialTest.Verdict.ACCEPT, t.verdict());
+    }
+}
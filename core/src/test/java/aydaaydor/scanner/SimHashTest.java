@@ -0,0 +1,54 @@
+package aydaaydor.scanner;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SimHashTest {
+    @Test
+    void identicalBodiesHaveTheSameHash() {
+        byte[] a = bytes("<p>Order 4100 shipped to Alice</p>");
+        assertEquals(SimHash.compute(a, 0, a.length), SimHash.compute(a.clone(), 0, a.length));
+    }
+
+    @Test
+    void tokensAreCaseInsensitiveAndPunctuationIsIgnored() {
+        byte[] a = bytes("Order shipped.");
+        byte[] b = bytes("ORDER,   shipped!");
+        assertEquals(SimHash.compute(a, 0, a.length), SimHash.compute(b, 0, b.length));
+    }
+
+    @Test
+    void aFewChangedTokensInALargePageBarelyMove() {
+        byte[] a = page("Alice");
+        byte[] b = page("Bob");
+        assertTrue(SimHash.distance(SimHash.compute(a, 0, a.length), SimHash.compute(b, 0, b.length)) <= 3);
+    }
+
+    @Test
+    void unrelatedBodiesAreFarApart() {
+        byte[] a = page("Alice");
+        byte[] b = bytes("Access denied. You do not have permission to view this resource.");
+        assertTrue(SimHash.distance(SimHash.compute(a, 0, a.length), SimHash.compute(b, 0, b.length)) > 10);
+    }
+
+    @Test
+    void subrangeIsHashedOnItsOwn() {
+        byte[] b = bytes("xxx<p>Order shipped</p>yyy");
+        byte[] inner = bytes("<p>Order shipped</p>");
+        assertEquals(SimHash.compute(inner, 0, inner.length), SimHash.compute(b, 3, b.length - 3));
+    }
+
+    private static byte[] page(String name) {
+        StringBuilder sb = new StringBuilder("<html><body><h1>Profile of ").append(name).append("</h1>");
+        for (int i = 0; i < 300; i++) sb.append("<li>Navigation item ").append(i).append(" with static text</li>");
+        return bytes(sb.append("</body></html>").toString());
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,74 @@
+package aydaaydor.scanner;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VolatileMasksTest {
+    // JsonFingerprint.leaves triples: path hash, occurrence count, value hash
+    private static final long[] BASE = { 10, 1, 100, 20, 1, 200, 30, 1, 300 };
+
+    @Test
+    void learnsThePathThatChanged() {
+        VolatileMasks m = new VolatileMasks();
+        m.learn("GET /a", BASE, new long[] { 10, 1, 100, 20, 1, 201, 30, 1, 300 });
+        assertArrayEquals(new long[] { 20 }, m.mask("GET /a"));
+        assertEquals(0, m.mask("GET /b").length);
+        assertEquals(1, m.pathCount());
+    }
+
+    @Test
+    void masksStaySortedAndDistinct() {
+        VolatileMasks m = new VolatileMasks();
+        m.learn("r", BASE, new long[] { 10, 1, 100, 20, 1, 200, 30, 1, 301 });
+        m.learn("r", BASE, new long[] { 10, 1, 101, 20, 1, 200, 30, 1, 300 });
+        m.learn("r", BASE, new long[] { 10, 1, 102, 20, 1, 200, 30, 1, 300 });
+        assertArrayEquals(new long[] { 10, 30 }, m.mask("r"));
+        assertEquals(2, m.pathCount());
+    }
+
+    @Test
+    void shapeChangesAndWholesaleChangesTeachNothing() {
+        VolatileMasks m = new VolatileMasks();
+        m.learn("r", BASE, new long[] { 10, 1, 100, 20, 2, 201, 30, 1, 300 }); // occurrence count changed
+        m.learn("r", BASE, new long[] { 10, 1, 100, 21, 1, 201, 30, 1, 300 }); // different path
+        m.learn("r", BASE, new long[] { 10, 1, 101, 20, 1, 201, 30, 1, 301 }); // most values changed
+        m.learn("r", BASE, new long[] { 10, 1, 100 });                         // different length
+        assertEquals(0, m.mask("r").length);
+        assertEquals(0, m.pathCount());
+    }
+
+    @Test
+    void passiveObservationComparesWithTheLastResponse() {
+        VolatileMasks m = new VolatileMasks();
+        m.observe("r", "GET /a?id=1", BASE);
+        m.observe("r", "GET /a?id=2", new long[] { 10, 1, 100, 20, 1, 201, 30, 1, 300 });
+        assertEquals(0, m.mask("r").length);
+        m.observe("r", "GET /a?id=1", new long[] { 10, 1, 100, 20, 1, 200, 30, 1, 301 });
+        assertArrayEquals(new long[] { 30 }, m.mask("r"));
+    }
+
+    @Test
+    void oneProbePerRoute() {
+        VolatileMasks m = new VolatileMasks();
+        assertTrue(m.claimProbe("r"));
+        assertFalse(m.claimProbe("r"));
+        assertTrue(m.claimProbe("s"));
+    }
+
+    @Test
+    void pathCountFollowsEviction() {
+        VolatileMasks m = new VolatileMasks();
+        int routes = 5000;
+        for (int i = 0; i < routes; i++) m.learn("route" + i, BASE, new long[] { 10, 1, 100, 20, 1, 201, 30, 1, 300 });
+        int held = 0;
+        for (int i = 0; i < routes; i++) held += m.mask("route" + i).length;
+        assertTrue(held < routes);
+        assertEquals(held, m.pathCount());
+        m.clear();
+        assertEquals(0, m.pathCount());
+    }
+}
@@ -1 +1,4 @@
 rootProject.name = "AydaAydor"
+
+// Montoya-free scanning engine and command line scanner
+include("core")
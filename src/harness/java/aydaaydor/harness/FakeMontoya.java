@@ -0,0 +1,250 @@
+package aydaaydor.harness;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.http.Http;
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.http.message.HttpHeader;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.params.HttpParameterType;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+import burp.api.montoya.internal.MontoyaObjectFactory;
+import burp.api.montoya.internal.ObjectFactoryLocator;
+import burp.api.montoya.logging.Logging;
+import burp.api.montoya.persistence.Persistence;
+import burp.api.montoya.persistence.Preferences;
+import burp.api.montoya.scanner.audit.issues.AuditIssue;
+import burp.api.montoya.sitemap.SiteMap;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+
+/**
+ * The slice of Montoya that {@code AydaScanner} touches, implemented in-process. Outgoing requests go to the
+ * {@link StubTarget} whatever their recorded host, issues are collected instead of added to a site map, and
+ * Montoya's static factories are served by a harness object factory.
+ */
+final class FakeMontoya {
+    /** An issue as the scanner raised it. */
+    static final class Finding {
+        final String name;
+        final String url;
+        final String detail;
+
+        Finding(String name, String url, String detail) {
+            this.name = name;
+            this.url = url;
+            this.detail = detail;
+        }
+    }
+
+    // Restricted by java.net.http or meaningless once the request is re-targeted
+    private static final Set<String> DROPPED_HEADERS = Set.of("host", "connection", "content-length", "expect", "upgrade",
+            "keep-alive", "transfer-encoding", "te", "trailer", "proxy-connection", "http2-settings");
+
+    private final URI target;
+    private final boolean verbose;
+    private final HttpClient client;
+    private final List<Finding> findings = new CopyOnWriteArrayList<>();
+    private final Map<String, Object> prefs = new ConcurrentHashMap<>();
+    final MontoyaApi api;
+
+    FakeMontoya(int stubPort, int clientThreads, boolean verbose) {
+        this.target = URI.create("http://127.0.0.1:" + stubPort);
+        this.verbose = verbose;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(Math.max(1, clientThreads), r -> {
+                    Thread t = new Thread(r, "replay-http");
+                    t.setDaemon(true);
+                    return t;
+                }))
+                .build();
+        Http http = Proxies.of(Http.class, (m, a) -> {
+            switch (m) {
+                case "sendRequest": return send((HttpRequest) a[0]);
+                case "sendRequests": return sendAll((List<?>) a[0]);
+                case "registerHttpHandler": return null;
+                default: throw Proxies.unsupported(Http.class, m);
+            }
+        });
+        Logging logging = Proxies.of(Logging.class, (m, a) -> {
+            if (m.startsWith("logToError")) System.err.println(a[0]);
+            else if (verbose) System.out.println(a[0]);
+            return null;
+        });
+        SiteMap siteMap = Proxies.of(SiteMap.class, (m, a) -> {
+            if (m.equals("add") && a[0] instanceof AuditIssue) {
+                AuditIssue issue = (AuditIssue) a[0];
+                findings.add(new Finding(issue.name(), issue.baseUrl(), issue.detail()));
+                return null;
+            }
+            if (m.equals("add")) return null;
+            throw Proxies.unsupported(SiteMap.class, m);
+        });
+        Preferences preferences = Proxies.of(Preferences.class, (m, a) -> {
+            if (m.startsWith("get")) return prefs.get((String) a[0]);
+            if (m.startsWith("set")) { prefs.put((String) a[0], a[1]); return null; }
+            if (m.startsWith("delete")) { prefs.remove((String) a[0]); return null; }
+            throw Proxies.unsupported(Preferences.class, m);
+        });
+        Persistence persistence = Proxies.of(Persistence.class, (m, a) -> {
+            if (m.equals("preferences")) return preferences;
+            throw Proxies.unsupported(Persistence.class, m);
+        });
+        this.api = Proxies.of(MontoyaApi.class, (m, a) -> {
+            switch (m) {
+                case "http": return http;
+                case "logging": return logging;
+                case "siteMap": return siteMap;
+                case "persistence": return persistence;
+                default: throw Proxies.unsupported(MontoyaApi.class, m);
+            }
+        });
+    }
+
+    List<Finding> findings() {
+        return findings;
+    }
+
+    void preference(String key, Object value) {
+        prefs.put(key, value);
+    }
+
+    /**
+     * Points Montoya's static factories ({@code HttpRequest.httpRequest}, {@code ByteArray.byteArray}, ...) at
+     * harness implementations. Factories the scanner does not use answer with inert objects.
+     */
+    static void installObjectFactory() {
+        ObjectFactoryLocator.FACTORY = Proxies.of(MontoyaObjectFactory.class, (m, a) -> {
+            switch (m) {
+                case "byteArray":
+                    return a[0] instanceof String
+                            ? Messages.bytes(((String) a[0]).getBytes(StandardCharsets.ISO_8859_1))
+                            : Messages.bytes((byte[]) a[0]);
+                case "httpService":
+                    if (a.length == 3) return Messages.service((String) a[0], (Integer) a[1], (Boolean) a[2]);
+                    break;
+                case "httpRequest":
+                    if (a.length == 2 && a[0] instanceof HttpService) {
+                        return Messages.request((HttpService) a[0], ((burp.api.montoya.core.ByteArray) a[1]).getBytes());
+                    }
+                    break;
+                case "httpRequestResponse":
+                    return requestResponse((HttpRequest) a[0], (HttpResponse) a[1]);
+                case "parameter":
+                    return Messages.parameter((String) a[0], (String) a[1], (HttpParameterType) a[2]);
+                case "httpHeader":
+                    if (a.length == 2) return Messages.header((String) a[0], (String) a[1]);
+                    break;
+                case "auditIssue":
+                    return auditIssue(a);
+                default:
+                    break;
+            }
+            for (var method : MontoyaObjectFactory.class.getMethods()) {
+                if (method.getName().equals(m) && method.getParameterCount() == a.length && method.getReturnType().isInterface()) {
+                    return Proxies.inert(method.getReturnType());
+                }
+            }
+            throw Proxies.unsupported(MontoyaObjectFactory.class, m);
+        });
+    }
+
+    private static HttpRequestResponse requestResponse(HttpRequest request, HttpResponse response) {
+        return Proxies.of(HttpRequestResponse.class, (m, a) -> {
+            switch (m) {
+                case "request": return request;
+                case "response": return response;
+                case "hasResponse": return response != null;
+                case "url": return request.url();
+                case "httpService": return request.httpService();
+                case "copyToTempFile": return requestResponse(request, response);
+                case "annotations": return null;
+                case "toString": return request.url();
+                default: throw Proxies.unsupported(HttpRequestResponse.class, m);
+            }
+        });
+    }
+
+    private static AuditIssue auditIssue(Object[] a) {
+        Object last = a[a.length - 1];
+        List<?> evidence = last instanceof Object[] ? Arrays.asList((Object[]) last) : (List<?>) last;
+        return Proxies.of(AuditIssue.class, (m, args) -> {
+            switch (m) {
+                case "name": return a[0];
+                case "detail": return a[1];
+                case "remediation": return a[2];
+                case "baseUrl": return a[3];
+                case "severity": return a[4];
+                case "confidence": return a[5];
+                case "requestResponses": return evidence;
+                case "toString": return a[0] + " at " + a[3];
+                default: throw Proxies.unsupported(AuditIssue.class, m);
+            }
+        });
+    }
+
+    /** Sends a request to the stub and wraps the exchange as Burp would. */
+    HttpRequestResponse send(HttpRequest request) {
+        return sendAsync(request).join();
+    }
+
+    private List<HttpRequestResponse> sendAll(List<?> requests) {
+        List<CompletableFuture<HttpRequestResponse>> inFlight = new ArrayList<>(requests.size());
+        for (Object r : requests) inFlight.add(sendAsync((HttpRequest) r));
+        List<HttpRequestResponse> out = new ArrayList<>(inFlight.size());
+        for (CompletableFuture<HttpRequestResponse> f : inFlight) out.add(f.join());
+        return out;
+    }
+
+    /** Raw response bytes for {@code request}, used to fetch the base responses being replayed. */
+    byte[] fetch(HttpRequest request) {
+        return exchange(request).join();
+    }
+
+    private CompletableFuture<HttpRequestResponse> sendAsync(HttpRequest request) {
+        return exchange(request).thenApply(raw -> requestResponse(request, Messages.response(raw)));
+    }
+
+    private CompletableFuture<byte[]> exchange(HttpRequest request) {
+        java.net.http.HttpRequest.Builder b = java.net.http.HttpRequest.newBuilder(target.resolve(request.path()))
+                .timeout(Duration.ofSeconds(30));
+        for (HttpHeader h : request.headers()) {
+            if (DROPPED_HEADERS.contains(h.name().toLowerCase())) continue;
+            try { b.header(h.name(), h.value()); } catch (IllegalArgumentException ignored) {}
+        }
+        byte[] body = request.body().getBytes();
+        b.method(request.method(), body.length == 0
+                ? java.net.http.HttpRequest.BodyPublishers.noBody()
+                : java.net.http.HttpRequest.BodyPublishers.ofByteArray(body));
+        return client.sendAsync(b.build(), java.net.http.HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(FakeMontoya::raw);
+    }
+
+    private static byte[] raw(java.net.http.HttpResponse<byte[]> resp) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StringBuilder head = new StringBuilder("HTTP/1.1 ").append(resp.statusCode()).append(" \r\n");
+        resp.headers().map().forEach((name, values) -> {
+            if (name.startsWith(":")) return;
+            for (String v : values) head.append(name).append(": ").append(v).append("\r\n");
+        });
+        head.append("\r\n");
+        out.writeBytes(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+        out.writeBytes(resp.body());
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,444 @@
+package aydaaydor.harness;
+
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.core.Range;
+import burp.api.montoya.core.ToolSource;
+import burp.api.montoya.core.ToolType;
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.http.handler.HttpResponseReceived;
+import burp.api.montoya.http.message.HttpHeader;
+import burp.api.montoya.http.message.MimeType;
+import burp.api.montoya.http.message.params.HttpParameter;
+import burp.api.montoya.http.message.params.HttpParameterType;
+import burp.api.montoya.http.message.params.ParsedHttpParameter;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory HTTP messages backed by raw bytes, parsed the way Burp presents them to extensions: parameter
+ * values are raw (not URL-decoded) and carry their offsets in the serialized request.
+ */
+final class Messages {
+    private Messages() {}
+
+    private static final Pattern JSON_MEMBER = Pattern.compile(
+            "\"((?:[^\"\\\\]|\\\\.)*)\"\\s*:\\s*(?:\"((?:[^\"\\\\]|\\\\.)*)\"|(-?\\d+(?:\\.\\d+)?(?:[eE][+-]?\\d+)?|true|false|null))");
+
+    static ByteArray bytes(byte[] b) {
+        return Proxies.of(ByteArray.class, new ByteArrayHandler(b));
+    }
+
+    static HttpService service(String host, int port, boolean secure) {
+        return Proxies.of(HttpService.class, (m, a) -> {
+            switch (m) {
+                case "host": return host;
+                case "port": return port;
+                case "secure": return secure;
+                case "ipAddress": return host;
+                case "toString": return (secure ? "https://" : "http://") + host + ":" + port;
+                default: throw Proxies.unsupported(HttpService.class, m);
+            }
+        });
+    }
+
+    static HttpHeader header(String name, String value) {
+        return Proxies.of(HttpHeader.class, (m, a) -> {
+            switch (m) {
+                case "name": return name;
+                case "value": return value;
+                case "toString": return name + ": " + value;
+                default: throw Proxies.unsupported(HttpHeader.class, m);
+            }
+        });
+    }
+
+    static Range range(int start, int end) {
+        return Proxies.of(Range.class, (m, a) -> {
+            switch (m) {
+                case "startIndexInclusive": return start;
+                case "endIndexExclusive": return end;
+                case "contains": return (Integer) a[0] >= start && (Integer) a[0] < end;
+                case "toString": return "[" + start + ", " + end + ")";
+                default: throw Proxies.unsupported(Range.class, m);
+            }
+        });
+    }
+
+    static HttpParameter parameter(String name, String value, HttpParameterType type) {
+        return Proxies.of(HttpParameter.class, (m, a) -> {
+            switch (m) {
+                case "name": return name;
+                case "value": return value;
+                case "type": return type;
+                case "toString": return type + ":" + name + "=" + value;
+                default: throw Proxies.unsupported(HttpParameter.class, m);
+            }
+        });
+    }
+
+    static HttpRequest request(HttpService service, byte[] raw) {
+        return Proxies.of(HttpRequest.class, new RequestHandler(service, raw));
+    }
+
+    static HttpResponse response(byte[] raw) {
+        return Proxies.of(HttpResponse.class, new ResponseHandler(raw));
+    }
+
+    /** What the proxy hands to HTTP handlers: the response plus the request that produced it. */
+    static HttpResponseReceived responseReceived(HttpRequest request, byte[] rawResponse, ToolType tool, int messageId) {
+        ResponseHandler response = new ResponseHandler(rawResponse);
+        ToolSource source = Proxies.of(ToolSource.class, (m, a) -> {
+            switch (m) {
+                case "toolType": return tool;
+                case "isFromTool":
+                    for (ToolType t : (ToolType[]) a[0]) if (t == tool) return true;
+                    return false;
+                case "toString": return tool.toString();
+                default: throw Proxies.unsupported(ToolSource.class, m);
+            }
+        });
+        return Proxies.of(HttpResponseReceived.class, (m, a) -> {
+            switch (m) {
+                case "initiatingRequest": return request;
+                case "toolSource": return source;
+                case "messageId": return messageId;
+                case "annotations": return null;
+                default: return response.invoke(m, a);
+            }
+        });
+    }
+
+    // Header lines of a raw message: [nameStart, nameEnd, valueStart, valueEnd] per header
+    private static List<int[]> headerLines(byte[] raw, int from, int bodyOffset) {
+        List<int[]> out = new ArrayList<>();
+        int i = from;
+        boolean terminated = bodyOffset >= 2 && raw[bodyOffset - 1] == '\n';
+        int limit = Math.max(from, terminated ? bodyOffset - 2 : bodyOffset);
+        while (i < limit) {
+            int eol = i;
+            while (eol < limit && raw[eol] != '\r' && raw[eol] != '\n') eol++;
+            int colon = i;
+            while (colon < eol && raw[colon] != ':') colon++;
+            if (colon < eol) {
+                int vs = colon + 1;
+                while (vs < eol && raw[vs] == ' ') vs++;
+                out.add(new int[] { i, colon, vs, eol });
+            }
+            i = eol;
+            if (i < limit && raw[i] == '\r') i++;
+            if (i < limit && raw[i] == '\n') i++;
+        }
+        return out;
+    }
+
+    private static int bodyOffset(byte[] raw) {
+        for (int i = 0; i + 3 < raw.length; i++) {
+            if (raw[i] == '\r' && raw[i + 1] == '\n' && raw[i + 2] == '\r' && raw[i + 3] == '\n') return i + 4;
+        }
+        for (int i = 0; i + 1 < raw.length; i++) {
+            if (raw[i] == '\n' && raw[i + 1] == '\n') return i + 2;
+        }
+        return raw.length;
+    }
+
+    private static int lineEnd(byte[] raw) {
+        int i = 0;
+        while (i < raw.length && raw[i] != '\r' && raw[i] != '\n') i++;
+        return i;
+    }
+
+    private static String str(byte[] raw, int from, int to) {
+        return new String(raw, from, Math.max(0, to - from), StandardCharsets.ISO_8859_1);
+    }
+
+    /** Shared parsing of the header block and body for requests and responses. */
+    private abstract static class MessageHandler implements Proxies.Handler {
+        final byte[] raw;
+        final int firstLineEnd;
+        final int bodyOffset;
+        final List<int[]> headers;
+
+        MessageHandler(byte[] raw) {
+            this.raw = raw;
+            this.firstLineEnd = lineEnd(raw);
+            this.bodyOffset = bodyOffset(raw);
+            this.headers = headerLines(raw, Math.min(raw.length, firstLineEnd + 2), bodyOffset);
+        }
+
+        String headerValue(String name) {
+            for (int[] h : headers) {
+                if (str(raw, h[0], h[1]).equalsIgnoreCase(name)) return str(raw, h[2], h[3]);
+            }
+            return null;
+        }
+
+        Object message(String m, Object[] a) {
+            switch (m) {
+                case "headers": {
+                    List<HttpHeader> out = new ArrayList<>();
+                    for (int[] h : headers) out.add(header(str(raw, h[0], h[1]), str(raw, h[2], h[3])));
+                    return out;
+                }
+                case "hasHeader": return headerValue((String) a[0]) != null;
+                case "headerValue": return headerValue((String) a[0]);
+                case "header": {
+                    String v = headerValue((String) a[0]);
+                    return v == null ? null : header((String) a[0], v);
+                }
+                case "bodyOffset": return bodyOffset;
+                case "body": return bytes(Arrays.copyOfRange(raw, bodyOffset, raw.length));
+                case "bodyToString": return str(raw, bodyOffset, raw.length);
+                case "toByteArray": return bytes(raw);
+                case "markers": return List.of();
+                case "toString": return str(raw, 0, raw.length);
+                default: throw Proxies.unsupported(getClass(), m);
+            }
+        }
+    }
+
+    private static final class ResponseHandler extends MessageHandler {
+        private final short status;
+        private final String reason;
+        private final String version;
+
+        ResponseHandler(byte[] raw) {
+            super(raw);
+            String[] parts = str(raw, 0, firstLineEnd).split(" ", 3);
+            this.version = parts.length > 0 ? parts[0] : "HTTP/1.1";
+            short s = 0;
+            try { s = Short.parseShort(parts[1]); } catch (Exception ignored) {}
+            this.status = s;
+            this.reason = parts.length > 2 ? parts[2] : "";
+        }
+
+        @Override
+        public Object invoke(String m, Object[] a) {
+            switch (m) {
+                case "statusCode": return status;
+                case "reasonPhrase": return reason;
+                case "httpVersion": return version;
+                case "statedMimeType":
+                case "inferredMimeType": return mimeType(headerValue("Content-Type"));
+                case "copyToTempFile": return Proxies.of(HttpResponse.class, this);
+                default: return message(m, a);
+            }
+        }
+
+        private static MimeType mimeType(String contentType) {
+            if (contentType == null) return MimeType.NONE;
+            String ct = contentType.toLowerCase(Locale.ROOT);
+            if (ct.contains("json")) return MimeType.JSON;
+            if (ct.contains("html")) return MimeType.HTML;
+            if (ct.contains("xml")) return MimeType.XML;
+            if (ct.contains("javascript")) return MimeType.SCRIPT;
+            if (ct.contains("css")) return MimeType.CSS;
+            if (ct.startsWith("text/")) return MimeType.PLAIN_TEXT;
+            if (ct.contains("png")) return MimeType.IMAGE_PNG;
+            if (ct.contains("jpeg")) return MimeType.IMAGE_JPEG;
+            if (ct.contains("gif")) return MimeType.IMAGE_GIF;
+            if (ct.startsWith("image/")) return MimeType.IMAGE_UNKNOWN;
+            return MimeType.APPLICATION_UNKNOWN;
+        }
+    }
+
+    private static final class RequestHandler extends MessageHandler {
+        private final HttpService service;
+        private final String method;
+        private final int targetStart;
+        private final int targetEnd;
+        private final String version;
+        private List<ParsedHttpParameter> parameters;
+
+        RequestHandler(HttpService service, byte[] raw) {
+            super(raw);
+            this.service = service;
+            int sp1 = 0;
+            while (sp1 < firstLineEnd && raw[sp1] != ' ') sp1++;
+            int sp2 = firstLineEnd;
+            while (sp2 > sp1 && raw[sp2 - 1] != ' ') sp2--;
+            if (sp2 <= sp1 + 1) sp2 = firstLineEnd + 1; // no version
+            this.method = str(raw, 0, sp1);
+            this.targetStart = Math.min(firstLineEnd, sp1 + 1);
+            this.targetEnd = Math.max(targetStart, sp2 - 1);
+            this.version = sp2 <= firstLineEnd ? str(raw, sp2, firstLineEnd) : "HTTP/1.1";
+        }
+
+        @Override
+        public Object invoke(String m, Object[] a) {
+            String target = str(raw, targetStart, targetEnd);
+            int q = target.indexOf('?');
+            switch (m) {
+                case "httpService": return service;
+                case "isInScope": return true;
+                case "method": return method;
+                case "path": return target;
+                case "pathWithoutQuery": return q >= 0 ? target.substring(0, q) : target;
+                case "query": return q >= 0 ? target.substring(q + 1) : "";
+                case "fileExtension": {
+                    String p = q >= 0 ? target.substring(0, q) : target;
+                    int dot = p.lastIndexOf('.');
+                    return dot > p.lastIndexOf('/') ? p.substring(dot + 1) : "";
+                }
+                case "url": {
+                    boolean defaultPort = service.port() == (service.secure() ? 443 : 80);
+                    return (service.secure() ? "https://" : "http://") + service.host()
+                            + (defaultPort ? "" : ":" + service.port()) + target;
+                }
+                case "httpVersion": return version;
+                case "parameters": {
+                    List<ParsedHttpParameter> all = parameters();
+                    if (a.length == 0) return all;
+                    List<ParsedHttpParameter> out = new ArrayList<>();
+                    for (ParsedHttpParameter p : all) if (p.type() == a[0]) out.add(p);
+                    return out;
+                }
+                case "hasParameters": return !parameters().isEmpty();
+                case "copyToTempFile": return Proxies.of(HttpRequest.class, this);
+                case "withService": return request((HttpService) a[0], raw);
+                case "withPath": return request(service, splice(targetStart, targetEnd, (String) a[0]));
+                case "withUpdatedHeader": return request(service, withHeader((String) a[0], (String) a[1]));
+                case "withUpdatedParameters": return withParameters(a);
+                default: return message(m, a);
+            }
+        }
+
+        private synchronized List<ParsedHttpParameter> parameters() {
+            if (parameters == null) {
+                List<ParsedHttpParameter> out = new ArrayList<>();
+                for (int i = targetStart; i < targetEnd; i++) {
+                    if (raw[i] == '?') {
+                        pairs(out, i + 1, targetEnd, (byte) '&', HttpParameterType.URL);
+                        break;
+                    }
+                }
+                for (int[] h : headers) {
+                    if (str(raw, h[0], h[1]).equalsIgnoreCase("Cookie")) pairs(out, h[2], h[3], (byte) ';', HttpParameterType.COOKIE);
+                }
+                String ct = headerValue("Content-Type");
+                String lower = ct == null ? "" : ct.toLowerCase(Locale.ROOT);
+                if (lower.contains("x-www-form-urlencoded")) {
+                    pairs(out, bodyOffset, raw.length, (byte) '&', HttpParameterType.BODY);
+                } else if (lower.contains("json")) {
+                    Matcher mm = JSON_MEMBER.matcher(str(raw, bodyOffset, raw.length));
+                    while (mm.find()) {
+                        int g = mm.group(2) != null ? 2 : 3;
+                        out.add(parsed(mm.group(1), HttpParameterType.JSON, bodyOffset + mm.start(1), bodyOffset + mm.end(1),
+                                bodyOffset + mm.start(g), bodyOffset + mm.end(g)));
+                    }
+                }
+                parameters = out;
+            }
+            return parameters;
+        }
+
+        private void pairs(List<ParsedHttpParameter> out, int from, int to, byte sep, HttpParameterType type) {
+            int i = from;
+            while (i < to) {
+                int end = i;
+                while (end < to && raw[end] != sep) end++;
+                int ns = i;
+                while (ns < end && raw[ns] == ' ') ns++;
+                int eq = ns;
+                while (eq < end && raw[eq] != '=') eq++;
+                if (eq > ns) {
+                    int vs = Math.min(end, eq + 1);
+                    out.add(parsed(str(raw, ns, eq), type, ns, eq, vs, end));
+                }
+                i = end + 1;
+            }
+        }
+
+        private ParsedHttpParameter parsed(String name, HttpParameterType type, int ns, int ne, int vs, int ve) {
+            String value = str(raw, vs, ve);
+            return Proxies.of(ParsedHttpParameter.class, (m, a) -> {
+                switch (m) {
+                    case "name": return name;
+                    case "value": return value;
+                    case "type": return type;
+                    case "nameOffsets": return range(ns, ne);
+                    case "valueOffsets": return range(vs, ve);
+                    case "toString": return type + ":" + name + "=" + value;
+                    default: throw Proxies.unsupported(ParsedHttpParameter.class, m);
+                }
+            });
+        }
+
+        private HttpRequest withParameters(Object[] a) {
+            List<HttpParameter> updates = new ArrayList<>();
+            if (a[0] instanceof HttpParameter[]) updates.addAll(Arrays.asList((HttpParameter[]) a[0]));
+            else for (Object o : (List<?>) a[0]) updates.add((HttpParameter) o);
+            RequestHandler current = this;
+            for (HttpParameter u : updates) {
+                for (ParsedHttpParameter p : current.parameters()) {
+                    if (p.type() == u.type() && p.name().equals(u.name())) {
+                        Range r = p.valueOffsets();
+                        current = new RequestHandler(service, current.splice(r.startIndexInclusive(), r.endIndexExclusive(), u.value()));
+                        break;
+                    }
+                }
+            }
+            return Proxies.of(HttpRequest.class, current);
+        }
+
+        private byte[] withHeader(String name, String value) {
+            for (int[] h : headers) {
+                if (str(raw, h[0], h[1]).equalsIgnoreCase(name)) return splice(h[2], h[3], value);
+            }
+            return raw;
+        }
+
+        // Replaces raw[from, to) and keeps Content-Length in step with the body
+        private byte[] splice(int from, int to, String value) {
+            byte[] v = value.getBytes(StandardCharsets.ISO_8859_1);
+            byte[] out = new byte[raw.length - (to - from) + v.length];
+            System.arraycopy(raw, 0, out, 0, from);
+            System.arraycopy(v, 0, out, from, v.length);
+            System.arraycopy(raw, to, out, from + v.length, raw.length - to);
+            if (from < bodyOffset) return out;
+            RequestHandler h = new RequestHandler(service, out);
+            int bodyLen = out.length - h.bodyOffset;
+            for (int[] hd : h.headers) {
+                if (str(out, hd[0], hd[1]).equalsIgnoreCase("Content-Length")) {
+                    return h.splice(hd[2], hd[3], Integer.toString(bodyLen));
+                }
+            }
+            return out;
+        }
+    }
+
+    private static final class ByteArrayHandler implements Proxies.Handler {
+        private final byte[] b;
+
+        ByteArrayHandler(byte[] b) { this.b = b; }
+
+        @Override
+        public Object invoke(String m, Object[] a) {
+            switch (m) {
+                case "length": return b.length;
+                case "getBytes": return b.clone();
+                case "getByte": return b[(Integer) a[0]];
+                case "subArray":
+                    if (a.length == 1) {
+                        Range r = (Range) a[0];
+                        return bytes(Arrays.copyOfRange(b, r.startIndexInclusive(), r.endIndexExclusive()));
+                    }
+                    return bytes(Arrays.copyOfRange(b, (Integer) a[0], (Integer) a[1]));
+                case "copy":
+                case "copyToTempFile": return bytes(b);
+                case "indexOf":
+                    if (a[0] instanceof String) return str(b, 0, b.length).indexOf((String) a[0]);
+                    throw Proxies.unsupported(ByteArray.class, m);
+                case "toString": return str(b, 0, b.length);
+                default: throw Proxies.unsupported(ByteArray.class, m);
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package aydaaydor.harness;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * Dynamic-proxy stand-ins for Montoya interfaces. Only the methods the scanner actually calls are answered;
+ * anything else fails loudly, so a new dependency on the API shows up as an error instead of a silent null.
+ */
+final class Proxies {
+    private Proxies() {}
+
+    interface Handler {
+        Object invoke(String method, Object[] args) throws Throwable;
+    }
+
+    static <T> T of(Class<T> type, Handler handler) {
+        Object p = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+            Object[] a = args == null ? new Object[0] : args;
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "equals": return proxy == a[0];
+                    case "hashCode": return System.identityHashCode(proxy);
+                    default: break; // toString goes to the handler
+                }
+            }
+            return handler.invoke(method.getName(), a);
+        });
+        return type.cast(p);
+    }
+
+    /** Proxy whose methods all return null, zero or false; for API results the harness never inspects. */
+    static Object inert(Class<?> type) {
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+                (proxy, method, args) -> method.getName().equals("toString") ? type.getSimpleName() : defaultValue(method));
+    }
+
+    static Object defaultValue(Method m) {
+        Class<?> r = m.getReturnType();
+        if (!r.isPrimitive() || r == void.class) return null;
+        if (r == boolean.class) return false;
+        if (r == char.class) return '\0';
+        if (r == byte.class) return (byte) 0;
+        if (r == short.class) return (short) 0;
+        if (r == int.class) return 0;
+        if (r == long.class) return 0L;
+        if (r == float.class) return 0f;
+        return 0d;
+    }
+
+    static UnsupportedOperationException unsupported(Class<?> type, String method) {
+        return new UnsupportedOperationException(type.getSimpleName() + "." + method + " is not implemented by the replay harness");
+    }
+}
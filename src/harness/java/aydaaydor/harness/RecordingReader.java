@@ -0,0 +1,93 @@
+package aydaaydor.harness;
+
+import aydaaydor.cli.HarReader;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/** Loads recorded requests from a HAR file or a Burp "Save items" XML export. */
+final class RecordingReader {
+    private RecordingReader() {}
+
+    /** One recorded request as raw CRLF bytes plus where it was sent. */
+    static final class Recorded {
+        final String host;
+        final int port;
+        final boolean secure;
+        final byte[] raw;
+
+        Recorded(String host, int port, boolean secure, byte[] raw) {
+            this.host = host;
+            this.port = port;
+            this.secure = secure;
+            this.raw = raw;
+        }
+    }
+
+    static List<Recorded> read(Path file) throws Exception {
+        String head;
+        try (Reader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            char[] buf = new char[256];
+            int n = r.read(buf);
+            head = n > 0 ? new String(buf, 0, n).trim() : "";
+        }
+        return head.startsWith("<") ? readBurpXml(file) : readHar(file);
+    }
+
+    private static List<Recorded> readHar(Path file) throws IOException {
+        List<Recorded> out = new ArrayList<>();
+        for (HarReader.Entry e : HarReader.read(file)) {
+            out.add(new Recorded(e.target.host, e.target.port, e.target.secure, e.request));
+        }
+        return out;
+    }
+
+    private static List<Recorded> readBurpXml(Path file) throws Exception {
+        DocumentBuilderFactory f = DocumentBuilderFactory.newInstance();
+        // Burp exports carry an inline DOCTYPE; allow it but never resolve anything external
+        f.setFeature("http://xml.org/sax/features/external-general-entities", false);
+        f.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+        f.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+        f.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+        f.setAttribute(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+        f.setExpandEntityReferences(false);
+        DocumentBuilder b = f.newDocumentBuilder();
+        Document doc = b.parse(file.toFile());
+
+        List<Recorded> out = new ArrayList<>();
+        NodeList items = doc.getElementsByTagName("item");
+        for (int i = 0; i < items.getLength(); i++) {
+            try {
+                Element item = (Element) items.item(i);
+                Element request = child(item, "request");
+                if (request == null) continue;
+                String text = request.getTextContent();
+                byte[] raw = "true".equalsIgnoreCase(request.getAttribute("base64"))
+                        ? Base64.getMimeDecoder().decode(text.trim())
+                        : text.getBytes(StandardCharsets.ISO_8859_1);
+                String host = child(item, "host").getTextContent().trim();
+                int port = Integer.parseInt(child(item, "port").getTextContent().trim());
+                boolean secure = "https".equalsIgnoreCase(child(item, "protocol").getTextContent().trim());
+                out.add(new Recorded(host, port, secure, raw));
+            } catch (Exception ignored) {}
+        }
+        return out;
+    }
+
+    private static Element child(Element parent, String name) {
+        NodeList nodes = parent.getElementsByTagName(name);
+        return nodes.getLength() == 0 ? null : (Element) nodes.item(0);
+    }
+}
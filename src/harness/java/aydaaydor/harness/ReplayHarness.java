@@ -0,0 +1,211 @@
+package aydaaydor.harness;
+
+import aydaaydor.burp.AydaConfig;
+import aydaaydor.config.IdGroup;
+import aydaaydor.metrics.Histogram;
+import aydaaydor.metrics.MetricsRegistry;
+import aydaaydor.burp.AydaScanner;
+import burp.api.montoya.core.ToolType;
+import burp.api.montoya.http.message.requests.HttpRequest;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Replays recorded traffic through {@link AydaScanner#handleHttpResponseReceived} without Burp. Each recorded
+ * request is re-targeted at a local {@link StubTarget}, its response is fetched and handed to the scanner as a
+ * Proxy response, and the scanner's mutations go to the same stub through the fake {@code Http}. When the
+ * queue drains, throughput, stage latency percentiles and findings are printed.
+ *
+ * <pre>
+ * ./gradlew replay --args="--input traffic.har --group users=1001,1002 --owner 1001 --latency-ms 20"
+ * </pre>
+ */
+public final class ReplayHarness {
+    private ReplayHarness() {}
+
+    private static final String USAGE = String.join("\n",
+            "Usage: ReplayHarness --input FILE --group NAME=ID,ID... [options]",
+            "  --input FILE          HAR or Burp XML export to replay",
+            "  --group NAME=IDS      ID group (repeatable); every ID is a known object on the stub",
+            "  --owner IDS           IDs the replayed session owns (default: first ID of each group)",
+            "  --vulnerable REGEX    Stub routes that skip the ownership check (default: .*)",
+            "  --project DIR         Project folder whose aydaaydor/settings.yaml is loaded",
+            "  --latency-ms N        Stub latency per request (default: 0)",
+            "  --jitter-ms N         Extra random stub latency, 0..N (default: 0)",
+            "  --body-bytes N        Approximate size of stub object bodies (default: 512)",
+            "  --stub-threads N      Stub server threads (default: 32)",
+            "  --proxy-threads N     Threads delivering responses to the scanner (default: 4)",
+            "  --threads N           Scanner maxParallelMutations",
+            "  --batch-size N        Scanner batch size",
+            "  --timeout MS          Scanner request timeout",
+            "  --repeat N            Replay the recording N times (default: 1)",
+            "  --no-dedup            Clear the scan cache between repeats",
+            "  --verbose             Print scanner log output");
+
+    public static void main(String[] args) throws Exception {
+        Path input = null;
+        Path project = null;
+        List<IdGroup> groups = new ArrayList<>();
+        Set<String> owners = new LinkedHashSet<>();
+        Pattern vulnerable = Pattern.compile(".*");
+        int latencyMs = 0, jitterMs = 0, bodyBytes = 512, stubThreads = 32, proxyThreads = 4, repeat = 1;
+        Integer threads = null, batchSize = null, timeout = null;
+        boolean noDedup = false, verbose = false;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String a = args[i];
+                switch (a) {
+                    case "--input": input = Paths.get(args[++i]); break;
+                    case "--project": project = Paths.get(args[++i]); break;
+                    case "--group": {
+                        String spec = args[++i];
+                        int eq = spec.indexOf('=');
+                        IdGroup g = new IdGroup(spec.substring(0, eq).trim());
+                        for (String id : spec.substring(eq + 1).split(",")) {
+                            if (!id.isBlank()) g.ids.add(id.trim());
+                        }
+                        g.recalculateType();
+                        groups.add(g);
+                        break;
+                    }
+                    case "--owner":
+                        for (String id : args[++i].split(",")) if (!id.isBlank()) owners.add(id.trim());
+                        break;
+                    case "--vulnerable": vulnerable = Pattern.compile(args[++i]); break;
+                    case "--latency-ms": latencyMs = Integer.parseInt(args[++i]); break;
+                    case "--jitter-ms": jitterMs = Integer.parseInt(args[++i]); break;
+                    case "--body-bytes": bodyBytes = Integer.parseInt(args[++i]); break;
+                    case "--stub-threads": stubThreads = Integer.parseInt(args[++i]); break;
+                    case "--proxy-threads": proxyThreads = Integer.parseInt(args[++i]); break;
+                    case "--threads": threads = Integer.parseInt(args[++i]); break;
+                    case "--batch-size": batchSize = Integer.parseInt(args[++i]); break;
+                    case "--timeout": timeout = Integer.parseInt(args[++i]); break;
+                    case "--repeat": repeat = Math.max(1, Integer.parseInt(args[++i])); break;
+                    case "--no-dedup": noDedup = true; break;
+                    case "--verbose": verbose = true; break;
+                    default: throw new IllegalArgumentException("Unknown option " + a);
+                }
+            }
+            if (input == null || groups.isEmpty()) throw new IllegalArgumentException("--input and --group are required");
+        } catch (RuntimeException e) {
+            System.err.println(e.getMessage() == null ? e.toString() : e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        Set<String> known = new LinkedHashSet<>();
+        for (IdGroup g : groups) {
+            known.addAll(g.ids);
+            if (owners.isEmpty() && !g.ids.isEmpty()) owners.add(g.ids.iterator().next());
+        }
+        List<RecordingReader.Recorded> recorded = RecordingReader.read(input);
+        if (recorded.isEmpty()) {
+            System.err.println("No requests found in " + input);
+            System.exit(1);
+        }
+
+        StubTarget stub = new StubTarget(owners, known, vulnerable, latencyMs, jitterMs, bodyBytes);
+        int port = stub.start(stubThreads);
+        FakeMontoya.installObjectFactory();
+        FakeMontoya fake = new FakeMontoya(port, stubThreads, verbose);
+        if (project != null) fake.preference("ayda_aydor.project.dir", project.toAbsolutePath().toString());
+
+        AydaConfig config = new AydaConfig(fake.api.persistence().preferences(), fake.api.logging());
+        config.load();
+        config.setEnabled(true);
+        for (IdGroup g : groups) config.addGroup(g);
+        if (config.getDeniedStrings().isEmpty()) config.setDeniedStrings(List.of("Access denied"));
+        if (threads != null) config.setMaxParallelMutations(threads);
+        if (batchSize != null) config.setBatchSize(batchSize);
+        if (timeout != null) config.setRequestTimeoutMs(timeout);
+
+        AydaScanner scanner = new AydaScanner(fake.api, config);
+        MetricsRegistry metrics = scanner.metrics();
+        Histogram baseFetch = metrics.histogram("replay.base_fetch_us");
+        ExecutorService proxy = Executors.newFixedThreadPool(Math.max(1, proxyThreads));
+        AtomicInteger messageId = new AtomicInteger();
+        long started = System.nanoTime();
+        long bases = 0;
+        try {
+            for (int round = 0; round < repeat; round++) {
+                if (round > 0 && noDedup) scanner.clearScanCache();
+                for (RecordingReader.Recorded r : recorded) {
+                    proxy.execute(() -> {
+                        try {
+                            HttpRequest req = Messages.request(Messages.service(r.host, r.port, r.secure), r.raw);
+                            long t0 = System.nanoTime();
+                            byte[] raw = fake.fetch(req);
+                            baseFetch.recordMicrosSince(t0);
+                            scanner.handleHttpResponseReceived(
+                                    Messages.responseReceived(req, raw, ToolType.PROXY, messageId.incrementAndGet()));
+                        } catch (Exception e) {
+                            System.err.println("Replay failed for a request to " + r.host + ": " + e);
+                        }
+                    });
+                    bases++;
+                }
+            }
+            proxy.shutdown();
+            proxy.awaitTermination(1, TimeUnit.HOURS);
+            awaitIdle(metrics);
+            long elapsed = System.nanoTime() - started;
+            report(metrics.snapshot(), fake.findings(), stub.served(), bases, elapsed);
+        } finally {
+            proxy.shutdownNow();
+            scanner.shutdown();
+            stub.stop();
+        }
+        System.exit(0);
+    }
+
+    // The scanner has no completion signal; wait until its queue, workers and issue sink stay empty for a short while
+    private static void awaitIdle(MetricsRegistry metrics) throws InterruptedException {
+        int quiet = 0;
+        while (quiet < 5) {
+            Map<String, Long> gauges = metrics.snapshot().gauges;
+            boolean idle = gauges.getOrDefault("queue.depth", 0L) == 0 && gauges.getOrDefault("workers.active", 0L) == 0
+                    && gauges.getOrDefault("issues.pending", 0L) == 0;
+            quiet = idle ? quiet + 1 : 0;
+            Thread.sleep(100);
+        }
+    }
+
+    private static void report(MetricsRegistry.Snapshot s, List<FakeMontoya.Finding> findings, long served, long bases, long elapsedNanos) {
+        double secs = elapsedNanos / 1e9;
+        long mutations = s.counters.getOrDefault("mutations.sent", 0L);
+        System.out.printf("Replayed %d base responses in %.2f s%n", bases, secs);
+        System.out.printf("  bases/s      %10.1f%n", bases / secs);
+        System.out.printf("  mutations/s  %10.1f%n", mutations / secs);
+        System.out.printf("  stub served  %10d%n", served);
+        System.out.println();
+        System.out.printf("%-26s %9s %9s %9s %9s %9s%n", "latency (us)", "count", "p50", "p90", "p99", "max");
+        for (Map.Entry<String, Histogram.Summary> e : s.histograms.entrySet()) {
+            Histogram.Summary h = e.getValue();
+            if (h.count == 0) continue;
+            System.out.printf("%-26s %9d %9d %9d %9d %9d%n", e.getKey(), h.count, h.p50, h.p90, h.p99, h.max);
+        }
+        System.out.println();
+        for (Map.Entry<String, Long> e : s.counters.entrySet()) {
+            System.out.printf("%-26s %9d%n", e.getKey(), e.getValue());
+        }
+        System.out.println();
+        System.out.println("Findings: " + findings.size());
+        for (FakeMontoya.Finding f : findings) {
+            System.out.println("  " + f.name + " - " + f.url);
+            if (f.detail != null) System.out.println("    " + f.detail.replaceAll("<[^>]+>", " ").replaceAll("\\s+", " ").trim());
+        }
+    }
+}
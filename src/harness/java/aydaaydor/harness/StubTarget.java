@@ -0,0 +1,149 @@
+package aydaaydor.harness;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Local HTTP target with a simple object-ownership model. Every request addresses one object: the first
+ * ID-like token in the path or query, else in the headers, else in the body.
+ *
+ * - an owner ID returns that object (200);
+ * - another known ID returns that object on vulnerable routes (an IDOR) and "Access denied" (403) elsewhere;
+ * - an unknown ID, such as the scanner's dummy, returns "Not found" (404);
+ * - a request without an ID returns a fixed listing.
+ *
+ * IDs are only recognized in plain form; values the scanner mutates inside Base64 or JWTs stay inert here.
+ */
+final class StubTarget {
+    private static final Pattern ID_LIKE = Pattern.compile("\\d{2,}|[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+    private static final Pattern TOKEN_SPLIT = Pattern.compile("[/?&=;,:\\s\"'{}\\[\\]]+");
+    private static final Set<String> SKIPPED_HEADERS = Set.of("host", "content-length", "connection", "user-agent", "accept",
+            "accept-encoding", "accept-language", "content-type");
+
+    private final Set<String> ownerIds;
+    private final Set<String> knownIds;
+    private final Pattern vulnerableRoutes;
+    private final int latencyMs;
+    private final int jitterMs;
+    private final int bodyBytes;
+    private final LongAdder served = new LongAdder();
+    private HttpServer server;
+    private ExecutorService workers;
+
+    StubTarget(Set<String> ownerIds, Set<String> knownIds, Pattern vulnerableRoutes, int latencyMs, int jitterMs, int bodyBytes) {
+        this.ownerIds = ownerIds;
+        this.knownIds = knownIds;
+        this.vulnerableRoutes = vulnerableRoutes;
+        this.latencyMs = latencyMs;
+        this.jitterMs = jitterMs;
+        this.bodyBytes = bodyBytes;
+    }
+
+    int start(int threads) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        workers = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "stub-target");
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(workers);
+        server.createContext("/", this::handle);
+        server.start();
+        return server.getAddress().getPort();
+    }
+
+    void stop() {
+        if (server != null) server.stop(0);
+        if (workers != null) workers.shutdownNow();
+    }
+
+    long served() {
+        return served.sum();
+    }
+
+    private void handle(HttpExchange ex) throws IOException {
+        try {
+            byte[] body;
+            try (InputStream in = ex.getRequestBody()) { body = in.readAllBytes(); }
+            String path = ex.getRequestURI().getRawPath();
+            String query = ex.getRequestURI().getRawQuery();
+            String id = firstId(path + (query == null ? "" : "?" + query));
+            if (id == null) id = firstId(headerText(ex.getRequestHeaders()));
+            if (id == null) id = firstId(new String(body, StandardCharsets.ISO_8859_1));
+            pause();
+
+            int status;
+            String json;
+            if (id == null) {
+                status = 200;
+                json = "{\"items\":[],\"page\":1,\"total\":0}";
+            } else if (ownerIds.contains(id) || (knownIds.contains(id) && vulnerableRoutes.matcher(path).find())) {
+                status = 200;
+                json = object(id);
+            } else if (knownIds.contains(id)) {
+                status = 403;
+                json = "{\"error\":\"Access denied\",\"code\":403}";
+            } else {
+                status = 404;
+                json = "{\"error\":\"Not found\",\"code\":404}";
+            }
+            byte[] out = json.getBytes(StandardCharsets.UTF_8);
+            ex.getResponseHeaders().set("Content-Type", "application/json");
+            ex.sendResponseHeaders(status, out.length);
+            try (OutputStream os = ex.getResponseBody()) { os.write(out); }
+            served.increment();
+        } finally {
+            ex.close();
+        }
+    }
+
+    private String firstId(String text) {
+        for (String token : TOKEN_SPLIT.split(text)) {
+            if (token.isEmpty()) continue;
+            if (knownIds.contains(token) || ID_LIKE.matcher(token).matches()) return token;
+        }
+        return null;
+    }
+
+    private static String headerText(Map<String, List<String>> headers) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, List<String>> e : headers.entrySet()) {
+            if (SKIPPED_HEADERS.contains(e.getKey().toLowerCase())) continue;
+            for (String v : e.getValue()) sb.append(v).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private void pause() {
+        int ms = latencyMs + (jitterMs > 0 ? ThreadLocalRandom.current().nextInt(jitterMs + 1) : 0);
+        if (ms <= 0) return;
+        try { Thread.sleep(ms); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+    }
+
+    // Deterministic per-ID object, padded to roughly the configured body size
+    private String object(String id) {
+        StringBuilder sb = new StringBuilder("{\"id\":\"").append(id).append("\",\"owner\":\"user-").append(id)
+                .append("\",\"email\":\"").append(id).append("@example.test\",\"history\":[");
+        int h = id.hashCode();
+        for (int i = 0; sb.length() < bodyBytes; i++) {
+            if (i > 0) sb.append(',');
+            h = h * 31 + i;
+            sb.append("{\"seq\":").append(i).append(",\"amount\":").append(Math.floorMod(h, 10000)).append('}');
+        }
+        return sb.append("]}").toString();
+    }
+}
@@ -1,8 +1,10 @@
 package aydaaydor;
 
-import aydaaydor.config.AydaConfig;
+import aydaaydor.burp.AydaConfig;
 import aydaaydor.ui.AydaTab;
-import aydaaydor.scanner.AydaScanner;
+import aydaaydor.burp.AydaScanner;
+import aydaaydor.burp.GroupRescan;
+import aydaaydor.burp.HistoryBackfill;
 import burp.api.montoya.BurpExtension;
 import burp.api.montoya.MontoyaApi;
 import burp.api.montoya.extension.ExtensionUnloadingHandler;
@@ -46,7 +48,9 @@ public class Extension implements BurpExtension {
         // UI Tab
         UserInterface ui = api.userInterface();
         AydaScanner scanner = new AydaScanner(api, config);
-        JPanel tab = new AydaTab(config, log, scanner);
+        HistoryBackfill backfill = new HistoryBackfill(api, config, scanner);
+        GroupRescan rescan = new GroupRescan(api, config, scanner);
+        AydaTab tab = new AydaTab(config, log, scanner, backfill);
         ui.applyThemeToComponent(tab);
         ui.registerSuiteTab("AydaAydor", tab);
 
@@ -57,6 +61,9 @@ public class Extension implements BurpExtension {
         api.extension().registerUnloadingHandler(new ExtensionUnloadingHandler() {
             @Override
             public void extensionUnloaded() {
+                tab.shutdown();
+                backfill.shutdown();
+                rescan.shutdown();
                 scanner.shutdown();
                 config.save();
             }
@@ -1,5 +1,10 @@
-package aydaaydor.config;
+package aydaaydor.burp;
 
+import aydaaydor.config.DedupMode;
+import aydaaydor.config.IdGroup;
+import aydaaydor.config.Identity;
+import aydaaydor.config.ScanSettings;
+import aydaaydor.scanner.ParamType;
 import burp.api.montoya.http.message.params.HttpParameterType;
 import burp.api.montoya.logging.Logging;
 import burp.api.montoya.persistence.Preferences;
@@ -12,6 +17,8 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 import org.yaml.snakeyaml.DumperOptions;
@@ -19,7 +26,7 @@ import org.yaml.snakeyaml.LoaderOptions;
 import org.yaml.snakeyaml.Yaml;
 import org.yaml.snakeyaml.constructor.SafeConstructor;
 
-public class AydaConfig {
+public class AydaConfig implements ScanSettings {
     private static final String PREF_PREFIX = "ayda_aydor.";
     private static final String PREF_GROUPS = PREF_PREFIX + "groups"; // CSV of keys
     private static final String PREF_DENIED = PREF_PREFIX + "denied"; // lines
@@ -41,11 +48,23 @@ public class AydaConfig {
     private final List<String> ignoredHeaders = new ArrayList<>();
     private final List<String> skipExtensions = new ArrayList<>();
     private final List<String> ignoredJsonKeys = new ArrayList<>();
+    private final List<Identity> identities = new ArrayList<>(); // sessions matched requests are replayed as
     private volatile int requestTimeoutMs = 10000;
     private volatile int delayMsBetweenMutations = 0;
     private volatile int maxMutationsPerBase = 20;
     private volatile int maxParallelMutations = 4;
+    private volatile long dummyCacheTtlMillis = 60_000L; // reuse dummy-ID probe results for 1 min; 0 disables
+    private volatile int simHashMaxDistance = 0; // same-length non-JSON bodies within this Hamming distance are "same"; 0 = exact
+    private volatile int largeBodyThresholdBytes = 2 * 1024 * 1024; // above this, compare in bounded-memory mode
+    private volatile int batchSize = 1; // mutations per host sent via one sendRequests call; 1 disables batching
+    private volatile int batchLingerMs = 10; // max wait for a batch to fill up
+    private volatile boolean consistentSubstitution = false; // mutate all locations of one ID together
+    private volatile boolean adaptiveBudget = true; // size each route's mutation budget from its past outcomes
+    private volatile boolean confirmFindings = false; // re-check findings with a sequential test before reporting
+    private volatile boolean learnVolatileJsonPaths = true; // learn per-route JSON fields that change on their own
+    private volatile int backfillChunkSize = 500; // backfill items queued between checkpoint saves
     private volatile boolean enabled = true;
+    private final List<BiConsumer<IdGroup, Set<String>>> idsAddedListeners = new CopyOnWriteArrayList<>();
     private volatile DedupMode dedupMode = DedupMode.STRICT;
     private volatile long dedupTtlMillis = 12L * 60 * 60 * 1000; // 12h default
     private volatile int dedupLruMax = 20000; // default LRU size
@@ -57,6 +76,31 @@ public class AydaConfig {
 
     public synchronized void addGroup(IdGroup g) {
         groups.put(g.name, g);
+        fireIdsAdded(g, new LinkedHashSet<>(g.ids));
+    }
+
+    /** Replaces a group's IDs; listeners hear about the ones that were not there before. */
+    public synchronized void setGroupIds(String name, Collection<String> ids) {
+        IdGroup g = groups.get(name);
+        if (g == null) return;
+        Set<String> added = new LinkedHashSet<>(ids);
+        added.removeAll(g.ids);
+        g.ids.clear();
+        g.ids.addAll(ids);
+        g.recalculateType();
+        fireIdsAdded(g, added);
+    }
+
+    /** Called (on the caller's thread) with a group and the IDs just added to it. */
+    public void addIdsAddedListener(BiConsumer<IdGroup, Set<String>> listener) {
+        idsAddedListeners.add(listener);
+    }
+
+    private void fireIdsAdded(IdGroup g, Set<String> added) {
+        if (added.isEmpty()) return;
+        for (BiConsumer<IdGroup, Set<String>> l : idsAddedListeners) {
+            try { l.accept(g, added); } catch (Exception e) { log.logToError("AydaAydor: IDs-added listener failed: " + e); }
+        }
     }
 
     public synchronized void removeGroup(String name) {
@@ -104,6 +148,12 @@ public class AydaConfig {
         return set.contains(name.trim().toLowerCase(java.util.Locale.ROOT));
     }
 
+    @Override
+    public synchronized boolean isParamIgnored(ParamType type, String name) {
+        if (type == null) return false;
+        try { return isParamIgnored(HttpParameterType.valueOf(type.name()), name); } catch (IllegalArgumentException e) { return false; }
+    }
+
     public synchronized Map<HttpParameterType, Set<String>> allIgnoredParams() {
         Map<HttpParameterType, Set<String>> copy = new EnumMap<>(HttpParameterType.class);
         for (var e : ignoredParams.entrySet()) copy.put(e.getKey(), new LinkedHashSet<>(e.getValue()));
@@ -138,6 +188,11 @@ public class AydaConfig {
             if (!ignoredJsonKeys.contains(v)) ignoredJsonKeys.add(v);
         }
     }
+    public synchronized List<Identity> getIdentities() { return new ArrayList<>(identities); }
+    public synchronized void setIdentities(List<Identity> list) {
+        identities.clear();
+        if (list != null) for (Identity id : list) if (id != null && !id.name.isBlank() && !id.headers.isEmpty()) identities.add(id);
+    }
     public synchronized int getRequestTimeoutMs() { return requestTimeoutMs; }
     public synchronized void setRequestTimeoutMs(int v) { requestTimeoutMs = Math.max(0, v); }
     public synchronized int getDelayMsBetweenMutations() { return delayMsBetweenMutations; }
@@ -146,6 +201,26 @@ public class AydaConfig {
     public synchronized void setMaxMutationsPerBase(int v) { maxMutationsPerBase = Math.max(1, v); }
     public synchronized int getMaxParallelMutations() { return maxParallelMutations; }
     public synchronized void setMaxParallelMutations(int v) { maxParallelMutations = Math.max(1, v); }
+    public synchronized long getDummyCacheTtlMillis() { return dummyCacheTtlMillis; }
+    public synchronized void setDummyCacheTtlMillis(long ms) { dummyCacheTtlMillis = Math.max(0, ms); }
+    public synchronized int getSimHashMaxDistance() { return simHashMaxDistance; }
+    public synchronized void setSimHashMaxDistance(int v) { simHashMaxDistance = Math.max(0, Math.min(64, v)); }
+    public synchronized int getLargeBodyThresholdBytes() { return largeBodyThresholdBytes; }
+    public synchronized void setLargeBodyThresholdBytes(int v) { largeBodyThresholdBytes = Math.max(0, v); }
+    public synchronized int getBatchSize() { return batchSize; }
+    public synchronized void setBatchSize(int v) { batchSize = Math.max(1, v); }
+    public synchronized int getBatchLingerMs() { return batchLingerMs; }
+    public synchronized void setBatchLingerMs(int v) { batchLingerMs = Math.max(0, v); }
+    public synchronized boolean isConsistentSubstitution() { return consistentSubstitution; }
+    public synchronized void setConsistentSubstitution(boolean v) { consistentSubstitution = v; }
+    public synchronized boolean isAdaptiveBudget() { return adaptiveBudget; }
+    public synchronized void setAdaptiveBudget(boolean v) { adaptiveBudget = v; }
+    public synchronized boolean isConfirmFindings() { return confirmFindings; }
+    public synchronized void setConfirmFindings(boolean v) { confirmFindings = v; }
+    public synchronized boolean isLearnVolatileJsonPaths() { return learnVolatileJsonPaths; }
+    public synchronized void setLearnVolatileJsonPaths(boolean v) { learnVolatileJsonPaths = v; }
+    public synchronized int getBackfillChunkSize() { return backfillChunkSize; }
+    public synchronized void setBackfillChunkSize(int v) { backfillChunkSize = Math.max(10, v); }
 
     // Project directory handling
     public synchronized void setProjectDir(Path dir) {
@@ -159,6 +234,21 @@ public class AydaConfig {
         return projectDir.resolve("aydaaydor").resolve("settings.yaml");
     }
 
+    public synchronized Path getBackfillCheckpointPath() {
+        if (projectDir == null) return null;
+        return projectDir.resolve("aydaaydor").resolve("backfill.yaml");
+    }
+
+    public synchronized Path getValueIndexPath() {
+        if (projectDir == null) return null;
+        return projectDir.resolve("aydaaydor").resolve("value-index.bin");
+    }
+
+    public synchronized Path getFindingsJournalPath() {
+        if (projectDir == null) return null;
+        return projectDir.resolve("aydaaydor").resolve("findings.journal");
+    }
+
     public synchronized boolean isEnabled() { return enabled; }
     public synchronized void setEnabled(boolean e) { enabled = e; }
 
@@ -388,6 +478,28 @@ public class AydaConfig {
                 }
             }
 
+            Object identitiesNode = root.get("identities");
+            if (identitiesNode instanceof Collection) {
+                List<Identity> list = new ArrayList<>();
+                for (Object obj : (Collection<?>) identitiesNode) {
+                    if (!(obj instanceof Map)) continue;
+                    Map<?,?> m = (Map<?,?>) obj;
+                    String name = m.get("name") == null ? null : String.valueOf(m.get("name")).trim();
+                    if (name == null || name.isEmpty()) continue;
+                    Identity identity = new Identity(name);
+                    Object hdrNode = m.get("headers");
+                    if (hdrNode instanceof Map) {
+                        for (Map.Entry<?,?> h : ((Map<?,?>) hdrNode).entrySet()) {
+                            if (h.getKey() == null) continue;
+                            String header = String.valueOf(h.getKey()).trim();
+                            if (!header.isEmpty()) identity.headers.put(header, h.getValue() == null ? "" : String.valueOf(h.getValue()).trim());
+                        }
+                    }
+                    list.add(identity);
+                }
+                setIdentities(list);
+            }
+
             Object to = root.get("request_timeout_ms");
             if (to instanceof Number) setRequestTimeoutMs(((Number) to).intValue());
             Object delay = root.get("delay_ms_between_mutations");
@@ -396,6 +508,26 @@ public class AydaConfig {
             if (maxm instanceof Number) setMaxMutationsPerBase(((Number) maxm).intValue());
             Object par = root.get("max_parallel_mutations");
             if (par instanceof Number) setMaxParallelMutations(((Number) par).intValue());
+            Object dummyTtl = root.get("dummy_cache_ttl_ms");
+            if (dummyTtl instanceof Number) setDummyCacheTtlMillis(((Number) dummyTtl).longValue());
+            Object simDist = root.get("simhash_max_distance");
+            if (simDist instanceof Number) setSimHashMaxDistance(((Number) simDist).intValue());
+            Object largeBody = root.get("large_body_threshold_bytes");
+            if (largeBody instanceof Number) setLargeBodyThresholdBytes(((Number) largeBody).intValue());
+            Object batch = root.get("batch_size");
+            if (batch instanceof Number) setBatchSize(((Number) batch).intValue());
+            Object lingerMs = root.get("batch_linger_ms");
+            if (lingerMs instanceof Number) setBatchLingerMs(((Number) lingerMs).intValue());
+            Object consistent = root.get("consistent_substitution");
+            if (consistent instanceof Boolean) setConsistentSubstitution((Boolean) consistent);
+            Object adaptive = root.get("adaptive_budget");
+            if (adaptive instanceof Boolean) setAdaptiveBudget((Boolean) adaptive);
+            Object confirm = root.get("confirm_findings");
+            if (confirm instanceof Boolean) setConfirmFindings((Boolean) confirm);
+            Object learnVolatile = root.get("learn_volatile_json_paths");
+            if (learnVolatile instanceof Boolean) setLearnVolatileJsonPaths((Boolean) learnVolatile);
+            Object chunk = root.get("backfill_chunk_size");
+            if (chunk instanceof Number) setBackfillChunkSize(((Number) chunk).intValue());
 
             Object dm = root.get("dedup_mode");
             if (dm instanceof String) {
@@ -440,10 +572,28 @@ public class AydaConfig {
             groupsOut.add(m);
         }
         root.put("id_groups", groupsOut);
+        List<Map<String,Object>> identitiesOut = new ArrayList<>();
+        for (Identity identity : getIdentities()) {
+            Map<String,Object> m = new LinkedHashMap<>();
+            m.put("name", identity.name);
+            m.put("headers", new LinkedHashMap<>(identity.headers));
+            identitiesOut.add(m);
+        }
+        root.put("identities", identitiesOut);
         root.put("request_timeout_ms", getRequestTimeoutMs());
         root.put("delay_ms_between_mutations", getDelayMsBetweenMutations());
         root.put("max_mutations_per_base", getMaxMutationsPerBase());
         root.put("max_parallel_mutations", getMaxParallelMutations());
+        root.put("dummy_cache_ttl_ms", getDummyCacheTtlMillis());
+        root.put("simhash_max_distance", getSimHashMaxDistance());
+        root.put("large_body_threshold_bytes", getLargeBodyThresholdBytes());
+        root.put("batch_size", getBatchSize());
+        root.put("batch_linger_ms", getBatchLingerMs());
+        root.put("consistent_substitution", isConsistentSubstitution());
+        root.put("adaptive_budget", isAdaptiveBudget());
+        root.put("confirm_findings", isConfirmFindings());
+        root.put("learn_volatile_json_paths", isLearnVolatileJsonPaths());
+        root.put("backfill_chunk_size", getBackfillChunkSize());
         root.put("dedup_mode", getDedupMode().name());
         root.put("dedup_ttl_ms", getDedupTtlMillis());
 
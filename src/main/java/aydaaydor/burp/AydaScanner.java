@@ -0,0 +1,168 @@
+package aydaaydor.burp;
+
+import aydaaydor.metrics.Counter;
+import aydaaydor.metrics.Histogram;
+import aydaaydor.metrics.MetricsRegistry;
+import aydaaydor.scanner.Finding;
+import aydaaydor.scanner.HttpTarget;
+import aydaaydor.scanner.ScanEngine;
+import aydaaydor.scanner.ScanEvents;
+import aydaaydor.scanner.ScanPlatform;
+import aydaaydor.scanner.ScanRequest;
+import aydaaydor.scanner.ScanResponse;
+import aydaaydor.scanner.ScannerControls;
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.core.ToolType;
+import burp.api.montoya.http.handler.HttpHandler;
+import burp.api.montoya.http.handler.HttpRequestToBeSent;
+import burp.api.montoya.http.handler.HttpResponseReceived;
+import burp.api.montoya.http.handler.RequestToBeSentAction;
+import burp.api.montoya.http.handler.ResponseReceivedAction;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.requests.HttpRequest;
+
+import java.util.concurrent.*;
+
+/**
+ * Burp adapter for {@link ScanEngine}: feeds Proxy and Repeater responses to the engine, sends its mutations
+ * through Montoya (optionally batched per host) and hands its findings to an {@link IssueSink}.
+ */
+public class AydaScanner implements HttpHandler, ScannerControls {
+
+    private final MontoyaApi api;
+    private final AydaConfig config;
+    private final ScanEngine engine;
+    private final ExecutorService httpExec = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "ayda-http");
+        t.setDaemon(true);
+        return t;
+    });
+    private final BatchSender batcher;
+    private final IssueSink issues;
+
+    // Pipeline metrics, shown live in the AydaAydor tab
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    private final Counter sendTimeouts = metrics.counter("send.timeouts");
+    private final Counter sendErrors = metrics.counter("send.errors");
+    private final Histogram sendTime = metrics.histogram("send.time_us");
+
+    public AydaScanner(MontoyaApi api, AydaConfig config) {
+        this.api = api;
+        this.config = config;
+        this.batcher = new BatchSender(api.http(), () -> this.config.getBatchSize(), () -> this.config.getBatchLingerMs(),
+                () -> this.config.getRequestTimeoutMs(), metrics);
+        this.issues = new IssueSink(api, config, this::markReported, metrics);
+        this.engine = new ScanEngine(config, new Platform(), metrics);
+    }
+
+    public void shutdown() {
+        engine.shutdown();
+        httpExec.shutdownNow();
+        batcher.shutdown();
+        issues.shutdown();
+    }
+
+    ScanEngine engine() {
+        return engine;
+    }
+
+    // The issue sink is built before the engine; it only calls this once findings arrive
+    private boolean markReported(String reportKey) {
+        return engine.markReported(reportKey);
+    }
+
+    @Override
+    public void clearScanCache() {
+        engine.clearScanCache();
+    }
+
+    @Override
+    public void clearReportedCache() {
+        engine.clearReportedCache();
+    }
+
+    @Override
+    public MetricsRegistry metrics() {
+        return metrics;
+    }
+
+    @Override
+    public void applySettings() {
+        engine.applySettings();
+    }
+
+    @Override
+    public RequestToBeSentAction handleHttpRequestToBeSent(HttpRequestToBeSent requestToBeSent) {
+        return RequestToBeSentAction.continueWith(requestToBeSent);
+    }
+
+    @Override
+    public ResponseReceivedAction handleHttpResponseReceived(HttpResponseReceived responseReceived) {
+        if (!config.isEnabled()) return ResponseReceivedAction.continueWith(responseReceived);
+        if (!responseReceived.toolSource().isFromTool(ToolType.PROXY, ToolType.REPEATER)) {
+            return ResponseReceivedAction.continueWith(responseReceived);
+        }
+        HttpRequest baseReq = responseReceived.initiatingRequest();
+        engine.scan(baseReq == null ? null : new MontoyaRequest(baseReq), new MontoyaResponse(responseReceived, null));
+        return ResponseReceivedAction.continueWith(responseReceived);
+    }
+
+    private final class Platform implements ScanPlatform {
+        @Override
+        public ScanRequest request(HttpTarget target, byte[] raw) {
+            return new MontoyaRequest(HttpRequest.httpRequest(MontoyaRequest.service(target), ByteArray.byteArray(raw)));
+        }
+
+        @Override
+        public Future<ScanResponse> send(ScanRequest request) {
+            HttpRequest req = ((MontoyaRequest) request).request;
+            CompletableFuture<HttpRequestResponse> f;
+            if (config.getBatchSize() > 1) {
+                f = batcher.submit(req); // times out on its own, linger included
+            } else {
+                f = CompletableFuture.supplyAsync(() -> timedSend(req), httpExec);
+                int timeout = Math.max(0, config.getRequestTimeoutMs());
+                if (timeout > 0) f.orTimeout(timeout, TimeUnit.MILLISECONDS);
+            }
+            // A timed-out send fails its future once; the request is never sent again
+            return f.whenComplete((rr, ex) -> {
+                Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                if (cause instanceof TimeoutException) sendTimeouts.inc();
+                else if (cause != null && !(cause instanceof CancellationException)) sendErrors.inc();
+            }).thenApply(MontoyaResponse::of);
+        }
+
+        @Override
+        public void report(Finding f) {
+            issues.submit(f);
+        }
+
+        @Override
+        public void logError(String message) {
+            api.logging().logToError(message);
+        }
+    }
+
+    private HttpRequestResponse timedSend(HttpRequest req) {
+        long start = System.nanoTime();
+        ScanEvents.HttpSend ev = new ScanEvents.HttpSend();
+        ev.begin();
+        HttpRequestResponse rr = null;
+        try {
+            rr = api.http().sendRequest(req);
+            return rr;
+        } finally {
+            sendTime.recordMicrosSince(start);
+            ev.end();
+            if (ev.shouldCommit()) {
+                ev.host = req.headerValue("Host");
+                ev.route = req.pathWithoutQuery();
+                ev.requests = 1;
+                ev.requestBytes = req.toByteArray().length();
+                ev.responseBytes = rr != null && rr.response() != null ? rr.response().toByteArray().length() : 0;
+                ev.commit();
+            }
+        }
+    }
+}
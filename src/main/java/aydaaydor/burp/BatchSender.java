@@ -0,0 +1,164 @@
+package aydaaydor.burp;
+
+import aydaaydor.metrics.Counter;
+import aydaaydor.metrics.Histogram;
+import aydaaydor.metrics.MetricsRegistry;
+import aydaaydor.scanner.ScanEvents;
+import burp.api.montoya.http.Http;
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.requests.HttpRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Groups outgoing mutation requests per target host and sends them through Montoya's
+ * {@code sendRequests(List)} batch API, so Burp can pipeline them and reuse connections.
+ *
+ * A host's batch is flushed when it reaches the configured size or when its oldest request has waited
+ * for the linger time, whichever comes first. Results are handed back to each caller through its own future,
+ * which fails with a {@link java.util.concurrent.TimeoutException} if no result arrives within the linger time
+ * plus the request timeout.
+ */
+class BatchSender {
+    private static final class Pending {
+        final HttpRequest request;
+        final CompletableFuture<HttpRequestResponse> result = new CompletableFuture<>();
+
+        Pending(HttpRequest request) { this.request = request; }
+    }
+
+    private final Http http;
+    private final Supplier<Integer> batchSizeSupplier;
+    private final Supplier<Integer> lingerMsSupplier;
+    private final Supplier<Integer> timeoutMsSupplier;
+    private final Counter batches;
+    private final Histogram batchSizes;
+    private final Histogram batchTime;
+    private final Map<String, List<Pending>> queues = new ConcurrentHashMap<>();
+    private final ExecutorService senders = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "ayda-batch");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ScheduledExecutorService linger = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "ayda-batch-linger");
+        t.setDaemon(true);
+        return t;
+    });
+
+    BatchSender(Http http, Supplier<Integer> batchSizeSupplier, Supplier<Integer> lingerMsSupplier,
+                Supplier<Integer> timeoutMsSupplier, MetricsRegistry metrics) {
+        this.http = http;
+        this.batchSizeSupplier = batchSizeSupplier;
+        this.lingerMsSupplier = lingerMsSupplier;
+        this.timeoutMsSupplier = timeoutMsSupplier;
+        this.batches = metrics.counter("batch.sent");
+        this.batchSizes = metrics.histogram("batch.size");
+        this.batchTime = metrics.histogram("batch.time_us");
+    }
+
+    CompletableFuture<HttpRequestResponse> submit(HttpRequest request) {
+        Pending p = new Pending(request);
+        int timeout = Math.max(0, timeoutMsSupplier.get());
+        if (timeout > 0) p.result.orTimeout(timeout + Math.max(0, lingerMsSupplier.get()), TimeUnit.MILLISECONDS);
+        String key = hostKey(request.httpService());
+        int max = Math.max(1, batchSizeSupplier.get());
+        List<Pending> ready = null;
+        boolean first;
+        List<Pending> q = queues.computeIfAbsent(key, k -> new ArrayList<>());
+        synchronized (q) {
+            q.add(p);
+            first = q.size() == 1;
+            if (q.size() >= max) {
+                ready = new ArrayList<>(q);
+                q.clear();
+            }
+        }
+        if (ready != null) {
+            dispatch(ready);
+        } else if (first) {
+            long ms = Math.max(0, lingerMsSupplier.get());
+            linger.schedule(() -> flush(key), ms, TimeUnit.MILLISECONDS);
+        }
+        return p.result;
+    }
+
+    private void flush(String key) {
+        List<Pending> q = queues.get(key);
+        if (q == null) return;
+        List<Pending> ready;
+        synchronized (q) {
+            if (q.isEmpty()) return;
+            ready = new ArrayList<>(q);
+            q.clear();
+        }
+        dispatch(ready);
+    }
+
+    private void dispatch(List<Pending> batch) {
+        senders.execute(() -> {
+            long start = System.nanoTime();
+            ScanEvents.HttpSend ev = new ScanEvents.HttpSend();
+            ev.begin();
+            List<HttpRequestResponse> results = null;
+            try {
+                List<HttpRequest> requests = new ArrayList<>(batch.size());
+                for (Pending p : batch) requests.add(p.request);
+                results = batch.size() == 1
+                        ? List.of(http.sendRequest(requests.get(0)))
+                        : http.sendRequests(requests);
+                // Results come back in request order
+                for (int i = 0; i < batch.size(); i++) {
+                    if (results != null && i < results.size()) batch.get(i).result.complete(results.get(i));
+                    else batch.get(i).result.completeExceptionally(new IllegalStateException("No response in batch result"));
+                }
+            } catch (Throwable t) {
+                for (Pending p : batch) p.result.completeExceptionally(t);
+            } finally {
+                batches.inc();
+                batchSizes.record(batch.size());
+                batchTime.recordMicrosSince(start);
+                ev.end();
+                if (ev.shouldCommit()) {
+                    HttpRequest first = batch.get(0).request;
+                    ev.host = hostKey(first.httpService());
+                    ev.route = batch.size() == 1 ? first.pathWithoutQuery() : null;
+                    ev.requests = batch.size();
+                    for (Pending p : batch) ev.requestBytes += p.request.toByteArray().length();
+                    if (results != null) {
+                        for (HttpRequestResponse rr : results) {
+                            if (rr != null && rr.response() != null) ev.responseBytes += rr.response().toByteArray().length();
+                        }
+                    }
+                    ev.commit();
+                }
+            }
+        });
+    }
+
+    void shutdown() {
+        linger.shutdownNow();
+        senders.shutdownNow();
+        for (List<Pending> q : queues.values()) {
+            synchronized (q) {
+                for (Pending p : q) p.result.cancel(true);
+                q.clear();
+            }
+        }
+    }
+
+    private static String hostKey(HttpService s) {
+        if (s == null) return "";
+        return s.host() + ':' + s.port() + ':' + s.secure();
+    }
+}
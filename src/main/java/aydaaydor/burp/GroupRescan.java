@@ -0,0 +1,122 @@
+package aydaaydor.burp;
+
+import aydaaydor.config.IdGroup;
+import aydaaydor.metrics.Counter;
+import aydaaydor.scanner.ScanEngine;
+import aydaaydor.scanner.ValueIndex;
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.sitemap.SiteMapFilter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Rescans only the endpoints where newly added IDs have been seen. The engine records every candidate
+ * location's values into a {@link ValueIndex} (persisted as {@code aydaaydor/value-index.bin} next to
+ * {@code settings.yaml}); when IDs are added to a group, the index names the endpoints that carried any of
+ * them, and their requests are taken from the site map and queued as background checks.
+ */
+public final class GroupRescan {
+    // Site map variants of one endpoint (differing queries) queued per rescan, most recent first
+    private static final int MAX_ITEMS_PER_ENDPOINT = 20;
+
+    private final MontoyaApi api;
+    private final AydaConfig config;
+    private final ScanEngine engine;
+    private final ValueIndex index = new ValueIndex();
+    private final Counter endpointsHit;
+    private final Counter queued;
+    private final ExecutorService exec = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "ayda-rescan");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public GroupRescan(MontoyaApi api, AydaConfig config, AydaScanner scanner) {
+        this.api = api;
+        this.config = config;
+        this.engine = scanner.engine();
+        this.endpointsHit = scanner.metrics().counter("rescan.endpoints");
+        this.queued = scanner.metrics().counter("rescan.queued");
+        scanner.metrics().gauge("index.locations", index::locationCount);
+        load();
+        engine.setValueIndex(index);
+        config.addIdsAddedListener((group, ids) -> exec.execute(() -> rescan(group, ids)));
+    }
+
+    public void shutdown() {
+        exec.shutdownNow();
+        engine.setValueIndex(null);
+        save();
+    }
+
+    private void rescan(IdGroup group, Set<String> ids) {
+        try {
+            Set<String> endpoints = index.endpointsFor(ids);
+            if (endpoints.isEmpty()) return;
+            api.logging().logToOutput("AydaAydor: Rescanning " + endpoints.size() + " endpoint(s) for new IDs in group '"
+                    + group.name + "'");
+            for (String endpoint : endpoints) {
+                endpointsHit.inc();
+                int sp = endpoint.indexOf(' ');
+                String method = endpoint.substring(0, sp);
+                String url = endpoint.substring(sp + 1);
+                List<HttpRequestResponse> items = api.siteMap().requestResponses(SiteMapFilter.prefixFilter(url));
+                int taken = 0;
+                for (int i = items.size() - 1; i >= 0 && taken < MAX_ITEMS_PER_ENDPOINT; i--) {
+                    HttpRequestResponse item = items.get(i);
+                    HttpRequest req = item.request();
+                    if (req == null || !item.hasResponse() || !method.equals(req.method())) continue;
+                    MontoyaRequest scanReq = new MontoyaRequest(req);
+                    // The prefix also covers longer paths; keep this endpoint's own variants
+                    if (!endpoint.equals(ValueIndex.endpointKey(req.method(), scanReq.url()))) continue;
+                    if (!engine.prefilter(scanReq)) continue;
+                    engine.scan(scanReq, new MontoyaResponse(item.response(), null), true);
+                    queued.inc();
+                    taken++;
+                }
+            }
+        } catch (Exception e) {
+            api.logging().logToError("AydaAydor rescan failed: " + e);
+        } finally {
+            save();
+        }
+    }
+
+    private void load() {
+        Path path = config.getValueIndexPath();
+        if (path == null || !Files.exists(path)) return;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            index.read(in);
+        } catch (Exception e) {
+            index.clear();
+            api.logging().logToError("AydaAydor: Failed to read value index, starting empty: " + e);
+        }
+    }
+
+    private void save() {
+        Path path = config.getValueIndexPath();
+        if (path == null || !index.dirty()) return;
+        try {
+            Path parent = path.getParent();
+            if (parent != null && !Files.exists(parent)) Files.createDirectories(parent);
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                index.write(out);
+            }
+            Files.move(tmp, path, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+        } catch (Exception e) {
+            api.logging().logToError("AydaAydor: Failed to write value index: " + e);
+        }
+    }
+}
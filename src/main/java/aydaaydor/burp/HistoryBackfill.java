@@ -0,0 +1,248 @@
+package aydaaydor.burp;
+
+import aydaaydor.config.IdGroup;
+import aydaaydor.metrics.Counter;
+import aydaaydor.scanner.BodyHash;
+import aydaaydor.scanner.ScanEngine;
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.proxy.ProxyHttpRequestResponse;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Scans traffic that is already in Proxy history. Each pass is one filtered {@code history()} call that keeps
+ * only items past the checkpoint whose request the engine's prefilter accepts, so the full history is never
+ * copied; that subset is sorted by item ID and handed to the engine as background checks, which run only when
+ * no live check is waiting. A pass that finds nothing new completes. Progress is checkpointed to
+ * {@code aydaaydor/backfill.yaml} in the project folder every {@link AydaConfig#getBackfillChunkSize()} queued
+ * items, at the end of a pass and on pause, and a later start resumes from there; changing the ID groups starts
+ * over from the beginning of history.
+ */
+public final class HistoryBackfill {
+    private static final long IDLE_POLL_MS = 100;
+
+    private final MontoyaApi api;
+    private final AydaConfig config;
+    private final ScanEngine engine;
+    private final Counter visited;
+    private final Counter filtered;
+    private final Counter queued;
+
+    private final Object lock = new Object();
+    private volatile Thread worker; // the one thread allowed to make progress; null when paused or done
+    private Thread last;            // guarded by lock; a paused worker may still be finishing its item
+    private volatile int cursor;    // every history item with an ID up to this one has been handed over
+    private volatile int historyMax; // highest history item ID seen by the last window
+    private volatile String status = "Idle";
+
+    public HistoryBackfill(MontoyaApi api, AydaConfig config, AydaScanner scanner) {
+        this.api = api;
+        this.config = config;
+        this.engine = scanner.engine();
+        this.visited = scanner.metrics().counter("backfill.visited");
+        this.filtered = scanner.metrics().counter("backfill.filtered");
+        this.queued = scanner.metrics().counter("backfill.queued");
+    }
+
+    /** Starts, or resumes from the checkpoint; no-op while already running. */
+    public void start() {
+        begin(false);
+    }
+
+    /** Stops after the item in hand; the worker saves the checkpoint on its way out. Does not block. */
+    public void pause() {
+        synchronized (lock) {
+            worker = null;
+        }
+    }
+
+    /** Forgets the checkpoint and scans history from the beginning. */
+    public void restart() {
+        pause();
+        begin(true);
+    }
+
+    public String status() {
+        return status;
+    }
+
+    public void shutdown() {
+        Thread t;
+        synchronized (lock) {
+            worker = null;
+            t = last;
+        }
+        awaitExit(t, 2000);
+    }
+
+    private void begin(boolean fromStart) {
+        synchronized (lock) {
+            if (worker != null) return;
+            Thread previous = last;
+            status = "Starting";
+            Thread t = new Thread(() -> {
+                // The checkpoint is only consistent once the previous worker has saved it
+                awaitExit(previous, 0);
+                if (fromStart) {
+                    cursor = 0;
+                    historyMax = 0;
+                } else {
+                    loadCheckpoint();
+                }
+                run();
+            }, "ayda-backfill");
+            t.setDaemon(true);
+            worker = t;
+            last = t;
+            t.start();
+        }
+    }
+
+    private static void awaitExit(Thread t, long millis) {
+        if (t == null) return;
+        try { t.join(millis); } catch (InterruptedException ie) { Thread.currentThread().interrupt(); }
+    }
+
+    private boolean active() {
+        return Thread.currentThread() == worker;
+    }
+
+    private void run() {
+        try {
+            while (active()) {
+                // One filtered pass per round: Burp hands back only items past the checkpoint that the engine would
+                // match, and only that subset is copied and sorted; a later round picks up items added meanwhile
+                int from = cursor;
+                int[] seenMax = { from };
+                List<ProxyHttpRequestResponse> pending = new ArrayList<>(api.proxy().history(item -> {
+                    int id = item.id();
+                    if (id > seenMax[0]) seenMax[0] = id;
+                    if (id <= from || !active()) return false;
+                    visited.inc();
+                    try {
+                        if (item.hasResponse() && engine.prefilter(new MontoyaRequest(item.finalRequest()))) return true;
+                    } catch (Exception e) {
+                        api.logging().logToError("AydaAydor backfill: skipped history item " + id + ": " + e);
+                    }
+                    filtered.inc();
+                    return false;
+                }));
+                if (!active()) break;
+                historyMax = seenMax[0];
+                if (pending.isEmpty()) {
+                    // Nothing past the checkpoint is worth a check
+                    cursor = Math.max(cursor, historyMax);
+                    status = "Complete up to history item " + cursor;
+                    synchronized (lock) {
+                        if (worker == Thread.currentThread()) worker = null;
+                    }
+                    break;
+                }
+                pending.sort(Comparator.comparingInt(ProxyHttpRequestResponse::id));
+                int chunk = config.getBackfillChunkSize();
+                for (int i = 0; i < pending.size() && active(); i++) {
+                    ProxyHttpRequestResponse item = pending.get(i);
+                    awaitCapacity();
+                    if (!active()) break;
+                    try {
+                        engine.scan(new MontoyaRequest(item.finalRequest()), new MontoyaResponse(item.originalResponse(), null), true);
+                        queued.inc();
+                    } catch (Exception e) {
+                        api.logging().logToError("AydaAydor backfill: skipped history item " + item.id() + ": " + e);
+                    }
+                    cursor = item.id();
+                    status = "Running: history item " + cursor + " of " + historyMax;
+                    if ((i + 1) % chunk == 0) saveCheckpoint();
+                }
+                if (!active()) break;
+                // Everything up to the highest ID of this pass was either queued or filtered out
+                cursor = historyMax;
+                saveCheckpoint();
+            }
+        } catch (Exception e) {
+            status = "Stopped: " + e;
+            api.logging().logToError("AydaAydor backfill failed: " + e);
+        } finally {
+            saveCheckpoint();
+            if (worker == null && (status.startsWith("Running") || status.startsWith("Starting"))) {
+                status = "Paused at history item " + cursor + " of " + historyMax;
+            }
+        }
+    }
+
+    // Leave room for live checks: feed the queue only while it is short
+    private void awaitCapacity() {
+        int limit = Math.max(16, 4 * config.getMaxParallelMutations());
+        while (active() && engine.pendingChecks() >= limit) {
+            try { Thread.sleep(IDLE_POLL_MS); } catch (InterruptedException ie) { Thread.currentThread().interrupt(); return; }
+        }
+    }
+
+    private String groupsSignature() {
+        List<String> lines = new ArrayList<>();
+        for (IdGroup g : config.allGroups()) {
+            List<String> ids = new ArrayList<>(g.ids);
+            Collections.sort(ids);
+            lines.add(g.name + "=" + String.join(",", ids));
+        }
+        Collections.sort(lines);
+        return Long.toHexString(BodyHash.hash(String.join("\n", lines)));
+    }
+
+    private void loadCheckpoint() {
+        Path path = config.getBackfillCheckpointPath();
+        if (path == null || !Files.exists(path)) return;
+        try (InputStream in = Files.newInputStream(path)) {
+            Object data = new Yaml(new SafeConstructor(new LoaderOptions())).load(in);
+            if (!(data instanceof Map)) return;
+            Map<?, ?> root = (Map<?, ?>) data;
+            if (!groupsSignature().equals(String.valueOf(root.get("groups")))) {
+                // New or edited groups: everything in history needs another look
+                cursor = 0;
+                historyMax = 0;
+                return;
+            }
+            Object c = root.get("cursor");
+            if (c instanceof Number) cursor = ((Number) c).intValue();
+            Object m = root.get("history_max_id");
+            if (m instanceof Number) historyMax = ((Number) m).intValue();
+        } catch (Exception e) {
+            api.logging().logToError("AydaAydor: Failed to read backfill checkpoint: " + e);
+        }
+    }
+
+    private void saveCheckpoint() {
+        Path path = config.getBackfillCheckpointPath();
+        if (path == null) return;
+        try {
+            Path parent = path.getParent();
+            if (parent != null && !Files.exists(parent)) Files.createDirectories(parent);
+            Map<String, Object> root = new LinkedHashMap<>();
+            root.put("cursor", cursor);
+            root.put("history_max_id", historyMax);
+            root.put("groups", groupsSignature());
+            root.put("updated", System.currentTimeMillis());
+            DumperOptions opts = new DumperOptions();
+            opts.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+            try (OutputStream os = Files.newOutputStream(path)) {
+                os.write(new Yaml(opts).dump(root).getBytes(StandardCharsets.UTF_8));
+            }
+        } catch (Exception e) {
+            api.logging().logToError("AydaAydor: Failed to write backfill checkpoint: " + e);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package aydaaydor.burp;
+
+import aydaaydor.metrics.Counter;
+import aydaaydor.metrics.Histogram;
+import aydaaydor.metrics.MetricsRegistry;
+import aydaaydor.scanner.Finding;
+import aydaaydor.scanner.FindingsJournal;
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.scanner.audit.issues.AuditIssue;
+import burp.api.montoya.scanner.audit.issues.AuditIssueConfidence;
+import burp.api.montoya.scanner.audit.issues.AuditIssueSeverity;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static burp.api.montoya.http.message.HttpRequestResponse.httpRequestResponse;
+import static burp.api.montoya.scanner.audit.issues.AuditIssue.auditIssue;
+
+/**
+ * Adds findings to the site map from one background thread instead of from scan workers. The engine hands over
+ * every finding; they are queued and flushed every {@link #FLUSH_INTERVAL_MS}. Findings with the same report key
+ * in one flush become a single issue carrying each test exchange as evidence, and the key is then marked reported
+ * with the engine, so findings for it in later flushes (within the dedup TTL) are logged as further evidence for
+ * that issue instead of adding another. Each flush writes one log entry, and every finding is appended to the
+ * project's {@link FindingsJournal}.
+ */
+class IssueSink {
+    private static final long FLUSH_INTERVAL_MS = 500;
+    private static final int MAX_EVIDENCE = 10;
+
+    private final MontoyaApi api;
+    private final AydaConfig config;
+    private final Predicate<String> markReported;
+    private final ConcurrentLinkedQueue<Finding> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Counter issuesAdded;
+    private final Counter findingsCoalesced;
+    private final Histogram flushTime;
+    private final Counter journaled;
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "ayda-issues");
+        t.setDaemon(true);
+        return t;
+    });
+    private FindingsJournal journal; // reopened when the project directory changes
+
+    IssueSink(MontoyaApi api, AydaConfig config, Predicate<String> markReported, MetricsRegistry metrics) {
+        this.api = api;
+        this.config = config;
+        this.markReported = markReported;
+        this.issuesAdded = metrics.counter("issues.added");
+        this.findingsCoalesced = metrics.counter("issues.coalesced");
+        this.flushTime = metrics.histogram("issues.flush_us");
+        this.journaled = metrics.counter("journal.appended");
+        metrics.gauge("issues.pending", pending::get);
+        flusher.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    void submit(Finding f) {
+        queue.add(f);
+        pending.incrementAndGet();
+    }
+
+    /** Flushes what is queued, then stops the timer. */
+    void shutdown() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private synchronized void flush() {
+        if (queue.isEmpty()) return;
+        long start = System.nanoTime();
+        Map<String, List<Finding>> byKey = new LinkedHashMap<>();
+        List<Finding> drained = new ArrayList<>();
+        for (Finding f; (f = queue.poll()) != null; ) {
+            drained.add(f);
+            byKey.computeIfAbsent(f.reportKey == null ? f.url : f.reportKey, k -> new ArrayList<>()).add(f);
+        }
+        StringBuilder log = new StringBuilder();
+        try {
+            for (Map.Entry<String, List<Finding>> e : byKey.entrySet()) {
+                List<Finding> group = e.getValue();
+                Finding first = group.get(0);
+                String kind = first.group.equals("identity") ? "access control issue" : "IDOR";
+                if (!markReported.test(e.getKey())) {
+                    // Already in the site map: the journal keeps these as further evidence
+                    findingsCoalesced.add(group.size());
+                    if (log.length() > 0) log.append('\n');
+                    log.append("AydaAydor: ").append(group.size()).append(group.size() == 1 ? " further finding" : " further findings")
+                       .append(" for the reported ").append(kind).append(" at ").append(first.url);
+                    continue;
+                }
+                try {
+                    api.siteMap().add(issue(group));
+                    issuesAdded.inc();
+                    findingsCoalesced.add(group.size() - 1);
+                    if (log.length() > 0) log.append('\n');
+                    log.append("AydaAydor: Reported ").append(kind).append(" at ").append(first.url);
+                    if (group.size() > 1) log.append(" (").append(group.size()).append(" findings)");
+                } catch (Exception ex) {
+                    api.logging().logToError("AydaAydor: Failed to add issue for " + first.url + ": " + ex);
+                }
+            }
+            if (log.length() > 0) api.logging().logToOutput(log.toString());
+            appendToJournal(drained);
+        } finally {
+            pending.addAndGet(-drained.size());
+            flushTime.recordMicrosSince(start);
+        }
+    }
+
+    private void appendToJournal(List<Finding> findings) {
+        Path path = config.getFindingsJournalPath();
+        if (path == null) return;
+        try {
+            if (journal == null || !journal.file().equals(path)) journal = new FindingsJournal(path);
+            journal.append(findings);
+            journaled.add(findings.size());
+        } catch (Exception e) {
+            api.logging().logToError("AydaAydor: Failed to append to findings journal: " + e);
+        }
+    }
+
+    private static AuditIssue issue(List<Finding> group) {
+        Finding first = group.get(0);
+        StringBuilder detail = new StringBuilder(first.detail);
+        if (first.diff != null) {
+            detail.append("<br><br><b>Response differences</b><br>").append(html(first.diff).replace("\n", "<br>"));
+        }
+        HttpRequest baseReq = ((MontoyaRequest) first.baseRequest).request;
+        List<HttpRequestResponse> evidence = new ArrayList<>();
+        evidence.add(httpRequestResponse(baseReq, ((MontoyaResponse) first.baseResponse).response));
+        evidence.add(((MontoyaResponse) first.testResponse).exchange);
+        Set<String> seen = new HashSet<>();
+        seen.add(first.baseId + '\n' + first.testId);
+        List<String> further = new ArrayList<>();
+        for (Finding f : group.subList(1, group.size())) {
+            if (!seen.add(f.baseId + '\n' + f.testId)) continue;
+            further.add("'" + f.baseId + "' replaced with '" + f.testId + "' in " + f.location);
+            if (evidence.size() < MAX_EVIDENCE) evidence.add(((MontoyaResponse) f.testResponse).exchange);
+        }
+        if (!further.isEmpty()) {
+            detail.append("<br><br><b>Further evidence</b><ul>");
+            for (String s : further) detail.append("<li>").append(html(s)).append("</li>");
+            detail.append("</ul>");
+        }
+        return auditIssue(
+                first.name,
+                detail.toString(),
+                first.remediation,
+                first.url,
+                AuditIssueSeverity.HIGH,
+                AuditIssueConfidence.FIRM,
+                null,
+                null,
+                AuditIssueSeverity.HIGH,
+                evidence
+        );
+    }
+
+    private static String html(String s) {
+        return s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
@@ -0,0 +1,107 @@
+package aydaaydor.burp;
+
+import aydaaydor.scanner.HttpTarget;
+import aydaaydor.scanner.ParamType;
+import aydaaydor.scanner.ScanRequest;
+import burp.api.montoya.core.Range;
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.http.message.HttpHeader;
+import burp.api.montoya.http.message.params.HttpParameter;
+import burp.api.montoya.http.message.params.HttpParameterType;
+import burp.api.montoya.http.message.params.ParsedHttpParameter;
+import burp.api.montoya.http.message.requests.HttpRequest;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/** {@link ScanRequest} over a Montoya request; parameters come from Burp's own parser. */
+final class MontoyaRequest implements ScanRequest {
+    final HttpRequest request;
+
+    MontoyaRequest(HttpRequest request) {
+        this.request = request;
+    }
+
+    static HttpService service(HttpTarget target) {
+        return HttpService.httpService(target.host, target.port, target.secure);
+    }
+
+    @Override
+    public HttpTarget target() {
+        HttpService s = request.httpService();
+        return s == null ? new HttpTarget("", 0, false) : new HttpTarget(s.host(), s.port(), s.secure());
+    }
+
+    @Override
+    public byte[] bytes() {
+        return request.toByteArray().getBytes();
+    }
+
+    @Override
+    public String method() {
+        return request.method();
+    }
+
+    @Override
+    public String path() {
+        return request.path();
+    }
+
+    @Override
+    public String pathWithoutQuery() {
+        return request.pathWithoutQuery();
+    }
+
+    @Override
+    public String url() {
+        return request.url();
+    }
+
+    @Override
+    public List<Map.Entry<String, String>> headers() {
+        List<Map.Entry<String, String>> out = new ArrayList<>();
+        for (HttpHeader h : request.headers()) out.add(new AbstractMap.SimpleImmutableEntry<>(h.name(), h.value()));
+        return out;
+    }
+
+    @Override
+    public List<Param> parameters() {
+        // Keep only name/type/value/offsets; the parsed parameter may pin the whole request
+        List<Param> out = new ArrayList<>();
+        for (ParsedHttpParameter p : request.parameters()) {
+            int start = -1, end = -1;
+            try {
+                Range r = p.valueOffsets();
+                start = r.startIndexInclusive();
+                end = r.endIndexExclusive();
+            } catch (Exception ignored) {}
+            ParamType type;
+            try { type = ParamType.valueOf(p.type().name()); } catch (Exception e) { continue; }
+            out.add(new Param(p.name(), p.value(), type, start, end));
+        }
+        return out;
+    }
+
+    @Override
+    public boolean inScope() {
+        return request.isInScope();
+    }
+
+    @Override
+    public ScanRequest withPath(String path) {
+        return new MontoyaRequest(request.withPath(path));
+    }
+
+    @Override
+    public ScanRequest withHeader(String name, String value) {
+        return new MontoyaRequest(request.withUpdatedHeader(name, value));
+    }
+
+    @Override
+    public ScanRequest withParameter(String name, ParamType type, String value) {
+        HttpParameter updated = HttpParameter.parameter(name, value, HttpParameterType.valueOf(type.name()));
+        return new MontoyaRequest(request.withUpdatedParameters(updated));
+    }
+}
@@ -0,0 +1,64 @@
+package aydaaydor.burp;
+
+import aydaaydor.scanner.ScanResponse;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.MimeType;
+import burp.api.montoya.http.message.responses.HttpResponse;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * {@link ScanResponse} over a Montoya response. Responses to mutations keep their whole exchange, which is
+ * the evidence attached to a reported issue.
+ */
+final class MontoyaResponse implements ScanResponse {
+    private static final Set<MimeType> BINARY_TYPES = EnumSet.of(
+            MimeType.IMAGE_UNKNOWN, MimeType.IMAGE_JPEG, MimeType.IMAGE_GIF, MimeType.IMAGE_PNG,
+            MimeType.IMAGE_BMP, MimeType.IMAGE_TIFF, MimeType.SOUND, MimeType.VIDEO,
+            MimeType.APPLICATION_FLASH, MimeType.APPLICATION_UNKNOWN, MimeType.FONT_WOFF,
+            MimeType.FONT_WOFF2, MimeType.LEGACY_SER_AMF
+    );
+
+    final HttpResponse response;
+    final HttpRequestResponse exchange; // null for base responses
+
+    MontoyaResponse(HttpResponse response, HttpRequestResponse exchange) {
+        this.response = response;
+        this.exchange = exchange;
+    }
+
+    static MontoyaResponse of(HttpRequestResponse exchange) {
+        return new MontoyaResponse(exchange.response(), exchange);
+    }
+
+    @Override
+    public int statusCode() {
+        return response.statusCode();
+    }
+
+    @Override
+    public int bodyLength() {
+        return response.body().length();
+    }
+
+    @Override
+    public byte[] body() {
+        return response.body().getBytes();
+    }
+
+    @Override
+    public byte[] body(int from, int to) {
+        return response.body().subArray(from, to).getBytes();
+    }
+
+    @Override
+    public boolean binary() {
+        return BINARY_TYPES.contains(response.statedMimeType());
+    }
+
+    @Override
+    public ScanResponse retain() {
+        return new MontoyaResponse(response.copyToTempFile(), exchange);
+    }
+}
@@ -1,8 +1,11 @@
 package aydaaydor.ui;
 
-import aydaaydor.config.AydaConfig;
+import aydaaydor.burp.AydaConfig;
 import aydaaydor.config.DedupMode;
 import aydaaydor.config.IdGroup;
+import aydaaydor.config.Identity;
+import aydaaydor.scanner.FindingsJournal;
+import aydaaydor.burp.HistoryBackfill;
 import aydaaydor.scanner.ScannerControls;
 import burp.api.montoya.http.message.params.HttpParameterType;
 import burp.api.montoya.logging.Logging;
@@ -11,7 +14,13 @@ import javax.swing.*;
 import javax.swing.border.TitledBorder;
 import java.awt.*;
 import java.awt.event.ActionEvent;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 
 import static java.util.stream.Collectors.toList;
 
@@ -19,11 +28,13 @@ public class AydaTab extends JPanel {
     private final AydaConfig config;
     private final Logging log;
     private final ScannerControls controls;
+    private final HistoryBackfill backfill;
     private final DefaultListModel<String> groupsModel = new DefaultListModel<>();
     private final JList<String> groupsList = new JList<>(groupsModel);
     private final JTextArea idsArea = new JTextArea(10, 40);
     private final JLabel typeLabel = new JLabel("Type: ");
     private final JTextArea deniedArea = new JTextArea(6, 40);
+    private final JTextArea identitiesArea = new JTextArea(6, 40);
     private final JCheckBox enabledBox = new JCheckBox("Enable scanning");
     private final JComboBox<DedupMode> dedupModeBox = new JComboBox<>(DedupMode.values());
     private final JTextField ttlHoursField = new JTextField(6);
@@ -56,12 +67,26 @@ public class AydaTab extends JPanel {
     private final JTextField delayMsField = new JTextField(6);
     private final JTextField maxMutationsField = new JTextField(6);
     private final JTextField maxParallelField = new JTextField(6);
-
-    public AydaTab(AydaConfig config, Logging log, ScannerControls controls) {
+    private final JTextField dummyCacheMsField = new JTextField(6);
+    private final JTextField simHashDistField = new JTextField(3);
+    private final JTextField largeBodyField = new JTextField(8);
+    private final JTextField batchSizeField = new JTextField(4);
+    private final JTextField batchLingerField = new JTextField(4);
+    private final JCheckBox consistentBox = new JCheckBox("Consistent substitution");
+    private final JCheckBox adaptiveBox = new JCheckBox("Adaptive budget");
+    private final JCheckBox confirmBox = new JCheckBox("Confirm findings");
+    private final JCheckBox volatileBox = new JCheckBox("Learn volatile JSON fields");
+    private final JTextField backfillChunkField = new JTextField(5);
+    private final JLabel backfillStatus = new JLabel("Idle");
+    private final Timer backfillTimer = new Timer(1000, e -> refreshBackfillStatus());
+    private MetricsPanel metricsPanel;
+
+    public AydaTab(AydaConfig config, Logging log, ScannerControls controls, HistoryBackfill backfill) {
         super(new BorderLayout());
         this.config = config;
         this.log = log;
         this.controls = controls;
+        this.backfill = backfill;
         buildUi();
         reloadFromConfig();
     }
@@ -114,6 +139,19 @@ public class AydaTab extends JPanel {
         }));
         deniedPanel.add(deniedSouth, BorderLayout.SOUTH);
 
+        JPanel identitiesPanel = new JPanel(new BorderLayout());
+        identitiesPanel.setBorder(new TitledBorder("Identities for replay ([name], then one 'Header: value' per line)"));
+        identitiesPanel.add(new JScrollPane(identitiesArea), BorderLayout.CENTER);
+        JPanel identitiesSouth = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        identitiesSouth.add(new JButton(new AbstractAction("Save Identities") {
+            @Override public void actionPerformed(ActionEvent e) {
+                config.setIdentities(parseIdentities(identitiesArea.getText()));
+                config.save();
+                identitiesArea.setText(formatIdentities(config.getIdentities()));
+            }
+        }));
+        identitiesPanel.add(identitiesSouth, BorderLayout.SOUTH);
+
         enabledBox.setSelected(config.isEnabled());
         enabledBox.addActionListener(e -> { config.setEnabled(enabledBox.isSelected()); config.save(); });
 
@@ -310,6 +348,20 @@ public class AydaTab extends JPanel {
             perf.add(new JLabel("Delay ms:")); perf.add(delayMsField);
             perf.add(new JLabel("Max mutations/base:")); perf.add(maxMutationsField);
             perf.add(new JLabel("Max parallel:")); perf.add(maxParallelField);
+            perf.add(new JLabel("Dummy cache ms:")); perf.add(dummyCacheMsField);
+            perf.add(new JLabel("SimHash max dist:")); perf.add(simHashDistField);
+            perf.add(new JLabel("Large body bytes:")); perf.add(largeBodyField);
+            perf.add(new JLabel("Batch size:")); perf.add(batchSizeField);
+            perf.add(new JLabel("Batch linger ms:")); perf.add(batchLingerField);
+            perf.add(new JLabel("Backfill chunk:")); perf.add(backfillChunkField);
+            consistentBox.setToolTipText("Replace every location holding the same ID in one request instead of one location at a time");
+            perf.add(consistentBox);
+            adaptiveBox.setToolTipText("Try fewer alternate IDs on routes whose responses never change, up to Max mutations elsewhere");
+            perf.add(adaptiveBox);
+            confirmBox.setToolTipText("Re-send the base and test requests until a sequential test accepts or rejects each finding");
+            perf.add(confirmBox);
+            volatileBox.setToolTipText("Ignore JSON fields that change between identical requests (timestamps, nonces), learned per route");
+            perf.add(volatileBox);
             perf.add(new JButton(new AbstractAction("Save Perf") {
                 @Override public void actionPerformed(ActionEvent e) {
                     try {
@@ -317,6 +369,16 @@ public class AydaTab extends JPanel {
                         config.setDelayMsBetweenMutations(Integer.parseInt(delayMsField.getText().trim()));
                         config.setMaxMutationsPerBase(Integer.parseInt(maxMutationsField.getText().trim()));
                         config.setMaxParallelMutations(Integer.parseInt(maxParallelField.getText().trim()));
+                        config.setDummyCacheTtlMillis(Long.parseLong(dummyCacheMsField.getText().trim()));
+                        config.setSimHashMaxDistance(Integer.parseInt(simHashDistField.getText().trim()));
+                        config.setLargeBodyThresholdBytes(Integer.parseInt(largeBodyField.getText().trim()));
+                        config.setBatchSize(Integer.parseInt(batchSizeField.getText().trim()));
+                        config.setBatchLingerMs(Integer.parseInt(batchLingerField.getText().trim()));
+                        config.setBackfillChunkSize(Integer.parseInt(backfillChunkField.getText().trim()));
+                        config.setConsistentSubstitution(consistentBox.isSelected());
+                        config.setAdaptiveBudget(adaptiveBox.isSelected());
+                        config.setConfirmFindings(confirmBox.isSelected());
+                        config.setLearnVolatileJsonPaths(volatileBox.isSelected());
                         config.save();
                         if (controls != null) controls.applySettings();
                     } catch (Exception ex) {
@@ -329,6 +391,8 @@ public class AydaTab extends JPanel {
             right.add(Box.createVerticalStrut(8));
             right.add(deniedPanel);
             right.add(Box.createVerticalStrut(8));
+            right.add(identitiesPanel);
+            right.add(Box.createVerticalStrut(8));
             right.add(filterPanel);
             right.add(Box.createVerticalStrut(8));
             right.add(ignoredPanel);
@@ -338,16 +402,85 @@ public class AydaTab extends JPanel {
             right.add(dedupPanel);
             right.add(Box.createVerticalStrut(8));
             right.add(perf);
+            if (backfill != null) {
+                // Proxy history backfill
+                JPanel backfillPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+                backfillPanel.setBorder(new TitledBorder("Proxy history backfill"));
+                backfillPanel.add(new JButton(new AbstractAction("Scan history") {
+                    @Override public void actionPerformed(ActionEvent e) { backfill.start(); refreshBackfillStatus(); }
+                }));
+                backfillPanel.add(new JButton(new AbstractAction("Pause") {
+                    @Override public void actionPerformed(ActionEvent e) { backfill.pause(); refreshBackfillStatus(); }
+                }));
+                backfillPanel.add(new JButton(new AbstractAction("Restart from beginning") {
+                    @Override public void actionPerformed(ActionEvent e) { backfill.restart(); refreshBackfillStatus(); }
+                }));
+                backfillPanel.add(backfillStatus);
+                right.add(Box.createVerticalStrut(8));
+                right.add(backfillPanel);
+                backfillTimer.start();
+            }
+            // Findings journal export
+            JPanel journalPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+            journalPanel.setBorder(new TitledBorder("Findings journal"));
+            journalPanel.add(new JButton(new AbstractAction("Export JSON Lines") {
+                @Override public void actionPerformed(ActionEvent e) { exportJournal(false); }
+            }));
+            journalPanel.add(new JButton(new AbstractAction("Export SARIF") {
+                @Override public void actionPerformed(ActionEvent e) { exportJournal(true); }
+            }));
+            right.add(Box.createVerticalStrut(8));
+            right.add(journalPanel);
+            if (controls != null) {
+                metricsPanel = new MetricsPanel(controls.metrics());
+                right.add(Box.createVerticalStrut(8));
+                right.add(metricsPanel);
+            }
 
         add(left, BorderLayout.WEST);
         add(right, BorderLayout.CENTER);
     }
 
+    /** Stops the metrics refresh timer; called when the extension unloads. */
+    public void shutdown() {
+        if (metricsPanel != null) metricsPanel.shutdown();
+        backfillTimer.stop();
+    }
+
+    private void refreshBackfillStatus() {
+        if (backfill != null) backfillStatus.setText(backfill.status());
+    }
+
+    private void exportJournal(boolean sarif) {
+        Path path = config.getFindingsJournalPath();
+        if (path == null || !Files.exists(path)) {
+            JOptionPane.showMessageDialog(this, "No findings have been journaled for this project yet.");
+            return;
+        }
+        JFileChooser fc = new JFileChooser();
+        fc.setSelectedFile(new File(sarif ? "aydaaydor.sarif" : "aydaaydor-findings.jsonl"));
+        if (fc.showSaveDialog(this) != JFileChooser.APPROVE_OPTION || fc.getSelectedFile() == null) return;
+        Path out = fc.getSelectedFile().toPath();
+        // Journals can be large; export off the UI thread
+        Thread t = new Thread(() -> {
+            try {
+                FindingsJournal journal = new FindingsJournal(path);
+                long n = sarif ? journal.exportSarif(out, 0) : journal.exportJsonLines(out, 0);
+                log.logToOutput("AydaAydor: Exported " + n + " finding(s) to " + out);
+            } catch (Exception ex) {
+                log.logToError("AydaAydor: Findings export failed: " + ex);
+            }
+        }, "ayda-export");
+        t.setDaemon(true);
+        t.start();
+    }
+
     private void reloadFromConfig() {
             groupsModel.clear();
             for (IdGroup g : config.allGroups()) groupsModel.addElement(g.name);
             if (!groupsModel.isEmpty()) groupsList.setSelectedIndex(0);
             deniedArea.setText(String.join("\n", config.getDeniedStrings()));
+            identitiesArea.setText(formatIdentities(config.getIdentities()));
             // Dedup settings
             dedupModeBox.setSelectedItem(config.getDedupMode());
             ttlHoursField.setText(Long.toString(Math.max(1, config.getDedupTtlMillis() / (60 * 60 * 1000))));
@@ -358,6 +491,16 @@ public class AydaTab extends JPanel {
             delayMsField.setText(Integer.toString(config.getDelayMsBetweenMutations()));
             maxMutationsField.setText(Integer.toString(config.getMaxMutationsPerBase()));
             maxParallelField.setText(Integer.toString(config.getMaxParallelMutations()));
+            dummyCacheMsField.setText(Long.toString(config.getDummyCacheTtlMillis()));
+            simHashDistField.setText(Integer.toString(config.getSimHashMaxDistance()));
+            largeBodyField.setText(Integer.toString(config.getLargeBodyThresholdBytes()));
+            batchSizeField.setText(Integer.toString(config.getBatchSize()));
+            batchLingerField.setText(Integer.toString(config.getBatchLingerMs()));
+            backfillChunkField.setText(Integer.toString(config.getBackfillChunkSize()));
+            consistentBox.setSelected(config.isConsistentSubstitution());
+            adaptiveBox.setSelected(config.isAdaptiveBudget());
+            confirmBox.setSelected(config.isConfirmFindings());
+            volatileBox.setSelected(config.isLearnVolatileJsonPaths());
         }
 
     private void reloadIgnoredParams() {
@@ -384,6 +527,37 @@ public class AydaTab extends JPanel {
         for (String s : config.getIgnoredJsonKeys()) jsonKeysModel.addElement(s);
     }
 
+    // "[name]" starts an identity; "Header: value" lines below it are its headers ("Header:" blanks it)
+    private static List<Identity> parseIdentities(String text) {
+        List<Identity> out = new ArrayList<>();
+        Identity current = null;
+        for (String raw : text.split("\n")) {
+            String line = raw.trim();
+            if (line.isEmpty()) continue;
+            if (line.startsWith("[") && line.endsWith("]")) {
+                current = new Identity(line.substring(1, line.length() - 1).trim());
+                out.add(current);
+                continue;
+            }
+            int c = line.indexOf(':');
+            if (current == null || c <= 0) continue;
+            current.headers.put(line.substring(0, c).trim(), line.substring(c + 1).trim());
+        }
+        return out;
+    }
+
+    private static String formatIdentities(List<Identity> identities) {
+        StringBuilder sb = new StringBuilder();
+        for (Identity identity : identities) {
+            if (sb.length() > 0) sb.append('\n');
+            sb.append('[').append(identity.name).append("]\n");
+            for (Map.Entry<String, String> h : identity.headers.entrySet()) {
+                sb.append(h.getKey()).append(": ").append(h.getValue()).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
     private void onGroupSelected() {
         String name = groupsList.getSelectedValue();
         if (name == null) { idsArea.setText(""); typeLabel.setText("Type: "); return; }
@@ -423,12 +597,12 @@ public class AydaTab extends JPanel {
         if (name == null) return;
         IdGroup g = config.getGroup(name);
         if (g == null) return;
-        g.ids.clear();
+        java.util.List<String> ids = new java.util.ArrayList<>();
         for (String line : idsArea.getText().split("\n")) {
             line = line.trim();
-            if (!line.isEmpty()) g.ids.add(line);
+            if (!line.isEmpty()) ids.add(line);
         }
-        g.recalculateType();
+        config.setGroupIds(name, ids);
         config.save();
         typeLabel.setText("Type: " + g.type);
     }
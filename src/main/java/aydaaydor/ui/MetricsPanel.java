@@ -0,0 +1,81 @@
+package aydaaydor.ui;
+
+import aydaaydor.metrics.Histogram;
+import aydaaydor.metrics.MetricsRegistry;
+
+import javax.swing.*;
+import javax.swing.border.TitledBorder;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Live view of the scanner's pipeline metrics. Snapshots are taken and formatted on a background
+ * timer thread; only the final text is handed to the EDT.
+ */
+class MetricsPanel extends JPanel {
+    private static final long REFRESH_MS = 1000;
+
+    private final MetricsRegistry metrics;
+    private final JTextArea text = new JTextArea(14, 40);
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "ayda-metrics-ui");
+        t.setDaemon(true);
+        return t;
+    });
+    private MetricsRegistry.Snapshot previous; // timer thread only
+
+    MetricsPanel(MetricsRegistry metrics) {
+        super(new BorderLayout());
+        this.metrics = metrics;
+        setBorder(new TitledBorder("Pipeline metrics"));
+        text.setEditable(false);
+        text.setFont(new Font(Font.MONOSPACED, Font.PLAIN, text.getFont().getSize()));
+        add(new JScrollPane(text), BorderLayout.CENTER);
+        JPanel south = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        south.add(new JButton(new AbstractAction("Reset metrics") {
+            @Override public void actionPerformed(ActionEvent e) { metrics.reset(); }
+        }));
+        add(south, BorderLayout.SOUTH);
+        timer.scheduleWithFixedDelay(this::refresh, 0, REFRESH_MS, TimeUnit.MILLISECONDS);
+    }
+
+    void shutdown() {
+        timer.shutdownNow();
+    }
+
+    private void refresh() {
+        try {
+            MetricsRegistry.Snapshot now = metrics.snapshot();
+            String rendered = render(now, previous);
+            previous = now;
+            SwingUtilities.invokeLater(() -> text.setText(rendered));
+        } catch (Exception ignored) {}
+    }
+
+    private static String render(MetricsRegistry.Snapshot now, MetricsRegistry.Snapshot prev) {
+        StringBuilder sb = new StringBuilder();
+        double secs = prev == null ? 0 : (now.timestampNanos - prev.timestampNanos) / 1e9;
+        sb.append(String.format("%-24s %12s %10s%n", "counter", "total", "per sec"));
+        for (Map.Entry<String, Long> e : now.counters.entrySet()) {
+            Long before = prev == null ? null : prev.counters.get(e.getKey());
+            // a reset makes the delta negative; show 0 for that interval
+            double rate = before == null || secs <= 0 ? 0 : Math.max(0, e.getValue() - before) / secs;
+            sb.append(String.format("%-24s %12d %10.1f%n", e.getKey(), e.getValue(), rate));
+        }
+        sb.append(String.format("%n%-24s %12s%n", "gauge", "value"));
+        for (Map.Entry<String, Long> e : now.gauges.entrySet()) {
+            sb.append(String.format("%-24s %12d%n", e.getKey(), e.getValue()));
+        }
+        sb.append(String.format("%n%-24s %10s %10s %10s %10s %10s %10s%n", "histogram", "count", "mean", "p50", "p90", "p99", "max"));
+        for (Map.Entry<String, Histogram.Summary> e : now.histograms.entrySet()) {
+            Histogram.Summary h = e.getValue();
+            sb.append(String.format("%-24s %10d %10d %10d %10d %10d %10d%n",
+                    e.getKey(), h.count, h.mean(), h.p50, h.p90, h.p99, h.max));
+        }
+        return sb.toString();
+    }
+}